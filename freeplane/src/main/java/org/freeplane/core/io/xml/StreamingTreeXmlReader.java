@@ -0,0 +1,325 @@
+package org.freeplane.core.io.xml;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.List;
+
+import org.freeplane.core.io.IAttributeHandler;
+import org.freeplane.core.io.IElementContentHandler;
+import org.freeplane.core.io.IElementDOMHandler;
+import org.freeplane.core.io.IElementHandler;
+import org.freeplane.core.io.ListHashTable;
+import org.freeplane.core.io.ReadManager;
+import org.freeplane.core.util.LogUtils;
+import org.freeplane.n3.nanoxml.XMLElement;
+import org.freeplane.n3.nanoxml.XMLException;
+
+/**
+ * Alternative to {@link TreeXmlReader} driving the registered element and attribute handlers
+ * directly from {@link XMLPullParser} events.
+ *
+ * {@link XMLElement}s are only built for elements handled by {@link IElementDOMHandler}s or
+ * {@link IElementContentHandler}s, for elements with more than one registered handler
+ * and for unknown elements which are kept inside of such DOMs.
+ * Unknown elements without enclosing DOM are skipped.
+ */
+public class StreamingTreeXmlReader {
+	private static class Frame {
+		Object element;
+		IElementHandler handler;
+		XMLElement dom;
+		String content;
+		boolean unknown;
+
+		void set(final Object element, final IElementHandler handler, final XMLElement dom, final boolean unknown) {
+			this.element = element;
+			this.handler = handler;
+			this.dom = dom;
+			this.unknown = unknown;
+			content = null;
+		}
+
+		void clear() {
+			set(null, null, null, false);
+		}
+	}
+
+	final private ReadManager parseManager;
+	private Frame[] frames;
+	private int depth;
+	private int skippedDepth;
+	private XMLPullParser parser;
+
+	public StreamingTreeXmlReader(final ReadManager parseManager) {
+		super();
+		this.parseManager = parseManager;
+	}
+
+	public void load(final Object rootElement, final Reader reader) throws XMLException {
+		parser = new XMLPullParser(reader);
+		frames = new Frame[32];
+		frames[0] = new Frame();
+		frames[0].set(rootElement, null, null, false);
+		depth = 0;
+		skippedDepth = 0;
+		try {
+			for (;;) {
+				switch (parser.next()) {
+					case XMLPullParser.START_ELEMENT:
+						startElement();
+						break;
+					case XMLPullParser.END_ELEMENT:
+						endElement();
+						break;
+					case XMLPullParser.CHARACTERS:
+						addText();
+						break;
+					case XMLPullParser.END_DOCUMENT:
+						return;
+				}
+			}
+		}
+		catch (final IOException e) {
+			throw new XMLException(e);
+		}
+		finally {
+			frames = null;
+			parser = null;
+		}
+	}
+
+	private void startElement() throws IOException, XMLException {
+		if (skippedDepth > 0) {
+			skippedDepth++;
+			return;
+		}
+		final Frame parent = frames[depth];
+		final String fullName = parser.getName();
+		if (parent.unknown) {
+			pushFrame().set(null, null, createDom(fullName, parent.dom), true);
+			return;
+		}
+		final String tag = localName(fullName);
+		final Object parentElement = parent.element;
+		final List<IElementHandler> handlers = getElementHandlers().list(tag);
+		if (handlers == null) {
+			skipOrKeepUnknownElement(parent, fullName);
+			return;
+		}
+		Object element = null;
+		IElementHandler handler = null;
+		XMLElement dom = null;
+		if (handlers.size() == 1) {
+			handler = handlers.get(0);
+			element = createElement(handler, parentElement, tag, null);
+		}
+		if (element != null) {
+			if (handler instanceof IElementDOMHandler || handler instanceof IElementContentHandler) {
+				dom = new XMLElement(fullName, null, parser.getLineNr());
+				if (parent.dom != null) {
+					parent.dom.addChild(dom);
+				}
+			}
+			final Hashtable<String, IAttributeHandler> attributeHandlers = getAttributeLoaders().get(tag);
+			final int attributeCount = parser.getAttributeCount();
+			for (int i = 0; i < attributeCount; i++) {
+				final String name = parser.getAttributeName(i);
+				if (isNamespaceDeclaration(name)) {
+					continue;
+				}
+				final String value = parser.getAttributeValue(i);
+				if (!setAttribute(attributeHandlers, element, name, value) && dom != null) {
+					dom.setAttribute(name, value);
+				}
+			}
+		}
+		else {
+			dom = createDom(fullName, parent.dom);
+			final Iterator<IElementHandler> iterator = handlers.iterator();
+			handler = null;
+			while (iterator.hasNext() && element == null) {
+				handler = iterator.next();
+				element = createElement(handler, parentElement, tag, dom);
+			}
+			if (element == null) {
+				if (parent.dom == null) {
+					skipElement();
+				}
+				else {
+					pushFrame().set(null, null, dom, true);
+				}
+				return;
+			}
+			final Hashtable<String, IAttributeHandler> attributeHandlers = getAttributeLoaders().get(tag);
+			if (attributeHandlers != null) {
+				final Enumeration<String> attributeNames = dom.enumerateAttributeNames();
+				while (attributeNames.hasMoreElements()) {
+					final String name = attributeNames.nextElement();
+					if (setAttribute(attributeHandlers, element, name, dom.getAttribute(name, null))) {
+						dom.removeAttribute(name);
+					}
+				}
+			}
+		}
+		final Frame frame = pushFrame();
+		frame.set(element, handler, dom, false);
+		if (handler instanceof IElementContentHandler && !parser.isEmptyElement()) {
+			frame.content = parser.readRawElementContent();
+		}
+	}
+
+	private void skipOrKeepUnknownElement(final Frame parent, final String fullName) {
+		if (parent.dom == null) {
+			skipElement();
+		}
+		else {
+			pushFrame().set(null, null, createDom(fullName, parent.dom), true);
+		}
+	}
+
+	private void skipElement() {
+		skippedDepth = 1;
+	}
+
+	private XMLElement createDom(final String fullName, final XMLElement parentDom) {
+		final XMLElement dom = new XMLElement(fullName, null, parser.getLineNr());
+		final int attributeCount = parser.getAttributeCount();
+		for (int i = 0; i < attributeCount; i++) {
+			final String name = parser.getAttributeName(i);
+			if (!isNamespaceDeclaration(name)) {
+				dom.setAttribute(name, parser.getAttributeValue(i));
+			}
+		}
+		if (parentDom != null) {
+			parentDom.addChild(dom);
+		}
+		return dom;
+	}
+
+	private void endElement() {
+		if (skippedDepth > 0) {
+			skippedDepth--;
+			return;
+		}
+		final Frame frame = frames[depth];
+		if (frame.dom != null) {
+			moveTextToContent(frame.dom);
+		}
+		if (frame.unknown) {
+			popFrame();
+			return;
+		}
+		final Object parentElement = frames[depth - 1].element;
+		final IElementHandler handler = frame.handler;
+		final String tag = localName(parser.getName());
+		try {
+			if (handler instanceof IElementContentHandler) {
+				((IElementContentHandler) handler).endElement(parentElement, tag, frame.element, frame.dom,
+				    frame.content);
+			}
+			else if (handler instanceof IElementDOMHandler) {
+				((IElementDOMHandler) handler).endElement(parentElement, tag, frame.element, frame.dom);
+			}
+		}
+		catch (Exception e) {
+			LogUtils.severe("Can not process element" + tag, e);
+		}
+		final XMLElement parentDom = frames[depth - 1].dom;
+		if (frame.dom != null && parentDom != null && parentDom.hasChildren()) {
+			parentDom.removeChildAtIndex(parentDom.getChildrenCount() - 1);
+		}
+		popFrame();
+	}
+
+	private void addText() {
+		if (skippedDepth > 0 || depth == 0 || parser.isWhitespace()) {
+			return;
+		}
+		final XMLElement dom = frames[depth].dom;
+		if (dom != null) {
+			final XMLElement text = new XMLElement(null, null, parser.getLineNr());
+			text.setContent(parser.getText());
+			dom.addChild(text);
+		}
+	}
+
+	private void moveTextToContent(final XMLElement dom) {
+		if (dom.getChildrenCount() == 1) {
+			final XMLElement child = dom.getChildAtIndex(0);
+			if (child.getName() == null) {
+				dom.setContent(child.getContent());
+				dom.removeChildAtIndex(0);
+			}
+		}
+	}
+
+	private Object createElement(final IElementHandler handler, final Object parentElement, final String tag,
+	                             final XMLElement attributes) {
+		try {
+			return handler.createElement(parentElement, tag, attributes);
+		}
+		catch (Exception e) {
+			LogUtils.severe("Can not process element" + tag, e);
+			return null;
+		}
+	}
+
+	private boolean setAttribute(final Hashtable<String, IAttributeHandler> attributeHandlers, final Object element,
+	                             final String name, final String value) {
+		if (attributeHandlers == null) {
+			return false;
+		}
+		final IAttributeHandler attributeHandler = attributeHandlers.get(localName(name));
+		if (attributeHandler == null) {
+			return false;
+		}
+		try {
+			attributeHandler.setAttribute(element, value);
+			return true;
+		}
+		catch (Exception e) {
+			LogUtils.severe("Can not process attribute" + name + " = '" + value + "'", e);
+			return false;
+		}
+	}
+
+	private Frame pushFrame() {
+		depth++;
+		if (depth == frames.length) {
+			final Frame[] newFrames = new Frame[depth * 2];
+			System.arraycopy(frames, 0, newFrames, 0, depth);
+			frames = newFrames;
+		}
+		Frame frame = frames[depth];
+		if (frame == null) {
+			frame = new Frame();
+			frames[depth] = frame;
+		}
+		return frame;
+	}
+
+	private void popFrame() {
+		frames[depth].clear();
+		depth--;
+	}
+
+	private static boolean isNamespaceDeclaration(final String name) {
+		return name.startsWith("xmlns") && (name.length() == 5 || name.charAt(5) == ':');
+	}
+
+	private static String localName(final String fullName) {
+		final int colonIndex = fullName.indexOf(':');
+		return colonIndex > 0 ? fullName.substring(colonIndex + 1) : fullName;
+	}
+
+	private Hashtable<String, Hashtable<String, IAttributeHandler>> getAttributeLoaders() {
+		return parseManager.getAttributeHandlers();
+	}
+
+	private ListHashTable<String, IElementHandler> getElementHandlers() {
+		return parseManager.getElementHandlers();
+	}
+}
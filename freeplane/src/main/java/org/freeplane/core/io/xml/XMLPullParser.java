@@ -0,0 +1,553 @@
+package org.freeplane.core.io.xml;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+
+import org.freeplane.n3.nanoxml.XMLParseException;
+
+/**
+ * StAX like pull tokenizer for the XML subset used by map files.
+ *
+ * It reads directly from a char buffer and reports start tags, end tags and text,
+ * so that no per character objects are created. Whitespace, entity and
+ * raw element content handling follow nanoxml and {@link XMLParser}
+ * so that both readers deliver the same data to the element handlers.
+ */
+class XMLPullParser {
+	static final int START_ELEMENT = 1;
+	static final int END_ELEMENT = 2;
+	static final int CHARACTERS = 3;
+	static final int END_DOCUMENT = 4;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final int NO_CHAR = -2;
+	private static final int NAME_CACHE_SIZE = 1 << 10;
+
+	private final Reader reader;
+	private final char[] buffer;
+	private int position;
+	private int limit;
+	private int pushedBack;
+	private int lineNr;
+
+	private final StringBuilder textBuilder;
+	private char[] nameChars;
+	private final String[] nameCache;
+	private final ArrayList<String> openElements;
+
+	private String name;
+	private String[] attributeNames;
+	private String[] attributeValues;
+	private int attributeCount;
+	private boolean emptyElement;
+	private boolean pendingEndElement;
+	private boolean whitespace;
+	private String text;
+
+	XMLPullParser(final Reader reader) {
+		this.reader = reader;
+		buffer = new char[BUFFER_SIZE];
+		position = 0;
+		limit = 0;
+		pushedBack = NO_CHAR;
+		lineNr = 1;
+		textBuilder = new StringBuilder(256);
+		nameChars = new char[64];
+		nameCache = new String[NAME_CACHE_SIZE];
+		openElements = new ArrayList<String>();
+		attributeNames = new String[16];
+		attributeValues = new String[16];
+	}
+
+	int next() throws IOException, XMLParseException {
+		if (pendingEndElement) {
+			pendingEndElement = false;
+			emptyElement = false;
+			attributeCount = 0;
+			return END_ELEMENT;
+		}
+		attributeCount = 0;
+		emptyElement = false;
+		text = null;
+		for (;;) {
+			final int ch = read();
+			if (ch < 0) {
+				if (!openElements.isEmpty()) {
+					throw error("Unexpected EOF, unclosed element " + openElements.get(openElements.size() - 1));
+				}
+				return END_DOCUMENT;
+			}
+			if (ch != '<') {
+				unread(ch);
+				textBuilder.setLength(0);
+				whitespace = true;
+				readText();
+				text = textBuilder.toString();
+				return CHARACTERS;
+			}
+			final int next = read();
+			if (next == '/') {
+				readEndTag();
+				return END_ELEMENT;
+			}
+			else if (next == '?') {
+				skipUntil("?>");
+			}
+			else if (next == '!') {
+				if (readSpecialTag()) {
+					return CHARACTERS;
+				}
+			}
+			else {
+				unread(next);
+				readStartTag();
+				return START_ELEMENT;
+			}
+		}
+	}
+
+	String getName() {
+		return name;
+	}
+
+	int getAttributeCount() {
+		return attributeCount;
+	}
+
+	String getAttributeName(final int index) {
+		return attributeNames[index];
+	}
+
+	String getAttributeValue(final int index) {
+		return attributeValues[index];
+	}
+
+	String getText() {
+		return text;
+	}
+
+	boolean isWhitespace() {
+		return whitespace;
+	}
+
+	boolean isEmptyElement() {
+		return emptyElement;
+	}
+
+	int getLineNr() {
+		return lineNr;
+	}
+
+	/**
+	 * Returns the unparsed content of the element whose start tag has just been read
+	 * and consumes its end tag, which is reported by the following call to {@link #next()}.
+	 * Mirrors XMLParser.processElementContent.
+	 */
+	String readRawElementContent() throws IOException, XMLParseException {
+		final StringBuilder waitingBuf = new StringBuilder();
+		boolean inComment = false;
+		int level = 1;
+		for (;;) {
+			int ch = readRequired();
+			if (inComment) {
+				waitingBuf.append((char) ch);
+				if (ch != '-') {
+					continue;
+				}
+				ch = readRequired();
+				waitingBuf.append((char) ch);
+				if (ch != '-') {
+					continue;
+				}
+				ch = readRequired();
+				waitingBuf.append((char) ch);
+				if (ch != '>') {
+					continue;
+				}
+				inComment = false;
+				continue;
+			}
+			if (ch == '<') {
+				ch = readRequired();
+				if (ch == '/') {
+					level--;
+					if (level == 0) {
+						break;
+					}
+				}
+				else if (ch == '!') {
+					final int read1 = readRequired();
+					final int read2 = readRequired();
+					if (read1 != '-' || read2 != '-') {
+						throw error("Invalid input: <!" + (char) read1 + (char) read2);
+					}
+					inComment = true;
+					waitingBuf.append("<!--");
+					continue;
+				}
+				else {
+					level++;
+				}
+				waitingBuf.append('<');
+			}
+			else if (ch == '/') {
+				ch = readRequired();
+				if (ch == '>') {
+					level--;
+					if (level == 0) {
+						throw error("Invalid input: />");
+					}
+				}
+				else if (ch == '<') {
+					waitingBuf.append('/');
+					unread(ch);
+					continue;
+				}
+				waitingBuf.append('/');
+			}
+			waitingBuf.append((char) ch);
+		}
+		readEndTag();
+		pendingEndElement = true;
+		return waitingBuf.toString();
+	}
+
+	private void readStartTag() throws IOException, XMLParseException {
+		name = readName();
+		if (name.isEmpty()) {
+			throw error("Element name expected");
+		}
+		skipWhitespace();
+		for (;;) {
+			final int ch = readRequired();
+			if (ch == '/') {
+				if (readRequired() != '>') {
+					throw error("Expected `>'");
+				}
+				emptyElement = true;
+				pendingEndElement = true;
+				return;
+			}
+			if (ch == '>') {
+				openElements.add(name);
+				return;
+			}
+			unread(ch);
+			readAttribute();
+			skipWhitespace();
+		}
+	}
+
+	private void readAttribute() throws IOException, XMLParseException {
+		final String attributeName = readName();
+		if (attributeName.isEmpty()) {
+			throw error("Attribute name expected in element " + name);
+		}
+		skipWhitespace();
+		if (readRequired() != '=') {
+			throw error("Expected `=' after attribute " + attributeName);
+		}
+		skipWhitespace();
+		final int delimiter = readRequired();
+		if (delimiter != '\'' && delimiter != '"') {
+			throw error("Expected delimited string for attribute " + attributeName);
+		}
+		textBuilder.setLength(0);
+		for (;;) {
+			final int ch = readRequired();
+			if (ch == delimiter) {
+				break;
+			}
+			else if (ch == '&') {
+				readEntity();
+			}
+			else if (ch == '\t' || ch == '\n') {
+				textBuilder.append(' ');
+			}
+			else {
+				textBuilder.append((char) ch);
+			}
+		}
+		for (int i = 0; i < attributeCount; i++) {
+			if (attributeNames[i].equals(attributeName)) {
+				throw error("Duplicate attribute: " + attributeName);
+			}
+		}
+		if (attributeCount == attributeNames.length) {
+			final String[] names = new String[attributeCount * 2];
+			final String[] values = new String[attributeCount * 2];
+			System.arraycopy(attributeNames, 0, names, 0, attributeCount);
+			System.arraycopy(attributeValues, 0, values, 0, attributeCount);
+			attributeNames = names;
+			attributeValues = values;
+		}
+		attributeNames[attributeCount] = attributeName;
+		attributeValues[attributeCount] = textBuilder.toString();
+		attributeCount++;
+	}
+
+	private void readEndTag() throws IOException, XMLParseException {
+		skipWhitespace();
+		name = readName();
+		skipWhitespace();
+		if (readRequired() != '>') {
+			throw error("Closing tag " + name + " must be empty");
+		}
+		final int lastIndex = openElements.size() - 1;
+		if (lastIndex < 0 || !openElements.get(lastIndex).equals(name)) {
+			throw error("Wrong closing tag " + name);
+		}
+		openElements.remove(lastIndex);
+	}
+
+	private void readText() throws IOException, XMLParseException {
+		for (;;) {
+			final int ch = read();
+			if (ch < 0) {
+				return;
+			}
+			if (ch == '<') {
+				unread(ch);
+				return;
+			}
+			if (ch == '&') {
+				readEntity();
+				whitespace = false;
+			}
+			else {
+				if (ch != ' ' && ch != '\t' && ch != '\n') {
+					whitespace = false;
+				}
+				textBuilder.append((char) ch);
+			}
+		}
+	}
+
+	private boolean readSpecialTag() throws IOException, XMLParseException {
+		final int ch = readRequired();
+		if (ch == '-') {
+			if (readRequired() != '-') {
+				throw error("Invalid comment");
+			}
+			skipUntil("-->");
+			return false;
+		}
+		else if (ch == '[') {
+			expect("CDATA[");
+			textBuilder.setLength(0);
+			for (;;) {
+				final int c = readRequired();
+				textBuilder.append((char) c);
+				final int length = textBuilder.length();
+				if (c == '>' && length >= 3 && textBuilder.charAt(length - 2) == ']'
+				        && textBuilder.charAt(length - 3) == ']') {
+					textBuilder.setLength(length - 3);
+					break;
+				}
+			}
+			text = textBuilder.toString();
+			whitespace = false;
+			return true;
+		}
+		else if (ch == 'D') {
+			expect("OCTYPE");
+			int level = 1;
+			while (level > 0) {
+				final int c = readRequired();
+				if (c == '<' || c == '[') {
+					level++;
+				}
+				else if (c == '>' || c == ']') {
+					level--;
+				}
+			}
+			return false;
+		}
+		throw error("Invalid input: <!" + (char) ch);
+	}
+
+	private void readEntity() throws IOException, XMLParseException {
+		int ch = readRequired();
+		if (ch == '#') {
+			int radix = 10;
+			ch = readRequired();
+			if (ch == 'x') {
+				radix = 16;
+				ch = readRequired();
+			}
+			int value = 0;
+			while (ch != ';') {
+				final int digit = Character.digit(ch, radix);
+				if (digit < 0) {
+					throw error("Invalid character reference");
+				}
+				value = value * radix + digit;
+				ch = readRequired();
+			}
+			textBuilder.append((char) value);
+			return;
+		}
+		final int start = textBuilder.length();
+		while (ch != ';') {
+			textBuilder.append((char) ch);
+			ch = readRequired();
+		}
+		final String entity = textBuilder.substring(start);
+		textBuilder.setLength(start);
+		if (entity.equals("amp")) {
+			textBuilder.append('&');
+		}
+		else if (entity.equals("lt")) {
+			textBuilder.append('<');
+		}
+		else if (entity.equals("gt")) {
+			textBuilder.append('>');
+		}
+		else if (entity.equals("quot")) {
+			textBuilder.append('"');
+		}
+		else if (entity.equals("apos")) {
+			textBuilder.append('\'');
+		}
+		else {
+			throw error("Invalid entity: `&" + entity + ";'");
+		}
+	}
+
+	private String readName() throws IOException {
+		int hash = 0;
+		int length = 0;
+		for (;;) {
+			final int ch = read();
+			if (ch == '_' || ch == ':' || ch == '-' || ch == '.' || (ch >= 'a' && ch <= 'z')
+			        || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9') || ch > '~') {
+				if (length == nameChars.length) {
+					final char[] newChars = new char[length * 2];
+					System.arraycopy(nameChars, 0, newChars, 0, length);
+					nameChars = newChars;
+				}
+				nameChars[length++] = (char) ch;
+				hash = 31 * hash + ch;
+			}
+			else {
+				unread(ch);
+				break;
+			}
+		}
+		if (length == 0) {
+			return "";
+		}
+		final int index = hash & (NAME_CACHE_SIZE - 1);
+		final String cachedName = nameCache[index];
+		if (cachedName != null && cachedName.length() == length) {
+			boolean equal = true;
+			for (int i = 0; i < length; i++) {
+				if (cachedName.charAt(i) != nameChars[i]) {
+					equal = false;
+					break;
+				}
+			}
+			if (equal) {
+				return cachedName;
+			}
+		}
+		final String newName = new String(nameChars, 0, length);
+		nameCache[index] = newName;
+		return newName;
+	}
+
+	private void skipWhitespace() throws IOException {
+		int ch;
+		do {
+			ch = read();
+		} while (ch == ' ' || ch == '\t' || ch == '\n');
+		unread(ch);
+	}
+
+	private void skipUntil(final String end) throws IOException, XMLParseException {
+		final int endLength = end.length();
+		int matched = 0;
+		while (matched < endLength) {
+			final int ch = readRequired();
+			if (ch == end.charAt(matched)) {
+				matched++;
+			}
+			else if (ch == end.charAt(0)) {
+				matched = 1;
+			}
+			else {
+				matched = 0;
+			}
+		}
+	}
+
+	private void expect(final String literal) throws IOException, XMLParseException {
+		for (int i = 0; i < literal.length(); i++) {
+			if (readRequired() != literal.charAt(i)) {
+				throw error("Expected " + literal);
+			}
+		}
+	}
+
+	private int readRequired() throws IOException, XMLParseException {
+		final int ch = read();
+		if (ch < 0) {
+			throw error("Unexpected EOF");
+		}
+		return ch;
+	}
+
+	private int read() throws IOException {
+		if (pushedBack != NO_CHAR) {
+			final int ch = pushedBack;
+			pushedBack = NO_CHAR;
+			if (ch == '\n') {
+				lineNr++;
+			}
+			return ch;
+		}
+		if (position == limit && !fill()) {
+			return -1;
+		}
+		char ch = buffer[position++];
+		if (ch == '\r') {
+			if (position == limit) {
+				fill();
+			}
+			if (position < limit && buffer[position] == '\n') {
+				position++;
+			}
+			ch = '\n';
+		}
+		if (ch == '\n') {
+			lineNr++;
+		}
+		return ch;
+	}
+
+	private void unread(final int ch) {
+		if (ch < 0) {
+			return;
+		}
+		if (ch == '\n') {
+			lineNr--;
+		}
+		pushedBack = ch;
+	}
+
+	private boolean fill() throws IOException {
+		final int count = reader.read(buffer, 0, buffer.length);
+		if (count <= 0) {
+			position = limit = 0;
+			return false;
+		}
+		position = 0;
+		limit = count;
+		return true;
+	}
+
+	private XMLParseException error(final String message) {
+		return new XMLParseException(null, lineNr, message);
+	}
+}
@@ -0,0 +1,108 @@
+package org.freeplane.core.ui.components.html;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import javax.swing.text.Document;
+
+/**
+ * Parsed html documents shared by all labels showing the same text with the same font,
+ * together with their preferred size measured once.
+ * Each label still builds its own view tree, because views keep their layout for a single host.
+ */
+class HTMLLayoutCache {
+	static final int MAXIMUM_SIZE = 1000;
+	static final HTMLLayoutCache INSTANCE = new HTMLLayoutCache(MAXIMUM_SIZE);
+
+	static class Key {
+		private final String text;
+		private final Font font;
+		private final Color foreground;
+		private final int horizontalAlignment;
+		private final String base;
+		private final FontRenderContext fontRenderContext;
+
+		Key(String text, Font font, Color foreground, int horizontalAlignment, URL base,
+				FontRenderContext fontRenderContext) {
+			this.text = text;
+			this.font = font;
+			this.foreground = foreground;
+			this.horizontalAlignment = horizontalAlignment;
+			this.base = base == null ? null : base.toExternalForm();
+			this.fontRenderContext = fontRenderContext;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(text, font, foreground, horizontalAlignment, base, fontRenderContext);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null || getClass() != obj.getClass())
+				return false;
+			final Key other = (Key) obj;
+			return horizontalAlignment == other.horizontalAlignment
+					&& text.equals(other.text)
+					&& Objects.equals(font, other.font)
+					&& Objects.equals(foreground, other.foreground)
+					&& Objects.equals(base, other.base)
+					&& Objects.equals(fontRenderContext, other.fontRenderContext);
+		}
+	}
+
+	static class Layout {
+		final Document document;
+		private final FontRenderContext fontRenderContext;
+		private volatile float[] preferredSpans;
+
+		Layout(Document document, FontRenderContext fontRenderContext) {
+			this.document = document;
+			this.fontRenderContext = fontRenderContext;
+		}
+
+		/** returns {width, height} or null if not measured yet using given font render context */
+		float[] getPreferredSpans(FontRenderContext fontRenderContext) {
+			return Objects.equals(this.fontRenderContext, fontRenderContext) ? preferredSpans : null;
+		}
+
+		void setPreferredSpans(FontRenderContext fontRenderContext, float width, float height) {
+			if(Objects.equals(this.fontRenderContext, fontRenderContext))
+				preferredSpans = new float[] {width, height};
+		}
+	}
+
+	private final Map<Key, Layout> layouts;
+
+	HTMLLayoutCache(int maximumSize) {
+		layouts = new LinkedHashMap<Key, Layout>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Layout> eldest) {
+				return size() > maximumSize;
+			}
+		};
+	}
+
+	synchronized Layout getLayout(Key key, Supplier<Document> parser) {
+		Layout layout = layouts.get(key);
+		if (layout == null) {
+			layout = new Layout(parser.get(), key.fontRenderContext);
+			layouts.put(key, layout);
+		}
+		return layout;
+	}
+
+	synchronized int size() {
+		return layouts.size();
+	}
+}
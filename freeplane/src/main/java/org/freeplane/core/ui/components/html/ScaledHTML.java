@@ -20,9 +20,11 @@
 package org.freeplane.core.ui.components.html;
 
 import java.awt.Container;
+import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Rectangle;
 import java.awt.Shape;
+import java.awt.font.FontRenderContext;
 import java.io.Reader;
 import java.io.StringReader;
 import java.net.URL;
@@ -47,20 +49,33 @@ public class ScaledHTML extends BasicHTML{
      */
     public static View createHTMLView(JLabel c, String html) {
 	ScaledEditorKit kit = SynchronousScaledEditorKit.create();
-	Document doc = kit.createDefaultDocument(c);
 	Object base = c.getClientProperty(documentBaseKey);
-	if (base instanceof URL) {
-	    ((HTMLDocument)doc).setBase((URL)base);
+	URL baseURL = base instanceof URL ? (URL) base : null;
+	HTMLLayoutCache.Key key = new HTMLLayoutCache.Key(html, c.getFont(), c.getForeground(), c.getHorizontalAlignment(),
+		baseURL, getFontRenderContext(c));
+	HTMLLayoutCache.Layout layout = HTMLLayoutCache.INSTANCE.getLayout(key, () -> parse(kit, c, baseURL, html));
+	ViewFactory f = kit.getViewFactory();
+	View hview = f.create(layout.document.getDefaultRootElement());
+	View v = new Renderer(c, f, hview, layout);
+	return v;
+    }
+
+    private static FontRenderContext getFontRenderContext(JComponent c) {
+	Font font = c.getFont();
+	return font != null ? c.getFontMetrics(font).getFontRenderContext() : null;
+    }
+
+    private static Document parse(ScaledEditorKit kit, JLabel c, URL base, String html) {
+	Document doc = kit.createDefaultDocument(c);
+	if (base != null) {
+	    ((HTMLDocument)doc).setBase(base);
 	}
 	Reader r = new StringReader(html);
 	try {
 	    kit.read(r, doc, 0);
 	} catch (Throwable e) {
 	}
-	ViewFactory f = kit.getViewFactory();
-	View hview = f.create(doc.getDefaultRootElement());
-	View v = new Renderer(c, f, hview);
-	return v;
+	return doc;
     }
 
      public static void updateRenderer(JLabel c, String text) {
@@ -101,14 +116,16 @@ public class ScaledHTML extends BasicHTML{
     	private View view;
     	private ViewFactory factory;
     	private JComponent host;
+    	private HTMLLayoutCache.Layout layout;
     	private boolean setSizeRunning;
     	private float initialWidth = NOT_INITIALIZED;
     	private float initialHeight = NOT_INITIALIZED;
 
-		Renderer(JComponent c, ViewFactory f, View v) {
+		Renderer(JComponent c, ViewFactory f, View v, HTMLLayoutCache.Layout layout) {
     		super(null);
     		setSizeRunning = true;
     		host = c;
+    		this.layout = layout;
     		factory = f;
     		view = v;
     		view.setParent(this);
@@ -133,8 +150,17 @@ public class ScaledHTML extends BasicHTML{
 
          private void initialize() {
         	 if(initialWidth == NOT_INITIALIZED) {
-        		 initialWidth = view.getPreferredSpan(X_AXIS);
-        		 initialHeight = view.getPreferredSpan(Y_AXIS);
+        		 final FontRenderContext fontRenderContext = getFontRenderContext(host);
+        		 final float[] preferredSpans = layout.getPreferredSpans(fontRenderContext);
+        		 if(preferredSpans != null) {
+        			 initialWidth = preferredSpans[0];
+        			 initialHeight = preferredSpans[1];
+        		 }
+        		 else {
+        			 initialWidth = view.getPreferredSpan(X_AXIS);
+        			 initialHeight = view.getPreferredSpan(Y_AXIS);
+        			 layout.setPreferredSpans(fontRenderContext, initialWidth, initialHeight);
+        		 }
         		 setSize(initialWidth, initialHeight);
         	 }
          }
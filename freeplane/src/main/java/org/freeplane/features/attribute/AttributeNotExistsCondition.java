@@ -64,6 +64,11 @@ public class AttributeNotExistsCondition extends ASelectableCondition {
 		return true;
 	}
 
+	@Override
+	public boolean dependsOnlyOnMapContent(final NodeModel node) {
+		return true;
+	}
+
 	@Override
 	protected String createDescription() {
 		final String simpleCondition = TextUtils.getText(ConditionFactory.FILTER_DOES_NOT_EXIST);
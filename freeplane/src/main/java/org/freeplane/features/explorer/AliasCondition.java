@@ -42,6 +42,11 @@ public abstract class AliasCondition extends StringConditionAdapter {
 		return !alias.isEmpty() && checkAlias(alias);
 	}
 
+	@Override
+	public boolean dependsOnlyOnMapContent(final NodeModel node) {
+		return true;
+	}
+
 	public String getAlias() {
 		return alias;
 	}
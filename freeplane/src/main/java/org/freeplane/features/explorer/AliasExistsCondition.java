@@ -51,5 +51,10 @@ public class AliasExistsCondition extends ASelectableCondition {
 	public boolean checkNode(NodeModel node) {
 		return !NodeAlias.getAlias(node).isEmpty();
 	}
+
+	@Override
+	public boolean dependsOnlyOnMapContent(final NodeModel node) {
+		return true;
+	}
 	
 }
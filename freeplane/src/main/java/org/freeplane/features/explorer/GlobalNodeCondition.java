@@ -38,6 +38,11 @@ public class GlobalNodeCondition extends ASelectableCondition {
 		return GlobalNodes.isGlobal(node);
 	}
 
+	@Override
+	public boolean dependsOnlyOnMapContent(final NodeModel node) {
+		return true;
+	}
+
 
 	@Override
 	protected String createDescription() {
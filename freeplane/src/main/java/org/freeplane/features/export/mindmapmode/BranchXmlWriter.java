@@ -4,11 +4,23 @@ import org.freeplane.features.map.MapWriter;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.mode.Controller;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.PipedReader;
+import java.io.PipedWriter;
+import java.io.Reader;
 import java.io.Writer;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.stream.StreamSource;
 
 class BranchXmlWriter{
+	private static final int PIPE_SIZE = 64 * 1024;
 	private final List<NodeModel> branches;
 
 	 BranchXmlWriter(List<NodeModel> branches) {
@@ -32,4 +44,50 @@ class BranchXmlWriter{
 			throw new RuntimeException(e);
 		}
 	}
+
+	/**
+	 * Transforms the branch xml while it is written, without keeping the whole xml in memory.
+	 * The xml is written by the calling thread because it reads the map,
+	 * the transformer reads it from a pipe in a separate thread.
+	 */
+	void transform(Transformer transformer, Result result, MapWriter.Mode mode) throws TransformerException {
+		final PipedReader reader = new PipedReader(PIPE_SIZE);
+		final FutureTask<Void> transformation = new FutureTask<>(() -> {
+			try (Reader readerToClose = reader) {
+				transformer.transform(new StreamSource(reader), result);
+			}
+			return null;
+		});
+		RuntimeException writingException = null;
+		try (Writer writer = new BufferedWriter(new PipedWriter(reader), PIPE_SIZE)) {
+			final Thread transformationThread = new Thread(transformation, "XSLT Transformation");
+			transformationThread.setDaemon(true);
+			transformationThread.start();
+			writeXml(writer, mode);
+		}
+		catch (IOException e) {
+			writingException = new RuntimeException(e);
+		}
+		catch (RuntimeException e) {
+			writingException = e;
+		}
+		try {
+			transformation.get();
+		}
+		catch (InterruptedException e) {
+			transformation.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new TransformerException(e);
+		}
+		catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (writingException != null)
+				cause.addSuppressed(writingException);
+			if (cause instanceof TransformerException)
+				throw (TransformerException) cause;
+			throw new TransformerException(cause);
+		}
+		if (writingException != null)
+			throw writingException;
+	}
 }
@@ -46,6 +46,7 @@ import org.freeplane.features.map.IMapSelection.NodePosition;
 import org.freeplane.features.map.MapModel;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.mode.Controller;
+import org.freeplane.features.ui.MapImage;
 
 /**
  * @author foltin
@@ -74,11 +75,9 @@ public class ExportToImage implements IExportEngine {
 	}
 
 	public void export(MapModel map, final Dimension slideSize, NodeModel placedNode, NodePosition placedNodePosition, File toFile) {
-		RenderedImage image = null;
-		try {
-			image = placedNode != null ? new ImageCreator(getImageResolutionDPI()).createBufferedImage(map, slideSize, placedNode, placedNodePosition) : new ImageCreator(getImageResolutionDPI()).createBufferedImage(map);
+		try (MapImage image = placedNode != null ? new ImageCreator(getImageResolutionDPI()).createBufferedImage(map, slideSize, placedNode, placedNodePosition) : new ImageCreator(getImageResolutionDPI()).createBufferedImage(map)) {
 			if (image != null) {
-				exportToImage(image, toFile);
+				exportToImage(image.getImage(), toFile);
 			}
 		}
 		catch (final OutOfMemoryError ex) {
@@ -102,7 +101,7 @@ public class ExportToImage implements IExportEngine {
 				try ( final FileOutputStream outFile = new FileOutputStream(chosenFile);
 		              final ImageOutputStream stream = ImageIO.createImageOutputStream(outFile);
 				){
-					writer.setOutput(ImageIO.createImageOutputStream(outFile));
+					writer.setOutput(stream);
 					writer.write(metadata, new IIOImage(image, null, metadata), writeParam);
 					break;
 				}
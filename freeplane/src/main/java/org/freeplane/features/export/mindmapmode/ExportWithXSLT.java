@@ -30,6 +30,7 @@ import org.freeplane.features.map.MapModel;
 import org.freeplane.features.map.MapWriter.Mode;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.mode.Controller;
+import org.freeplane.features.ui.MapImage;
 import org.freeplane.features.url.UrlManager;
 
 import javax.imageio.ImageIO;
@@ -37,8 +38,6 @@ import javax.swing.*;
 import javax.swing.filechooser.FileFilter;
 import javax.xml.transform.*;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.transform.stream.StreamSource;
-import java.awt.image.RenderedImage;
 import java.io.*;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -139,17 +138,18 @@ public class ExportWithXSLT implements IExportEngine {
 		if (Controller.getCurrentController().getMapViewManager().getMapViewComponent() == null) {
 			return false;
 		}
-		final RenderedImage image = new ImageCreator(Math.round(UITools.FONT_SCALE_FACTOR * 72)).createBufferedImage(map);
-		if(image == null){
-			return false;
-		}
-		try (final FileOutputStream out = new FileOutputStream(directoryName + File.separator + "image.png");){
-			ImageIO.write(image, "png", out);
-			return true;
-		}
-		catch (final IOException e1) {
-			LogUtils.severe(e1);
-			return false;
+		try (final MapImage image = new ImageCreator(Math.round(UITools.FONT_SCALE_FACTOR * 72)).createBufferedImage(map)) {
+			if(image == null){
+				return false;
+			}
+			try (final FileOutputStream out = new FileOutputStream(directoryName + File.separator + "image.png");){
+				ImageIO.write(image.getImage(), "png", out);
+				return true;
+			}
+			catch (final IOException e1) {
+				LogUtils.severe(e1);
+				return false;
+			}
 		}
 	}
 
@@ -164,12 +164,6 @@ public class ExportWithXSLT implements IExportEngine {
 		return areaCode;
 	}
 
-	private String getMapXml(List<NodeModel> nodes, final Mode mode) throws IOException {
-		final StringWriter writer = new StringWriter();
-		new BranchXmlWriter(nodes).writeXml(writer, mode);
-		return writer.getBuffer().toString();
-	}
-
 	String getProperty(final String key) {
 		final String property = getProperty(key, null);
 		if (property == null)
@@ -259,19 +253,15 @@ public class ExportWithXSLT implements IExportEngine {
 	private boolean transformMapWithXslt(List<NodeModel> nodes, final String xsltFileName, final File saveFile, final String areaCode,
 										 final Mode mode, String[] parameters) throws IOException,
             TransformerFactoryConfigurationError {
-	    final String map = getMapXml(nodes, mode);
-		final StringReader reader = new StringReader(map);
 		ResourceController resourceController = ResourceController.getResourceController();
 		final URL xsltUrl = resourceController.getResource(xsltFileName);
 		if (xsltUrl == null) {
 			LogUtils.severe("Can't find " + xsltFileName + " as resource.");
 			throw new IllegalArgumentException("Can't find " + xsltFileName + " as resource.");
 		}
-		try (InputStream xsltFile = new BufferedInputStream(xsltUrl.openStream())){
-            final Source xsltSource = new StreamSource(xsltFile);
+		try {
             final Result result = new StreamResult(saveFile);
-			final TransformerFactory transFact = TransformerFactory.newInstance();
-			final Transformer trans = transFact.newTransformer(xsltSource);
+			final Transformer trans = XsltTemplatesCache.INSTANCE.getTemplates(xsltUrl).newTransformer();
 			trans.setParameter("file_ref", saveFile.getAbsoluteFile().toURI().toString());
 			final String fileName = saveFile.getName();
 			final String fileNameEncoded = toRelativeUri(fileName);
@@ -291,7 +281,7 @@ public class ExportWithXSLT implements IExportEngine {
 
 			}
 			trans.setParameter("propertyList", sb.toString());
-			trans.transform(new StreamSource(reader), result);
+			new BranchXmlWriter(nodes).transform(trans, result, mode);
 		}
 		catch (final Exception e) {
 			LogUtils.warn(e);
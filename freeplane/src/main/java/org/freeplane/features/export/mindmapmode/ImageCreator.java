@@ -20,12 +20,12 @@
 package org.freeplane.features.export.mindmapmode;
 
 import java.awt.Dimension;
-import java.awt.image.RenderedImage;
 
 import org.freeplane.features.map.IMapSelection.NodePosition;
 import org.freeplane.features.map.MapModel;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.mode.Controller;
+import org.freeplane.features.ui.MapImage;
 
 /**
  * @author foltin
@@ -38,7 +38,7 @@ class ImageCreator{
 	    this.imageResolutionInDpi = imageResolutionInDpi;
     }
 
-	public RenderedImage createBufferedImage(MapModel map) {
+	public MapImage createBufferedImage(MapModel map) {
 		final Controller controller = Controller.getCurrentController();
 		if(! map.equals(controller.getMap())) {
 			return null;
@@ -46,7 +46,7 @@ class ImageCreator{
         return controller.getMapViewManager().createImage(imageResolutionInDpi);
 	}
 
-	public RenderedImage createBufferedImage(MapModel map, final Dimension slideSize, NodeModel placedNode, NodePosition placedNodePosition) {
+	public MapImage createBufferedImage(MapModel map, final Dimension slideSize, NodeModel placedNode, NodePosition placedNodePosition) {
 		final Controller controller = Controller.getCurrentController();
 		if(! map.equals(controller.getMap())) {
 			return null;
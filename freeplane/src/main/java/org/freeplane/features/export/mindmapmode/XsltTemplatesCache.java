@@ -0,0 +1,57 @@
+package org.freeplane.features.export.mindmapmode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+
+/**
+ * Keeps compiled style sheets of exports,
+ * so that repeated exports compile each style sheet only once until its file is modified.
+ */
+class XsltTemplatesCache {
+	static final XsltTemplatesCache INSTANCE = new XsltTemplatesCache();
+
+	private static class CachedTemplates {
+		final long lastModified;
+		final Templates templates;
+
+		CachedTemplates(long lastModified, Templates templates) {
+			this.lastModified = lastModified;
+			this.templates = templates;
+		}
+	}
+
+	private final Map<String, CachedTemplates> templates = new HashMap<>();
+
+	XsltTemplatesCache() {
+	}
+
+	synchronized Templates getTemplates(URL xsltUrl) throws IOException, TransformerConfigurationException {
+		final String key = xsltUrl.toExternalForm();
+		final URLConnection connection = xsltUrl.openConnection();
+		final long lastModified = connection.getLastModified();
+		final CachedTemplates cachedTemplates = templates.get(key);
+		if (cachedTemplates != null && cachedTemplates.lastModified == lastModified) {
+			connection.getInputStream().close();
+			return cachedTemplates.templates;
+		}
+		try (InputStream xsltStream = connection.getInputStream()) {
+			final TransformerFactory transFact = TransformerFactory.newInstance();
+			final Templates newTemplates = transFact.newTemplates(new StreamSource(xsltStream, key));
+			templates.put(key, new CachedTemplates(lastModified, newTemplates));
+			return newTemplates;
+		}
+	}
+
+	synchronized int size() {
+		return templates.size();
+	}
+}
@@ -0,0 +1,151 @@
+package org.freeplane.features.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.features.filter.condition.ICondition;
+import org.freeplane.features.map.NodeModel;
+
+/**
+ * Checks a condition for all nodes of a branch using a fork join pool
+ * before the filter results are calculated in the usual depth first order.
+ *
+ * Nodes for which the condition can not be checked concurrently, e.g. nodes containing formulas,
+ * remain unchecked and are checked by the calling thread when the filter reaches them.
+ * Whether a node can be checked concurrently is decided by the calling thread.
+ */
+public class ConcurrentConditionChecker {
+	static final String PARALLEL_FILTER_EVALUATION_PROPERTY = "parallel_filter_evaluation";
+	static final int MINIMAL_NODE_COUNT = 1000;
+	private static final int BATCH_SIZE = 256;
+
+	private static final byte UNCHECKED = 0;
+	private static final byte SATISFIED = 1;
+	private static final byte NOT_SATISFIED = 2;
+	private static final ThreadLocal<Boolean> checksConcurrently = new ThreadLocal<>();
+
+	/**
+	 * Unlike the workers of the common pool, which have no permissions under a security manager,
+	 * the workers of this pool get the access control context of the thread starting the first filter.
+	 */
+	private static class PoolHolder {
+		static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+				new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+			@Override
+			public ForkJoinWorkerThread newThread(final ForkJoinPool pool) {
+				final ForkJoinWorkerThread thread = new ForkJoinWorkerThread(pool) {};
+				thread.setName("filter condition checker " + thread.getPoolIndex());
+				thread.setDaemon(true);
+				return thread;
+			}
+		}, null, false);
+	}
+
+	private final ICondition condition;
+	private final NodeModel[] nodes;
+	private final byte[] results;
+	private int nextNodeIndex;
+
+	static ConcurrentConditionChecker checkConcurrently(final ICondition condition, final NodeModel start, final boolean includesStart) {
+		if (condition == null || Runtime.getRuntime().availableProcessors() <= 1
+				|| ! ResourceController.getResourceController().getBooleanProperty(PARALLEL_FILTER_EVALUATION_PROPERTY))
+			return null;
+		return checkConcurrently(condition, start, includesStart, PoolHolder.POOL, MINIMAL_NODE_COUNT);
+	}
+
+	static ConcurrentConditionChecker checkConcurrently(final ICondition condition, final NodeModel start, final boolean includesStart,
+	                                                    final ForkJoinPool pool, final int minimalNodeCount) {
+		final List<NodeModel> nodeList = new ArrayList<>();
+		if (includesStart)
+			nodeList.add(start);
+		addDescendants(start, nodeList);
+		if (nodeList.size() < minimalNodeCount)
+			return null;
+		final ConcurrentConditionChecker checker = new ConcurrentConditionChecker(condition, nodeList.toArray(new NodeModel[nodeList.size()]));
+		checker.checkConcurrentlyCheckableNodes(pool);
+		return checker;
+	}
+
+	private static void addDescendants(final NodeModel node, final List<NodeModel> nodeList) {
+		for (final NodeModel child : node.getChildren()) {
+			nodeList.add(child);
+			addDescendants(child, nodeList);
+		}
+	}
+
+	private ConcurrentConditionChecker(final ICondition condition, final NodeModel[] nodes) {
+		this.condition = condition;
+		this.nodes = nodes;
+		this.results = new byte[nodes.length];
+		this.nextNodeIndex = 0;
+	}
+
+	private void checkConcurrentlyCheckableNodes(final ForkJoinPool pool) {
+		final int[] checkableNodeIndices = new int[nodes.length];
+		int checkableNodeCount = 0;
+		for (int i = 0; i < nodes.length; i++) {
+			if (condition.canBeCheckedConcurrently(nodes[i]))
+				checkableNodeIndices[checkableNodeCount++] = i;
+		}
+		if (checkableNodeCount > 0)
+			pool.invoke(new CheckAction(checkableNodeIndices, 0, checkableNodeCount));
+	}
+
+	@SuppressWarnings("serial")
+	private class CheckAction extends RecursiveAction {
+		private final int[] nodeIndices;
+		private final int from;
+		private final int to;
+
+		CheckAction(final int[] nodeIndices, final int from, final int to) {
+			this.nodeIndices = nodeIndices;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= BATCH_SIZE) {
+				checksConcurrently.set(Boolean.TRUE);
+				try {
+					for (int i = from; i < to; i++) {
+						final int nodeIndex = nodeIndices[i];
+						results[nodeIndex] = condition.checkNode(nodes[nodeIndex]) ? SATISFIED : NOT_SATISFIED;
+					}
+				}
+				finally {
+					checksConcurrently.remove();
+				}
+			}
+			else {
+				final int middle = (from + to) >>> 1;
+				invokeAll(new CheckAction(nodeIndices, from, middle), new CheckAction(nodeIndices, middle, to));
+			}
+		}
+	}
+
+	/**
+	 * Returns true while the current thread checks nodes accepted by {@link ICondition#canBeCheckedConcurrently(NodeModel)},
+	 * conditions must not call code which is not thread safe like content transformers then.
+	 */
+	public static boolean isCheckingConcurrently() {
+		return checksConcurrently.get() != null;
+	}
+
+	/**
+	 * Returns the condition result for nodes requested in the order they were collected,
+	 * nodes which were not checked concurrently are checked by the calling thread.
+	 */
+	boolean checkNode(final NodeModel node) {
+		if (nextNodeIndex < nodes.length && nodes[nextNodeIndex] == node) {
+			final byte result = results[nextNodeIndex++];
+			if (result != UNCHECKED)
+				return result == SATISFIED;
+		}
+		return condition.checkNode(node);
+	}
+}
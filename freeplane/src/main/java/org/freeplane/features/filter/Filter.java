@@ -19,8 +19,6 @@
  */
 package org.freeplane.features.filter;
 
-import java.util.WeakHashMap;
-
 import javax.swing.Icon;
 
 import org.freeplane.core.extension.IExtension;
@@ -42,15 +40,6 @@ public class Filter implements IExtension {
 		return new Filter(null, false, resourceController.getBooleanProperty("filter.showAncestors"), resourceController.getBooleanProperty("filter.showDescendants"), null);
 	}
 
-	static class FilterInfoAccessor {
-	    private final WeakHashMap<NodeModel, FilterInfo> filterInfos = new WeakHashMap<>();
-
-	    FilterInfo getFilterInfo(NodeModel node) {
-	        return filterInfos.computeIfAbsent(node, x -> new FilterInfo());
-	    }
-
-	}
-
 	static public Filter createFilter(final ICondition condition, final boolean areAncestorsShown,
             final boolean areDescendantsShown, Filter baseFilter) {
 		return new Filter(condition, false, areAncestorsShown, areDescendantsShown, baseFilter);
@@ -59,7 +48,8 @@ public class Filter implements IExtension {
 	final private ICondition condition;
 	final int options;
 
-	private FilterInfoAccessor accessor;
+	private FilterInfoStore filterInfos;
+	private ConcurrentConditionChecker concurrentConditionChecker;
     private final boolean hidesMatchingNodes;
     private final Filter baseFilter;
 
@@ -68,7 +58,7 @@ public class Filter implements IExtension {
 		super();
 		this.condition = condition;
         this.hidesMatchingNodes = hidesMatchingNodes;
-		this.accessor = new FilterInfoAccessor();
+		this.filterInfos = new FilterInfoStore();
 
 		int options = FilterInfo.FILTER_SHOW_AS_MATCHED;
 		if (areAncestorsShown) {
@@ -82,7 +72,7 @@ public class Filter implements IExtension {
 	}
 
 	void addFilterResult(final NodeModel node, final int flag) {
-		getFilterInfo(node).add(flag);
+		filterInfos.add(node, flag);
 	}
 
 	protected boolean appliesToVisibleNodesOnly() {
@@ -104,36 +94,59 @@ public class Filter implements IExtension {
 	}
 
 	public void calculateFilterResults(final MapModel map) {
-	    this.accessor = new FilterInfoAccessor();
+	    this.filterInfos = new FilterInfoStore();
 		final NodeModel root = map.getRootNode();
 		resetFilter(root);
 		checkNode(root);
-		if (filterChildren(root, false, false)) {
-			addFilterResult(root, FilterInfo.FILTER_SHOW_AS_ANCESTOR);
+		concurrentConditionChecker = ConcurrentConditionChecker.checkConcurrently(condition, root, false);
+		try {
+			if (filterChildren(root, false, false)) {
+				addFilterResult(root, FilterInfo.FILTER_SHOW_AS_ANCESTOR);
+			}
+		}
+		finally {
+			concurrentConditionChecker = null;
 		}
 	}
 
 	public void calculateFilterResults(final NodeModel root) {
-	    this.accessor = new FilterInfoAccessor();
-	    applyFilter(root, false, false, false);
+	    this.filterInfos = new FilterInfoStore();
+	    concurrentConditionChecker = ConcurrentConditionChecker.checkConcurrently(condition, root, true);
+	    try {
+	        applyFilter(root, false, false, false);
+	    }
+	    finally {
+	        concurrentConditionChecker = null;
+	    }
 	}
 
-	private boolean applyFilter(final NodeModel node,
-	                            final boolean hasMatchingAncestor, final boolean hasHiddenAncestor,
-	                            boolean hasMatchingDescendant) {
-		final boolean conditionSatisfied =  (condition == null || condition.checkNode(node));
-		final boolean matchesCombinedFilter;
+	private boolean checkCondition(final NodeModel node) {
+		if (condition == null)
+			return true;
+		if (concurrentConditionChecker != null)
+			return concurrentConditionChecker.checkNode(node);
+		return condition.checkNode(node);
+	}
+
+	private boolean matchesCombinedFilter(final NodeModel node) {
+		final boolean conditionSatisfied = checkCondition(node);
 		if(appliesToVisibleNodesOnly()) {
-		    FilterInfo filterInfo = baseFilter.getFilterInfo(node);
-            final boolean alreadyMatched = filterInfo.isMatched();
+		    final int filterInfo = baseFilter.filterInfos.getInfo(node);
+            final boolean alreadyMatched = FilterInfo.isMatched(filterInfo);
 		    if(hidesMatchingNodes)
-		        matchesCombinedFilter = conditionSatisfied || alreadyMatched;
+		        return conditionSatisfied || alreadyMatched;
 		    else
-		        matchesCombinedFilter = conditionSatisfied && (alreadyMatched || filterInfo.isNotChecked());
+		        return conditionSatisfied && (alreadyMatched || FilterInfo.isNotChecked(filterInfo));
 		}
 		else {
-		    matchesCombinedFilter = conditionSatisfied;
+		    return conditionSatisfied;
 		}
+	}
+
+	private boolean applyFilter(final NodeModel node,
+	                            final boolean hasMatchingAncestor, final boolean hasHiddenAncestor,
+	                            boolean hasMatchingDescendant) {
+		final boolean matchesCombinedFilter = matchesCombinedFilter(node);
 		resetFilter(node);
 		if (hasMatchingAncestor) {
 			addFilterResult(node, FilterInfo.FILTER_SHOW_AS_DESCENDANT);
@@ -155,6 +168,123 @@ public class Filter implements IExtension {
 		return hasMatchingDescendant;
 	}
 
+	/**
+	 * Re-evaluates the condition for a changed node and updates
+	 * the ancestor flags of its ancestors and the descendant flags of its descendants.
+	 *
+	 * @return true if any filter result has changed
+	 */
+	boolean updateChangedNode(final NodeModel node) {
+		if (condition == null || node.isRoot()) {
+			return false;
+		}
+		final FilterInfo filterInfo = getFilterInfo(node);
+		if (filterInfo.isNotChecked()) {
+			updateInsertedNode(node);
+			return true;
+		}
+		final boolean matchesCombinedFilter = matchesCombinedFilter(node);
+		if (filterInfo.isMatched() == matchesCombinedFilter) {
+			return false;
+		}
+		if (matchesCombinedFilter) {
+			filterInfo.remove(FilterInfo.FILTER_SHOW_AS_HIDDEN);
+			addFilterResult(node, FilterInfo.FILTER_SHOW_AS_MATCHED);
+		}
+		else {
+			filterInfo.remove(FilterInfo.FILTER_SHOW_AS_MATCHED);
+			addFilterResult(node, FilterInfo.FILTER_SHOW_AS_HIDDEN);
+		}
+		if (!filterInfo.isDescendant()) {
+			updateDescendantFlags(node, matchesCombinedFilter);
+		}
+		updateAncestorFlags(node.getParentNode());
+		return true;
+	}
+
+	/**
+	 * Evaluates the condition for an inserted or moved branch
+	 * and updates the ancestor flags of its new ancestors.
+	 *
+	 * @return true if the branch is not visible or any filter result of its ancestors has changed
+	 */
+	boolean updateInsertedNode(final NodeModel node) {
+		if (condition == null) {
+			return false;
+		}
+		final NodeModel parent = node.getParentNode();
+		applyFilter(node, hasMatchingAncestorOrSelf(parent), false, false);
+		final boolean ancestorsChanged = updateAncestorFlags(parent);
+		return ancestorsChanged || ! isVisible(node);
+	}
+
+	/**
+	 * Updates the ancestor flags after a branch has been removed from the given parent.
+	 *
+	 * @return true if any filter result has changed
+	 */
+	boolean updateRemovedNode(final NodeModel oldParent) {
+		if (condition == null) {
+			return false;
+		}
+		return updateAncestorFlags(oldParent);
+	}
+
+	private boolean hasMatchingAncestorOrSelf(final NodeModel node) {
+		if (node.isRoot()) {
+			return false;
+		}
+		final FilterInfo filterInfo = getFilterInfo(node);
+		return filterInfo.isMatched() || filterInfo.isDescendant();
+	}
+
+	private boolean updateAncestorFlags(final NodeModel firstAncestor) {
+		boolean changed = false;
+		for (NodeModel ancestor = firstAncestor; ancestor != null; ancestor = ancestor.getParentNode()) {
+			final boolean hasMatchingDescendant = hasMatchingChildOrDescendant(ancestor);
+			final FilterInfo filterInfo = getFilterInfo(ancestor);
+			if (filterInfo.isAncestor() == hasMatchingDescendant) {
+				break;
+			}
+			changed = true;
+			if (hasMatchingDescendant) {
+				addFilterResult(ancestor, FilterInfo.FILTER_SHOW_AS_ANCESTOR);
+			}
+			else {
+				filterInfo.remove(FilterInfo.FILTER_SHOW_AS_ANCESTOR);
+			}
+		}
+		return changed;
+	}
+
+	private boolean hasMatchingChildOrDescendant(final NodeModel node) {
+		for (final NodeModel child : node.getChildren()) {
+			final int filterInfo = filterInfos.getInfo(child);
+			if (FilterInfo.isMatched(filterInfo) || FilterInfo.isAncestor(filterInfo)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void updateDescendantFlags(final NodeModel node, final boolean hasMatchingAncestor) {
+		for (final NodeModel child : node.getChildren()) {
+			final FilterInfo filterInfo = getFilterInfo(child);
+			if (filterInfo.isDescendant() == hasMatchingAncestor) {
+				continue;
+			}
+			if (hasMatchingAncestor) {
+				addFilterResult(child, FilterInfo.FILTER_SHOW_AS_DESCENDANT);
+			}
+			else {
+				filterInfo.remove(FilterInfo.FILTER_SHOW_AS_DESCENDANT);
+			}
+			if (!filterInfo.isMatched()) {
+				updateDescendantFlags(child, hasMatchingAncestor);
+			}
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see freeplane.controller.filter.Filter#areAncestorsShown()
@@ -205,7 +335,7 @@ public class Filter implements IExtension {
 
 
     public void useFilterResultsFrom(Filter oldFilter) {
-        accessor = oldFilter.accessor;
+        filterInfos = oldFilter.filterInfos;
     }
     
 	/*
@@ -220,15 +350,15 @@ public class Filter implements IExtension {
 		if (condition == null || node.isRoot()) {
 			return true;
 		}
-		FilterInfo filterInfo = getFilterInfo(node);
-        return filterInfo.isNotChecked() || filterInfo.matches(this.options) != hidesMatchingNodes;
+		final int filterInfo = filterInfos.getInfo(node);
+        return FilterInfo.isNotChecked(filterInfo) || FilterInfo.matches(filterInfo, this.options) != hidesMatchingNodes;
 	}
 
 	private void resetFilter(final NodeModel node) {
-		getFilterInfo(node).reset();
+		filterInfos.reset(node);
 	}
 
 	public FilterInfo getFilterInfo(final NodeModel node) {
-		return accessor.getFilterInfo(node);
+		return filterInfos.getFilterInfo(node);
 	}
 }
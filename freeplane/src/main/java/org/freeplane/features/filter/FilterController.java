@@ -84,6 +84,7 @@ import org.freeplane.features.highlight.NodeHighlighter;
 import org.freeplane.features.map.CloneOfSelectedViewCondition;
 import org.freeplane.features.map.IMapSelection;
 import org.freeplane.features.map.MapChangeEvent;
+import org.freeplane.features.map.MapController;
 import org.freeplane.features.map.MapController.Direction;
 import org.freeplane.features.map.MapModel;
 import org.freeplane.features.map.MapNavigationUtils;
@@ -209,6 +210,13 @@ public class FilterController implements IExtension, IMapViewChangeListener {
             map.putExtension(Filter.class, filter);
     }
 
+	/** Keeps filters of maps edited by given map controller up to date. */
+	public void updateFiltersOnChanges(final MapController mapController) {
+		final IncrementalFilterUpdater updater = new IncrementalFilterUpdater(this);
+		mapController.addMapChangeListener(updater);
+		mapController.addNodeChangeListener(updater);
+	}
+
 	public static void install() {
 		final Controller controller = Controller.getCurrentController();
 		final FilterController extension = new FilterController();
@@ -454,11 +462,11 @@ public class FilterController implements IExtension, IMapViewChangeListener {
             }
         }
     }
-    private void refreshMap(Object source, MapModel map) {
+    void refreshMap(Object source, MapModel map) {
         Controller.getCurrentModeController().getMapController().fireMapChanged(new MapChangeEvent(source, map, Filter.class, null, this, false));
     }
 
-    private void selectVisibleNode(Filter filter) {
+    void selectVisibleNode(Filter filter) {
         final IMapSelection mapSelection = Controller.getCurrentController().getSelection();
         final Collection<NodeModel> selectedNodes = mapSelection.getSelection();
         final NodeModel[] array = new NodeModel[selectedNodes.size()];
@@ -41,34 +41,74 @@ public class FilterInfo {
         this.info = info;
     }
 
-	void add(final int flag) {
+	int getInfo() {
+		return info;
+	}
+
+	void setInfo(final int info) {
+		this.info = info;
+	}
+
+	static int add(final int info, final int flag) {
 		if ((flag & (FilterInfo.FILTER_SHOW_AS_MATCHED | FilterInfo.FILTER_SHOW_AS_HIDDEN)) != 0) {
-			info &= ~FilterInfo.FILTER_SHOW_AS_INITIAL_VALUE;
+			return (info & ~FilterInfo.FILTER_SHOW_AS_INITIAL_VALUE) | flag;
 		}
-		info |= flag;
+		return info | flag;
+	}
+
+	static boolean isAncestor(final int info) {
+		return (info & FilterInfo.FILTER_SHOW_AS_ANCESTOR) != 0;
+	}
+
+	static boolean isMatched(final int info) {
+		return (info & FilterInfo.FILTER_SHOW_AS_MATCHED) != 0;
+	}
+
+	static boolean isDescendant(final int info) {
+		return (info & FilterInfo.FILTER_SHOW_AS_DESCENDANT) != 0;
+	}
+
+	static boolean matches(final int info, final int filterOptions) {
+		return (filterOptions & info) != 0;
+	}
+
+	static boolean isNotChecked(final int info) {
+		return matches(info, FILTER_SHOW_AS_INITIAL_VALUE);
+	}
+
+	void add(final int flag) {
+		setInfo(add(getInfo(), flag));
 	}
 
 	/**
 	 */
 	public boolean isAncestor() {
-		return (info & FilterInfo.FILTER_SHOW_AS_ANCESTOR) != 0;
+		return isAncestor(getInfo());
 	}
 
 	/**
 	 */
 	public boolean isMatched() {
-		return (info & FilterInfo.FILTER_SHOW_AS_MATCHED) != 0;
+		return isMatched(getInfo());
+	}
+
+	boolean isDescendant() {
+		return isDescendant(getInfo());
+	}
+
+	void remove(final int flag) {
+		setInfo(getInfo() & ~flag);
 	}
 
 	public void reset() {
-		info = FilterInfo.FILTER_SHOW_AS_INITIAL_VALUE;
+		setInfo(FilterInfo.FILTER_SHOW_AS_INITIAL_VALUE);
 	}
 
 	boolean matches(final int filterOptions) {
-		return (filterOptions & info) != 0;
+		return matches(getInfo(), filterOptions);
 	}
 
     boolean isNotChecked() {
-        return matches(FILTER_SHOW_AS_INITIAL_VALUE);
+        return isNotChecked(getInfo());
     }
 }
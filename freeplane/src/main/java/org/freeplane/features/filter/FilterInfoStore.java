@@ -0,0 +1,78 @@
+package org.freeplane.features.filter;
+
+import java.util.Arrays;
+import java.util.WeakHashMap;
+
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeModel;
+
+/**
+ * Keeps filter flags of all nodes of a map in a byte array indexed by node ordinals.
+ *
+ * Flags are stored inverted with respect to the initial value,
+ * so that the array elements of nodes which have never been checked are zero.
+ */
+class FilterInfoStore {
+	private final WeakHashMap<MapModel, byte[]> infosByMap = new WeakHashMap<>();
+
+	int getInfo(final NodeModel node) {
+		final MapModel map = node.getMap();
+		if (map == null)
+			return FilterInfo.FILTER_SHOW_AS_INITIAL_VALUE;
+		final byte[] infos = infosByMap.get(map);
+		final int ordinal = node.getOrdinal();
+		if (infos == null || ordinal >= infos.length)
+			return FilterInfo.FILTER_SHOW_AS_INITIAL_VALUE;
+		return infos[ordinal] ^ FilterInfo.FILTER_SHOW_AS_INITIAL_VALUE;
+	}
+
+	void setInfo(final NodeModel node, final int info) {
+		final MapModel map = node.getMap();
+		if (map == null)
+			return;
+		final int ordinal = node.getOrdinal();
+		byte[] infos = infosByMap.get(map);
+		if (infos == null || ordinal >= infos.length) {
+			infos = grow(infos, Math.max(ordinal + 1, map.getNodeOrdinalCount()));
+			infosByMap.put(map, infos);
+		}
+		infos[ordinal] = (byte) (info ^ FilterInfo.FILTER_SHOW_AS_INITIAL_VALUE);
+	}
+
+	private byte[] grow(final byte[] infos, final int minimalLength) {
+		if (infos == null)
+			return new byte[minimalLength];
+		final int newLength = Math.max(minimalLength, infos.length + (infos.length >> 1));
+		return Arrays.copyOf(infos, newLength);
+	}
+
+	void add(final NodeModel node, final int flag) {
+		setInfo(node, FilterInfo.add(getInfo(node), flag));
+	}
+
+	void reset(final NodeModel node) {
+		setInfo(node, FilterInfo.FILTER_SHOW_AS_INITIAL_VALUE);
+	}
+
+	FilterInfo getFilterInfo(final NodeModel node) {
+		return new StoredFilterInfo(node);
+	}
+
+	private class StoredFilterInfo extends FilterInfo {
+		private final NodeModel node;
+
+		StoredFilterInfo(final NodeModel node) {
+			this.node = node;
+		}
+
+		@Override
+		int getInfo() {
+			return FilterInfoStore.this.getInfo(node);
+		}
+
+		@Override
+		void setInfo(final int info) {
+			FilterInfoStore.this.setInfo(node, info);
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package org.freeplane.features.filter;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.features.map.IMapChangeListener;
+import org.freeplane.features.map.IMapSelection;
+import org.freeplane.features.map.INodeChangeListener;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeChangeEvent;
+import org.freeplane.features.map.NodeDeletionEvent;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.map.NodeMoveEvent;
+import org.freeplane.features.mode.Controller;
+
+/**
+ * Updates filter results of changed, inserted, moved and deleted nodes
+ * so that an applied filter stays current while the map is edited.
+ *
+ * Only the changed nodes are checked against the filter condition, flags of their ancestors and descendants
+ * are derived from the stored results. Conditions depending on other nodes are not re-evaluated.
+ */
+class IncrementalFilterUpdater implements IMapChangeListener, INodeChangeListener {
+	static final String UPDATE_FILTER_ON_CHANGES_PROPERTY = "update_filter_on_changes";
+	private final FilterController filterController;
+	private final Set<MapModel> mapsToRefresh = new HashSet<MapModel>();
+
+	IncrementalFilterUpdater(FilterController filterController) {
+		this.filterController = filterController;
+	}
+
+	@Override
+	public void nodeChanged(NodeChangeEvent event) {
+		if (!event.setsDirtyFlag() || !isEnabled()) {
+			return;
+		}
+		final NodeModel node = event.getNode();
+		final MapModel map = node.getMap();
+		boolean changed = false;
+		for (Filter filter : appliedFilters(map)) {
+			changed = filter.updateChangedNode(node) || changed;
+		}
+		if (changed) {
+			refreshLater(map);
+		}
+	}
+
+	@Override
+	public void onNodeInserted(NodeModel parent, NodeModel child, int newIndex) {
+		if (!isEnabled()) {
+			return;
+		}
+		final MapModel map = parent.getMap();
+		boolean changed = false;
+		for (Filter filter : appliedFilters(map)) {
+			changed = filter.updateInsertedNode(child) || changed;
+		}
+		if (changed) {
+			refreshLater(map);
+		}
+	}
+
+	@Override
+	public void onNodeDeleted(NodeDeletionEvent nodeDeletionEvent) {
+		if (!isEnabled()) {
+			return;
+		}
+		final MapModel map = nodeDeletionEvent.parent.getMap();
+		boolean changed = false;
+		for (Filter filter : appliedFilters(map)) {
+			changed = filter.updateRemovedNode(nodeDeletionEvent.parent) || changed;
+		}
+		if (changed) {
+			refreshLater(map);
+		}
+	}
+
+	@Override
+	public void onNodeMoved(NodeMoveEvent nodeMoveEvent) {
+		if (!isEnabled()) {
+			return;
+		}
+		final MapModel map = nodeMoveEvent.newParent.getMap();
+		boolean changed = false;
+		for (Filter filter : appliedFilters(map)) {
+			changed = filter.updateRemovedNode(nodeMoveEvent.oldParent) || changed;
+			changed = filter.updateInsertedNode(nodeMoveEvent.child) || changed;
+		}
+		if (changed) {
+			refreshLater(map);
+		}
+	}
+
+	private boolean isEnabled() {
+		return ResourceController.getResourceController().getBooleanProperty(UPDATE_FILTER_ON_CHANGES_PROPERTY);
+	}
+
+	private Set<Filter> appliedFilters(MapModel map) {
+		final Set<Filter> filters = new HashSet<Filter>(2);
+		final Filter mapFilter = map.getExtension(Filter.class);
+		if (mapFilter != null) {
+			filters.add(mapFilter);
+		}
+		final IMapSelection selection = Controller.getCurrentController().getSelection();
+		if (selection != null && selection.getMap() == map && selection.getFilter() != null) {
+			filters.add(selection.getFilter());
+		}
+		return filters;
+	}
+
+	private void refreshLater(final MapModel map) {
+		if (!mapsToRefresh.add(map)) {
+			return;
+		}
+		Controller.getCurrentController().getViewController().invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				mapsToRefresh.remove(map);
+				filterController.refreshMap(filterController, map);
+				final IMapSelection selection = Controller.getCurrentController().getSelection();
+				if (selection != null && selection.getMap() == map) {
+					filterController.selectVisibleNode(selection.getFilter());
+				}
+			}
+		});
+	}
+}
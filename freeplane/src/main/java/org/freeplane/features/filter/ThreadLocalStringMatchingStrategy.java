@@ -0,0 +1,21 @@
+package org.freeplane.features.filter;
+
+/**
+ * Keeps a separate instance of a stateful strategy for each thread
+ * so that conditions using it can be checked concurrently.
+ */
+class ThreadLocalStringMatchingStrategy implements StringMatchingStrategy {
+
+	private final ThreadLocal<StringMatchingStrategy> strategies = new ThreadLocal<StringMatchingStrategy>() {
+		@Override
+		protected StringMatchingStrategy initialValue() {
+			return new PseudoDamerauLevenshtein();
+		}
+	};
+
+	public boolean matches(final String searchTerm, final String searchText,
+			final boolean subStringMatch) {
+		return strategies.get().matches(searchTerm, searchText, subStringMatch);
+	}
+
+}
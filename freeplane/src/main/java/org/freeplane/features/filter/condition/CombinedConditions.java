@@ -19,6 +19,8 @@
  */
 package org.freeplane.features.filter.condition;
 
+import org.freeplane.features.map.NodeModel;
+
 /**
  * @author Dimitry Polivaev
  */
@@ -55,5 +57,23 @@ abstract class CombinedConditions extends ASelectableCondition implements ICombi
     }
 
     protected abstract ASelectableCondition[] getConditions();
-    
+
+    @Override
+    public boolean canBeCheckedConcurrently(final NodeModel node) {
+        for(ASelectableCondition condition : getConditions()) {
+            if(! condition.canBeCheckedConcurrently(node))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean dependsOnlyOnMapContent(final NodeModel node) {
+        for(ASelectableCondition condition : getConditions()) {
+            if(! condition.dependsOnlyOnMapContent(node))
+                return false;
+        }
+        return true;
+    }
+
 }
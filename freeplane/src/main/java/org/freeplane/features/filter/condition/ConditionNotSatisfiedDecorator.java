@@ -64,6 +64,16 @@ public class ConditionNotSatisfiedDecorator extends ASelectableCondition impleme
 		return !originalCondition.checkNode(node);
 	}
 
+	@Override
+	public boolean canBeCheckedConcurrently(final NodeModel node) {
+		return originalCondition.canBeCheckedConcurrently(node);
+	}
+
+	@Override
+	public boolean dependsOnlyOnMapContent(final NodeModel node) {
+		return originalCondition.dependsOnlyOnMapContent(node);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see
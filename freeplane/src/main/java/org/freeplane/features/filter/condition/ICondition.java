@@ -23,4 +23,22 @@ import org.freeplane.features.map.NodeModel;
 
 public interface ICondition {
 	boolean checkNode(NodeModel node);
+
+	/**
+	 * Returns true if the condition can be checked for the given node outside of the event dispatch thread
+	 * while other nodes are checked by other threads. It is called by the filtering thread.
+	 * Conditions evaluating formulas, scripts or content transformers must keep the default.
+	 */
+	default boolean canBeCheckedConcurrently(NodeModel node) {
+		return false;
+	}
+
+	/**
+	 * Returns true if the result for the given node can change only together with the node's map,
+	 * so that it can be cached until the map fires a change event.
+	 * Conditions depending on scripts, formulas, current time, selection or other maps must keep the default.
+	 */
+	default boolean dependsOnlyOnMapContent(NodeModel node) {
+		return false;
+	}
 }
@@ -42,6 +42,11 @@ public class NoFilteringCondition extends ASelectableCondition {
 		return true;
 	}
 
+	@Override
+	public boolean dependsOnlyOnMapContent(final NodeModel node) {
+		return true;
+	}
+
 	@Override
     protected String createDescription() {
 		if (NoFilteringCondition.description == null) {
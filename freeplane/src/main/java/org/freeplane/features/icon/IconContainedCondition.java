@@ -74,6 +74,11 @@ public class IconContainedCondition extends ASelectableCondition {
 		        || IconContainedCondition.isStateIconContained(node, iconName);
 	}
 
+	@Override
+	public boolean dependsOnlyOnMapContent(final NodeModel node) {
+		return true;
+	}
+
 	private String getIconName() {
 		return iconName;
 	}
@@ -39,6 +39,11 @@ public class IconExistsCondition extends ASelectableCondition {
 		return IconController.getController().getIcons(node).size() > 0;
 	}
 
+	@Override
+	public boolean dependsOnlyOnMapContent(final NodeModel node) {
+		return true;
+	}
+
 
 	@Override
     protected String createDescription() {
@@ -94,6 +94,11 @@ public class PriorityCompareCondition extends CompareConditionAdapter {
 		return false;
 	}
 
+	@Override
+	public boolean dependsOnlyOnMapContent(final NodeModel node) {
+		return true;
+	}
+
 	@Override
 	protected String createDescription() {
 		final String priorityCondition = TextUtils.getText(PriorityConditionController.FILTER_PRIORITY);
@@ -88,6 +88,11 @@ public abstract class ConnectorLabelCondition extends StringConditionAdapter {
 		return false;
 	}
 
+	@Override
+	public boolean dependsOnlyOnMapContent(final NodeModel node) {
+		return true;
+	}
+
 	abstract protected String createDescription();
 
 	protected abstract String getName();
@@ -59,6 +59,11 @@ public abstract class HyperLinkCondition extends StringConditionAdapter {
 		return false;
 	}
 
+	@Override
+	public boolean dependsOnlyOnMapContent(final NodeModel node) {
+		return true;
+	}
+
 	public String getHyperlink() {
 		return hyperlink;
 	}
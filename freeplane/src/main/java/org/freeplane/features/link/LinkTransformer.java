@@ -64,4 +64,11 @@ public class LinkTransformer extends AbstractContentTransformer {
 		else
 			return content;
     }
+
+	@Override
+	public boolean isTransformationCacheable(TextController textController, Object content, NodeModel node,
+			Object transformedExtension) {
+		// local links show the text of their target node
+		return ! (content instanceof URI && content.toString().startsWith("#"));
+	}
 }
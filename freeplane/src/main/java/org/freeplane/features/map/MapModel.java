@@ -52,6 +52,7 @@ public class MapModel {
 	private NodeModel root;
 	private URL url;
 	private NodeChangeAnnouncer nodeChangeAnnouncer;
+	private int nodeOrdinalCount = 0;
 
 	public MapModel(IconRegistry iconRegistry, NodeChangeAnnouncer nodeChangeAnnouncer) {
 		extensionContainer = new ExtensionContainer(new HashMap<Class<? extends IExtension>, IExtension>());
@@ -109,6 +110,14 @@ public class MapModel {
 		}
 	}
 
+	final int createNodeOrdinal() {
+		return nodeOrdinalCount++;
+	}
+
+	public final int getNodeOrdinalCount() {
+		return nodeOrdinalCount;
+	}
+
 	public String generateNodeID(final String proposedID) {
 		if (proposedID != null && !"".equals(proposedID) && getNodeForID(proposedID) == null) {
 			return proposedID;
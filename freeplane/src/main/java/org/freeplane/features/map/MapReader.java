@@ -27,7 +27,9 @@ import java.util.Map;
 import org.freeplane.core.io.IElementDOMHandler;
 import org.freeplane.core.io.ReadManager;
 import org.freeplane.core.io.UnknownElements;
+import org.freeplane.core.io.xml.StreamingTreeXmlReader;
 import org.freeplane.core.io.xml.TreeXmlReader;
+import org.freeplane.core.resources.ResourceController;
 import org.freeplane.features.map.MapWriter.Hint;
 import org.freeplane.features.map.MapWriter.Mode;
 import org.freeplane.n3.nanoxml.XMLElement;
@@ -56,10 +58,12 @@ public class MapReader implements IElementDOMHandler {
 
 		public NodeModel create(final Reader pReader) throws XMLException {
 			final NodeTreeCreator oldNodeTreeCreator = nodeTreeCreator;
-			final TreeXmlReader reader = new TreeXmlReader(readManager);
 			try {
 				nodeTreeCreator = this;
-				reader.load(createdMap, pReader);
+				if (ResourceController.getResourceController().getBooleanProperty(STREAMING_MAP_LOADING_PROPERTY))
+					new StreamingTreeXmlReader(readManager).load(createdMap, pReader);
+				else
+					new TreeXmlReader(readManager).load(createdMap, pReader);
 				final NodeModel node = nodeBuilder.getMapChild();
 				return node;
 			}
@@ -137,6 +141,7 @@ public class MapReader implements IElementDOMHandler {
 		}
 	}
 
+	public static final String STREAMING_MAP_LOADING_PROPERTY = "streaming_map_loading";
 	private final NodeBuilder nodeBuilder;
 	final private ReadManager readManager;
 	private NodeTreeCreator nodeTreeCreator;
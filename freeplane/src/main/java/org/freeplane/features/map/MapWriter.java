@@ -22,6 +22,8 @@ package org.freeplane.features.map;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
 
 import org.freeplane.core.extension.IExtension;
 import org.freeplane.core.io.IAttributeWriter;
@@ -90,11 +92,20 @@ public class MapWriter implements IElementWriter, IAttributeWriter {
 
 	public void writeMapAsXml(final MapModel map, final Writer fileout, final Mode mode, final boolean saveInvisible,
 	                          final boolean forceFormat) throws IOException {
+		writeMapAsXml(map, fileout, mode, saveInvisible, forceFormat, Collections.emptyMap());
+	}
+
+	/** @param hints additional writer hints available to element and attribute writers */
+	public void writeMapAsXml(final MapModel map, final Writer fileout, final Mode mode, final boolean saveInvisible,
+	                          final boolean forceFormat, final Map<?, ?> hints) throws IOException {
 		final TreeXmlWriter xmlWriter = createTreeWriter(fileout);
 		xmlWriter.setHint(Hint.MODE, mode);
 		if (forceFormat) {
 			xmlWriter.setHint(WriterHint.FORCE_FORMATTING);
 		}
+		for (final Map.Entry<?, ?> hint : hints.entrySet()) {
+			xmlWriter.setHint(hint.getKey(), hint.getValue());
+		}
 		final XMLElement xmlMap = new XMLElement("map");
 		setSaveInvisible(saveInvisible);
 		xmlWriter.addElement(map, xmlMap);
@@ -63,6 +63,7 @@ public class NodeModel{
 	public static final String NOTE_TEXT = "note_text";
 	public final static int RIGHT_POSITION = 1;
 	public final static int UNKNOWN_POSITION = 0;
+	private static final int UNDEFINED_ORDINAL = -1;
 	static public final Object UNKNOWN_PROPERTY = new Object();
 	public static final String NODE_ICON = "icon";
 	public static final String NODE_ICON_SIZE = "icon_size";
@@ -75,6 +76,7 @@ public class NodeModel{
 	private int position = NodeModel.UNKNOWN_POSITION;
 	private NodeModel preferredChild;
 	private Collection<INodeView> views = null;
+	private int ordinal = UNDEFINED_ORDINAL;
 
 	private SharedNodeData sharedData;
 	private Clones[] clones;
@@ -277,6 +279,17 @@ public class NodeModel{
 		return map;
 	}
 
+	/**
+	 * Returns a small non negative number unique for the node within its map
+	 * which can be used as an index into arrays holding per node data.
+	 * The number is assigned when it is requested first and changes if the node is moved to another map.
+	 */
+	public int getOrdinal() {
+		if (ordinal == UNDEFINED_ORDINAL)
+			ordinal = map.createNodeOrdinal();
+		return ordinal;
+	}
+
     public int getNodeLevel() {
         return getNodeLevel(true, null);
     }
@@ -503,6 +516,8 @@ public class NodeModel{
 	/**
 	 */
 	public void setMap(final MapModel map) {
+		if (this.map != map)
+			ordinal = UNDEFINED_ORDINAL;
 		this.map = map;
 		for (final NodeModel child : children) {
 			child.setMap(map);
@@ -16,6 +16,7 @@ public class SummaryLevels{
 	public  final int highestSummaryLevel;
 	public  final boolean[] sides;
 	private final NodeModel parentNode;
+	private int[] itemSummaryNodeIndices;
 	
 	public SummaryLevels(NodeModel parentNode) {
 		this(parentNode, TRANSPARENT_FILTER, false);
@@ -101,6 +102,8 @@ public class SummaryLevels{
 
 	public int findSummaryNodeIndex(int index) {
 		final int nodeLevel = summaryLevels[index];
+		if(nodeLevel == 0)
+			return itemSummaryNodeIndices()[index];
 		final boolean leftSide = parentNode.getChildAt(index).isLeft();
 		for (int i = index + 1; i < parentNode.getChildCount(); i++){
 			final int level = summaryLevels[i];
@@ -115,6 +118,35 @@ public class SummaryLevels{
 		return NODE_NOT_FOUND;
 	}
 	
+	/** summary node indices of all items found in one backward pass,
+	 * so that finding them for all children does not take quadratic time */
+	private int[] itemSummaryNodeIndices() {
+		if(itemSummaryNodeIndices == null) {
+			final int childCount = summaryLevels.length;
+			final int[] indices = new int[childCount];
+			int nextLeftSummaryNodeIndex = NODE_NOT_FOUND;
+			int nextRightSummaryNodeIndex = NODE_NOT_FOUND;
+			for (int i = childCount - 1; i >= 0; i--){
+				final NodeModel child = parentNode.getChildAt(i);
+				final boolean isLeft = child.isLeft();
+				indices[i] = isLeft ? nextLeftSummaryNodeIndex : nextRightSummaryNodeIndex;
+				final int level = summaryLevels[i];
+				if(level == 0 && SummaryNode.isFirstGroupNode(child)) {
+					nextLeftSummaryNodeIndex = NODE_NOT_FOUND;
+					nextRightSummaryNodeIndex = NODE_NOT_FOUND;
+				}
+				else if(level > 0) {
+					if(isLeft)
+						nextLeftSummaryNodeIndex = i;
+					else
+						nextRightSummaryNodeIndex = i;
+				}
+			}
+			itemSummaryNodeIndices = indices;
+		}
+		return itemSummaryNodeIndices;
+	}
+
 	public NodeModel findGroupBeginNode(int index) {
 		final int groupBeginNodeIndex = findGroupBeginNodeIndex(index);
 		return parentNode.getChildAt(groupBeginNodeIndex);
@@ -51,7 +51,8 @@ class NoteBuilder implements IElementContentHandler {
 			final Object typeAttribute = attributes.getAttribute(NodeTextBuilder.XML_NODE_XHTML_TYPE_TAG, null);
 			if (NodeTextBuilder.XML_NODE_XHTML_TYPE_NOTE.equals(typeAttribute)) {
 				final NoteModel note = new NoteModel();
-				note.setXml(xmlText);
+				if (! NodeTextBuilder.attachExternalContent((NodeModel) node, attributes, note))
+					note.setXml(xmlText);
 				((NodeModel) node).addExtension((IExtension) note);
 			}
 		}
@@ -55,7 +55,8 @@ class NoteWriter implements IExtensionElementWriter, IAttributeWriter {
 	 */
 	public void writeContent(final ITreeWriter writer, final Object element, final IExtension note) throws IOException {
 		RichTextModel note1 = (RichTextModel) note;
-		if (note1.getXml() != null) {
+		final String xml = note1.getXmlForSaving();
+		if (xml != null) {
         	final XMLElement htmlElement = new XMLElement();
     		htmlElement.setName(NodeTextBuilder.XML_NODE_XHTML_CONTENT_TAG);
         	if(note instanceof NoteModel){
@@ -64,8 +65,10 @@ class NoteWriter implements IExtensionElementWriter, IAttributeWriter {
         	else{
         		htmlElement.setAttribute(NodeTextBuilder.XML_NODE_XHTML_TYPE_TAG, "UNKNOWN");
         	}
-        	final String content = note1.getXml().replace('\0', ' ');
-        	writer.addElement('\n' + content + '\n', htmlElement);
+        	if (! NodeTextBuilder.storeExternalContent(writer, note1, xml, htmlElement)) {
+        		final String content = xml.replace('\0', ' ');
+        		writer.addElement('\n' + content + '\n', htmlElement);
+        	}
         }
 		return;
 	}
@@ -137,6 +137,16 @@ public class ConditionalStyleModel implements IExtension, Iterable<ConditionalSt
 		}
 	}
 	
+	/** true if the styles of the node can change only together with its map */
+	boolean dependsOnlyOnMapContent(NodeModel node){
+		for(Item item : styles){
+			final ASelectableCondition condition = item.getCondition();
+			if(item.isActive() && condition != null && ! condition.dependsOnlyOnMapContent(node))
+				return false;
+		}
+		return true;
+	}
+
 	void addCondition(boolean isActive, ASelectableCondition condition, IStyle style, boolean isLast){
 		styles.add(new Item(isActive, condition, style, isLast));
 		if(table == null){
@@ -20,11 +20,14 @@
 package org.freeplane.features.styles;
 
 import java.awt.Component;
-import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 import org.freeplane.core.extension.IExtension;
 import org.freeplane.core.io.IAttributeHandler;
@@ -64,8 +67,13 @@ public class LogicalStyleController implements IExtension {
 // 	final private ModeController modeController;
 
 	private static final int STYLE_TOOLTIP = 0;
-	private WeakReference<NodeModel> cachedNode;
-	private Collection<IStyle>  cachedStyle;
+	private static class StyleResolution {
+		int depth;
+		boolean usesConditionalStyles;
+		boolean usesVolatileConditions;
+	}
+	private final Map<MapModel, ResolvedStyleCache> resolvedStyles = new WeakHashMap<>();
+	private final ThreadLocal<StyleResolution> styleResolution = ThreadLocal.withInitial(StyleResolution::new);
 	final private CombinedPropertyChain<Collection<IStyle>, NodeModel> styleHandlers;
 
 	public LogicalStyleController(ModeController modeController) {
@@ -83,7 +91,9 @@ public class LogicalStyleController implements IExtension {
 		addStyleGetter(IPropertyHandler.STYLE, new IPropertyHandler<Collection<IStyle>, NodeModel>() {
 			public Collection<IStyle> getProperty(NodeModel node, Collection<IStyle> currentValue) {
 				final MapStyleModel styleModel = MapStyleModel.getExtension(node.getMap());
-				Collection<IStyle> condStyles = styleModel.getConditionalStyleModel().getStyles(node);
+				final ConditionalStyleModel conditionalStyleModel = styleModel.getConditionalStyleModel();
+				registerConditionalStyles(node, conditionalStyleModel);
+				Collection<IStyle> condStyles = conditionalStyleModel.getStyles(node);
 				addAll(node, styleModel, currentValue, condStyles);
 				return currentValue;
 			}
@@ -98,9 +108,9 @@ public class LogicalStyleController implements IExtension {
 			public String getTooltip(ModeController modeController, NodeModel node, Component view) {
 				if(!ResourceController.getResourceController().getBooleanProperty("show_styles_in_tooltip"))
 					return null;
-				final Collection<IStyle> styles = getStyles(node);
+				final List<IStyle> styles = new ArrayList<IStyle>(getStyles(node));
 				if(styles.size() > 0)
-					styles.remove(styles.iterator().next());
+					styles.remove(0);
 				final String label = TextUtils.getText("node_styles");
 				return HtmlUtils.plainToHTML(label + ": " + getStyleNames(styles, ", "));
 			}
@@ -142,42 +152,55 @@ public class LogicalStyleController implements IExtension {
 			final ConditionalStyleModel conditionalStyleModel = styleNode.getExtension(ConditionalStyleModel.class);
 			if(conditionalStyleModel == null)
 				return;
+			registerConditionalStyles(node, conditionalStyleModel);
 			Collection<IStyle> styles = conditionalStyleModel.getStyles(node);
-			cachedNode = null;
 			addAll(node, styleModel, currentValue, styles);
     }
 
+	private void registerConditionalStyles(NodeModel node, final ConditionalStyleModel conditionalStyleModel) {
+		if(conditionalStyleModel.getStyleCount() == 0)
+			return;
+		final StyleResolution resolution = styleResolution.get();
+		resolution.usesConditionalStyles = true;
+		if(! conditionalStyleModel.dependsOnlyOnMapContent(node))
+			resolution.usesVolatileConditions = true;
+	}
+
 	private void registerChangeListener() {
 		ModeController modeController = Controller.getCurrentModeController();
 		final MapController mapController = modeController.getMapController();
 		mapController.addMapChangeListener(new IMapChangeListener() {
 			public void onPreNodeMoved(NodeMoveEvent nodeMoveEvent) {
-				clearCache();
+				clearCache(nodeMoveEvent.oldParent.getMap());
 			}
 
 			public void onPreNodeDelete(NodeDeletionEvent nodeDeletionEvent) {
-				clearCache();
+				clearCache(nodeDeletionEvent.parent.getMap());
 			}
 
 			public void onNodeMoved(NodeMoveEvent nodeMoveEvent) {
-				clearCache();
+				clearCache(nodeMoveEvent.newParent.getMap());
 			}
 
 			public void onNodeInserted(NodeModel parent, NodeModel child, int newIndex) {
-				clearCache();
+				clearCache(parent.getMap());
 			}
 
 			public void onNodeDeleted(NodeDeletionEvent nodeDeletionEvent) {
-				clearCache();
+				clearCache(nodeDeletionEvent.parent.getMap());
 			}
 
 			public void mapChanged(MapChangeEvent event) {
-				clearCache();
+				final MapModel map = event.getMap();
+				if(map != null)
+					clearCache(map);
+				else
+					clearCache();
 			}
 		});
 		mapController.addNodeChangeListener(new INodeChangeListener() {
 			public void nodeChanged(NodeChangeEvent event) {
-				clearCache();
+				clearCache(event.getNode());
 			}
 		});
 
@@ -299,43 +322,111 @@ public class LogicalStyleController implements IExtension {
 		return MapStyleModel.DEFAULT_STYLE;
 	}
 	public Collection<IStyle>  getStyles(final NodeModel node) {
-		if(cachedNode != null && node.equals(cachedNode.get())){
-			return cachedStyle;
+		final ResolvedStyleCache cache = getResolvedStyleCache(node.getMap());
+		final Collection<IStyle> cachedStyles = cache != null ? cache.get(node) : null;
+		if(cachedStyles != null){
+			return cachedStyles;
+		}
+		final StyleResolution resolution = styleResolution.get();
+		if(resolution.depth == 0) {
+			resolution.usesConditionalStyles = false;
+			resolution.usesVolatileConditions = false;
+		}
+		resolution.depth++;
+		final Collection<IStyle> styles;
+		try {
+			styles = Collections.unmodifiableCollection(styleHandlers.getProperty(node, new LinkedHashSet<IStyle>()));
+		}
+		finally {
+			resolution.depth--;
+		}
+		// styles resolved while evaluating conditions of another node can miss conditional styles,
+		// results of conditions like scripts or formulas can change without any map change event
+		if(resolution.depth == 0 && cache != null && ! resolution.usesVolatileConditions)
+			cache.put(node, styles, resolution.usesConditionalStyles);
+		return styles;
+	}
+
+	private ResolvedStyleCache getResolvedStyleCache(final MapModel map) {
+		if(map == null)
+			return null;
+		synchronized (resolvedStyles) {
+			return resolvedStyles.computeIfAbsent(map, m -> new ResolvedStyleCache());
 		}
-		cachedStyle = null;
-		cachedNode = null;
-		cachedStyle = styleHandlers.getProperty(node, new LinkedHashSet<IStyle>());
-		cachedNode = new WeakReference<NodeModel>(node);
-		return cachedStyle;
 	}
 
 	public void moveConditionalStyleDown(final ConditionalStyleModel conditionalStyleModel, int index) {
 	    conditionalStyleModel.moveDown(index);
+	    clearCache();
     }
 
 	public void moveConditionalStyleUp(final ConditionalStyleModel conditionalStyleModel, int index) {
 	    conditionalStyleModel.moveUp(index);
+	    clearCache();
     }
 
 	public void addConditionalStyle(final ConditionalStyleModel conditionalStyleModel, boolean isActive,
                                     ASelectableCondition condition, IStyle style, boolean isLast) {
 	    conditionalStyleModel.addCondition(isActive, condition, style, isLast);
+	    clearCache();
     }
 
 	public void insertConditionalStyle(final ConditionalStyleModel conditionalStyleModel, int index, boolean isActive,
                                        ASelectableCondition condition, IStyle style, boolean isLast) {
 	    conditionalStyleModel.insertCondition(index, isActive, condition, style, isLast);
+	    clearCache();
     }
 
 	public Item removeConditionalStyle(final ConditionalStyleModel conditionalStyleModel, int index) {
-	    return conditionalStyleModel.removeCondition(index);
+	    final Item item = conditionalStyleModel.removeCondition(index);
+	    clearCache();
+	    return item;
     }
 
 	private void clearCache() {
-	    cachedStyle = null;
-	    cachedNode = null;
+		synchronized (resolvedStyles) {
+			for (ResolvedStyleCache cache : resolvedStyles.values())
+				cache.clear();
+		}
     }
 
+	/** clears styles of the map and of all maps using it as their style map */
+	private void clearCache(final MapModel map) {
+		synchronized (resolvedStyles) {
+			for (Map.Entry<MapModel, ResolvedStyleCache> entry : resolvedStyles.entrySet()) {
+				final MapModel cachedMap = entry.getKey();
+				if (cachedMap == map || cachedMap != null && usesStyleMap(cachedMap, map))
+					entry.getValue().clear();
+			}
+		}
+	}
+
+	private void clearCache(final NodeModel node) {
+		final MapModel map = node.getMap();
+		// style nodes inherit styles from each other
+		if (map instanceof StyleMapModel) {
+			clearCache(map);
+			return;
+		}
+		synchronized (resolvedStyles) {
+			for (Map.Entry<MapModel, ResolvedStyleCache> entry : resolvedStyles.entrySet()) {
+				final MapModel cachedMap = entry.getKey();
+				if (cachedMap == map)
+					entry.getValue().remove(node);
+				else if (cachedMap != null && usesStyleMap(cachedMap, map))
+					entry.getValue().clear();
+			}
+		}
+	}
+
+	private boolean usesStyleMap(final MapModel map, final MapModel styleMap) {
+		final NodeModel rootNode = map.getRootNode();
+		if (rootNode == null)
+			return false;
+		final MapStyleModel mapStyleModel = MapStyleModel.getExtension(rootNode);
+		return mapStyleModel != null && mapStyleModel.getStyleMap() == styleMap;
+	}
+
 	public IPropertyHandler<Collection<IStyle>, NodeModel> addStyleGetter(
 		final Integer key,
 		final IPropertyHandler<Collection<IStyle>, NodeModel> getter) {
@@ -363,7 +454,6 @@ public class LogicalStyleController implements IExtension {
 	public Collection<IStyle>  getConditionalMapStyles(final NodeModel node) {
 		final MapStyleModel styleModel = MapStyleModel.getExtension(node.getMap());
 		Collection<IStyle> condStyles = styleModel.getConditionalStyleModel().getStyles(node);
-		clearCache();
 		return getResursively(node, condStyles);
 	}
 
@@ -377,7 +467,6 @@ public class LogicalStyleController implements IExtension {
 		final ConditionalStyleModel conditionalStyleModel = node.getExtension(ConditionalStyleModel.class);
 		if(conditionalStyleModel != null) {
 			Collection<IStyle> styles = conditionalStyleModel.getStyles(node);
-			clearCache();
 			condStyles.addAll(styles);
 		}
 		final Collection<IStyle> all = getResursively(node, condStyles);
@@ -0,0 +1,43 @@
+package org.freeplane.features.styles;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.freeplane.features.map.NodeModel;
+
+/**
+ * Resolved styles of the nodes of one map.
+ * As long as no conditional style took part in resolution, a changed node invalidates only its own styles.
+ * Otherwise any change invalidates all of them, because conditions may depend on other nodes.
+ * Styles depending on conditions which can change without map change events are not cached at all.
+ */
+class ResolvedStyleCache {
+	private final Map<NodeModel, Collection<IStyle>> styles = new WeakHashMap<>();
+	private boolean dependsOnConditions;
+
+	synchronized Collection<IStyle> get(NodeModel node) {
+		return styles.get(node);
+	}
+
+	synchronized void put(NodeModel node, Collection<IStyle> nodeStyles, boolean nodeStylesDependOnConditions) {
+		styles.put(node, nodeStyles);
+		dependsOnConditions |= nodeStylesDependOnConditions;
+	}
+
+	synchronized void remove(NodeModel node) {
+		if (dependsOnConditions)
+			clear();
+		else
+			styles.remove(node);
+	}
+
+	synchronized void clear() {
+		styles.clear();
+		dependsOnConditions = false;
+	}
+
+	synchronized int size() {
+		return styles.size();
+	}
+}
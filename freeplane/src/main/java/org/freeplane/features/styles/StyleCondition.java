@@ -18,6 +18,11 @@ public class StyleCondition extends ASelectableCondition {
 		return value.equals(firstStyle);
 	}
 
+	@Override
+	public boolean dependsOnlyOnMapContent(final NodeModel node) {
+		return true;
+	}
+
 	public void fillXML(final XMLElement child) {
 		if (value instanceof StyleString) {
 			child.setAttribute("TEXT", value.toString());
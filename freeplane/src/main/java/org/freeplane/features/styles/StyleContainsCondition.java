@@ -21,6 +21,11 @@ public class StyleContainsCondition extends ASelectableCondition {
 		return styles.contains(value);
 	}
 
+	@Override
+	public boolean dependsOnlyOnMapContent(final NodeModel node) {
+		return true;
+	}
+
 	public void fillXML(final XMLElement child) {
 		if (value instanceof StyleString) {
 			child.setAttribute("TEXT", value.toString());
@@ -34,5 +34,4 @@ public abstract class AbstractContentTransformer implements IContentTransformer
 			Object transformedExtension) {
 		return false;
 	}
-	
 }
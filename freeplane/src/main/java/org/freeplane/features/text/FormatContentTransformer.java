@@ -24,6 +24,12 @@ class FormatContentTransformer extends AbstractContentTransformer {
 		return expandFormat(obj, node, format, nodeNumbering);
 	}
 
+	@Override
+	public boolean isTransformationCacheable(TextController textController, Object content, NodeModel node,
+			Object transformedExtension) {
+		return true;
+	}
+
 	private Object expandFormat(Object obj, final NodeModel node, final String format, boolean nodeNumbering) {
 		final boolean hasFormat = format != null && format.length() != 0 && 
 				!PatternFormat.IDENTITY_PATTERN.equals(format) && !PatternFormat.STANDARD_FORMAT_PATTERN.equals(format);
@@ -9,6 +9,10 @@ public interface IContentTransformer extends Comparable<IContentTransformer> {
 	Object transformContent(TextController textController, Object content, NodeModel node, Object transformedExtension) throws TransformationException;
 	boolean isFormula(TextController textController, Object content, NodeModel node, Object transformedExtension);
 	Icon getIcon(TextController textController, Object content, NodeModel node, Object transformedExtension);
+	/** returns false if the transformed content can change while the node is unchanged, e.g. for formulas evaluated without formula cache */
+	default boolean isTransformationCacheable(TextController textController, Object content, NodeModel node, Object transformedExtension) {
+		return false;
+	}
 
 	/** used for determining the transformer sequence when more than one transformer is present.
 	 * Transformers are sorted by priority numerically, that is the transformer with the least priority value
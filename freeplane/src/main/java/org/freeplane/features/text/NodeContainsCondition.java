@@ -65,6 +65,16 @@ public class NodeContainsCondition extends StringConditionAdapter implements Nod
 		return checkText(content);
 	}
 
+	@Override
+	public boolean canBeCheckedConcurrently(final NodeModel node) {
+		return NodeTextConditionController.canGetItemsConcurrently(nodeItem, node);
+	}
+
+	@Override
+	public boolean dependsOnlyOnMapContent(final NodeModel node) {
+		return NodeTextConditionController.canGetItemsConcurrently(nodeItem, node);
+	}
+
 	private boolean checkText(Object content[]) {
 		for(Object o : content){
 			if(checkText(o))
@@ -63,6 +63,16 @@ public class NodeMatchesRegexpCondition extends ASelectableCondition implements
 		return content != null && checkText(content);
 	}
 
+	@Override
+	public boolean canBeCheckedConcurrently(final NodeModel node) {
+		return NodeTextConditionController.canGetItemsConcurrently(nodeItem, node);
+	}
+
+	@Override
+	public boolean dependsOnlyOnMapContent(final NodeModel node) {
+		return NodeTextConditionController.canGetItemsConcurrently(nodeItem, node);
+	}
+
 	private boolean checkText(Object content[]) {
 		for(Object o : content){
 			if(o != null && checkText(o.toString()))
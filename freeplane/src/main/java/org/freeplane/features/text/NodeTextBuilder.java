@@ -86,7 +86,8 @@ public class NodeTextBuilder implements IElementContentHandler, IElementWriter,
 		else if (NodeTextBuilder.XML_NODE_XHTML_TYPE_DETAILS.equals(typeAttribute)) {
 			final boolean hidden = "true".equals(attributes.getAttribute("HIDDEN", "false"));
 			final DetailTextModel details = new DetailTextModel(hidden);
-			details.setXml(xmlText);
+			if (! attachExternalContent(nodeModel, attributes, details))
+				details.setXml(xmlText);
 			nodeModel.addExtension(details);
 			if(localizedHtml != null) {
 				details.setLocalizedHtmlPropertyName((String)localizedHtml);
@@ -237,7 +238,8 @@ public class NodeTextBuilder implements IElementContentHandler, IElementWriter,
 	 */
 	public void writeContent(final ITreeWriter writer, final Object element, final IExtension note) throws IOException {
 		DetailTextModel model = (DetailTextModel) note;
-		if (model.getXml() != null) {
+		final String xml = model.getXmlForSaving();
+		if (xml != null) {
 			final XMLElement htmlElement = new XMLElement();
 			htmlElement.setName(NodeTextBuilder.XML_NODE_XHTML_CONTENT_TAG);
 			htmlElement.setAttribute(NodeTextBuilder.XML_NODE_XHTML_TYPE_TAG, NodeTextBuilder.XML_NODE_XHTML_TYPE_DETAILS);
@@ -248,14 +250,54 @@ public class NodeTextBuilder implements IElementContentHandler, IElementWriter,
 				htmlElement.setAttribute("LOCALIZED_HTML", model.getLocalizedHtmlPropertyName());
 				writer.addElement(null, htmlElement);
 			}
-			else {
-				final String content = model.getXml().replace('\0', ' ');
+			else if (! storeExternalContent(writer, model, xml, htmlElement)){
+				final String content = xml.replace('\0', ' ');
 				writer.addElement('\n' + content + '\n', htmlElement);
 			}
 		}
 		return;
 	}
 
+	/**
+	 * Lets the map's {@link RichContentSource} provide the content
+	 * if the rich content element refers to an entry.
+	 */
+	public static boolean attachExternalContent(final NodeModel node, final XMLElement attributes,
+	                                            final RichTextModel model) {
+		final String entry = attributes.getAttribute(RichContentSource.ENTRY_ATTRIBUTE, null);
+		if (entry == null) {
+			return false;
+		}
+		final RichContentSource source = node.getMap().getExtension(RichContentSource.class);
+		if (source == null) {
+			LogUtils.warn("no source for rich content entry " + entry);
+			return false;
+		}
+		source.attach(model, entry);
+		return true;
+	}
+
+	/**
+	 * Writes the rich content element as a reference to an entry
+	 * if the writer has a {@link RichContentStore} taking the content.
+	 */
+	public static boolean storeExternalContent(final ITreeWriter writer, final RichTextModel model,
+	                                           final String xml, final XMLElement htmlElement) throws IOException {
+		final Object hint = writer.getHint(RichContentStore.class);
+		if (! (hint instanceof RichContentStore)) {
+			return false;
+		}
+		final RichContentStore store = (RichContentStore) hint;
+		final String type = htmlElement.getAttribute(XML_NODE_XHTML_TYPE_TAG, null);
+		final String entry = store.store(type, model, xml);
+		if (entry == null) {
+			return false;
+		}
+		htmlElement.setAttribute(RichContentSource.ENTRY_ATTRIBUTE, entry);
+		writer.addElement(null, htmlElement);
+		return true;
+	}
+
 	public void writeAttributes(ITreeWriter writer, Object userObject, IExtension extension) {
 		writer.addAttribute(XML_NODE_TEXT_SHORTENED, Boolean.TRUE.toString());
     }
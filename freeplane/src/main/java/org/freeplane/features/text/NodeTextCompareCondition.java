@@ -81,6 +81,11 @@ public class NodeTextCompareCondition extends CompareConditionAdapter implements
 		return content != null && checkContents(content);
 	}
 
+	@Override
+	public boolean dependsOnlyOnMapContent(final NodeModel node) {
+		return NodeTextConditionController.canGetItemsConcurrently(nodeItem, node);
+	}
+
 	private boolean checkContents(Object content[]) {
 		for(Object o : content){
 			if(o != null && checkContent(o))
@@ -32,8 +32,8 @@ import org.freeplane.core.resources.TranslatedObject;
 import org.freeplane.core.ui.FixedBasicComboBoxEditor;
 import org.freeplane.core.ui.components.TypedListCellRenderer;
 import org.freeplane.core.ui.components.UITools;
-import org.freeplane.core.util.HtmlUtils;
 import org.freeplane.core.util.TextUtils;
+import org.freeplane.features.filter.ConcurrentConditionChecker;
 import org.freeplane.features.filter.condition.ASelectableCondition;
 import org.freeplane.features.filter.condition.ConditionFactory;
 import org.freeplane.features.filter.condition.IElementaryConditionController;
@@ -187,33 +187,77 @@ class NodeTextConditionController implements IElementaryConditionController {
 			return new Object[] { getItemForComparison(nodeItem, node) };
 	}
 	
+	public static boolean canGetItemsConcurrently(Object nodeItem, final NodeModel node) {
+		if (nodeItem.equals(TextController.FILTER_ANYTEXT)) {
+			return canGetItemConcurrently(TextController.FILTER_NODE, node)
+					&& canGetItemConcurrently(TextController.FILTER_DETAILS, node)
+					&& canGetItemConcurrently(TextController.FILTER_NOTE, node);
+		}
+		else
+			return canGetItemConcurrently(nodeItem, node);
+	}
+
+	private static boolean canGetItemConcurrently(Object nodeItem, final NodeModel node) {
+		if(nodeItem.equals(TextController.FILTER_NODE)){
+			return hasPlainText(node);
+		}
+		else if(nodeItem.equals(TextController.FILTER_PARENT)){
+			final NodeModel parentNode = node.getParentNode();
+			return parentNode == null || hasPlainText(parentNode);
+		}
+		else if(nodeItem.equals(TextController.FILTER_DETAILS)){
+			return isLoaded(DetailTextModel.getDetailText(node));
+		}
+		else if(nodeItem.equals(TextController.FILTER_NOTE)){
+			return isLoaded(NoteModel.getNote(node));
+		}
+		else
+			return true;
+	}
+
+	/** notes and details of compressed maps are read from the map file on the calling thread */
+	private static boolean isLoaded(final RichTextModel model) {
+		return model == null || model.isContentLoaded();
+	}
+
+	/** called by the filtering thread, true if no content transformer changes the node text */
+	private static boolean hasPlainText(final NodeModel node) {
+		final Object userObject = node.getUserObject();
+		return userObject instanceof String && ! TextController.getController().isFormula(userObject, node, null)
+				&& userObject.equals(transformedObject(node));
+	}
+
 	private static Object getItemForComparison(Object nodeItem, final NodeModel node) {
-		final Object result;
 		if(nodeItem.equals(TextController.FILTER_NODE)){
-			result = transformedObject(node);
+			return plainText(node, PlainTextCache.NODE_TEXT, transformedObject(node));
 		}
 		else if(nodeItem.equals(TextController.FILTER_PARENT)){
 			final NodeModel parentNode = node.getParentNode();
 			if(parentNode == null)
-				result = null;
+				return null;
 			else
-				result = transformedObject(parentNode);
+				return plainText(parentNode, PlainTextCache.NODE_TEXT, transformedObject(parentNode));
 		}
 		else if(nodeItem.equals(TextController.FILTER_DETAILS)){
-			result = DetailTextModel.getDetailTextText(node);
+			return plainText(node, PlainTextCache.DETAILS, DetailTextModel.getDetailTextText(node));
 		}
 		else if(nodeItem.equals(TextController.FILTER_NOTE)){
-			result = NoteModel.getNoteText(node);
+			return plainText(node, PlainTextCache.NOTE, NoteModel.getNoteText(node));
 		}
 		else
-			result = null;
-		if(result instanceof String)
-			return HtmlUtils.htmlToPlain((String)result);
-		return result;
+			return null;
     }
 
+	private static Object plainText(final NodeModel node, final int item, final Object text) {
+		if(text instanceof String)
+			return PlainTextCache.INSTANCE.getPlainText(node, item, (String)text);
+		return text;
+	}
+
 	private static Object transformedObject(final NodeModel node) {
 		final Object userObject = node.getUserObject();
+		if (ConcurrentConditionChecker.isCheckingConcurrently())
+			return userObject;
 		return TextController.getController().getTransformedObjectNoFormattingNoThrow(userObject, node, null);
 	}
 
@@ -19,7 +19,6 @@
  */
 package org.freeplane.features.text;
 
-import org.freeplane.core.util.HtmlUtils;
 import org.freeplane.core.util.TextUtils;
 import org.freeplane.features.filter.StringMatchingStrategy;
 import org.freeplane.features.filter.condition.ASelectableCondition;
@@ -64,6 +63,16 @@ public class NoteContainsCondition extends StringConditionAdapter {
 		return stringMatchingStrategy.matches(normalizedValue(), normalize(text), true);
 	}
 
+	@Override
+	public boolean canBeCheckedConcurrently(final NodeModel node) {
+		return NodeTextConditionController.canGetItemsConcurrently(TextController.FILTER_NOTE, node);
+	}
+
+	@Override
+	public boolean dependsOnlyOnMapContent(final NodeModel node) {
+		return true;
+	}
+
 	@Override
 	protected String createDescription() {
 		return createDescription(true);
@@ -77,7 +86,7 @@ public class NoteContainsCondition extends StringConditionAdapter {
 
 	protected String getText(final NodeModel node) {
 		final String noteText = NoteModel.getNoteText(node);
-		return noteText == null ? null : HtmlUtils.htmlToPlain(noteText);
+		return noteText == null ? null : PlainTextCache.INSTANCE.getPlainText(node, PlainTextCache.NOTE, noteText);
 	}
 
 	public void fillXML(final XMLElement child) {
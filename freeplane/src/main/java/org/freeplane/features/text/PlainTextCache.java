@@ -0,0 +1,72 @@
+package org.freeplane.features.text;
+
+import java.util.WeakHashMap;
+
+import org.freeplane.core.util.HtmlUtils;
+import org.freeplane.features.map.INodeChangeListener;
+import org.freeplane.features.map.NodeChangeEvent;
+import org.freeplane.features.map.NodeModel;
+
+/**
+ * Caches plain text converted from html node text, details and notes
+ * so that repeated searches and filters do not parse unchanged html again.
+ *
+ * A cached text is only used if it has been converted from the same string instance,
+ * entries of changed nodes are removed on node change events.
+ * The cache can be used by several threads checking filter conditions concurrently.
+ */
+class PlainTextCache implements INodeChangeListener {
+	static final int NODE_TEXT = 0;
+	static final int DETAILS = 1;
+	static final int NOTE = 2;
+	private static final int ITEM_COUNT = 3;
+
+	static final PlainTextCache INSTANCE = new PlainTextCache();
+
+	private static class CachedText {
+		final String source;
+		final String plainText;
+
+		CachedText(final String source, final String plainText) {
+			this.source = source;
+			this.plainText = plainText;
+		}
+	}
+
+	private final WeakHashMap<NodeModel, CachedText[]> cachedTexts = new WeakHashMap<>();
+
+	private PlainTextCache() {
+	}
+
+	String getPlainText(final NodeModel node, final int item, final String text) {
+		if (!HtmlUtils.isHtml(text))
+			return text;
+		synchronized (cachedTexts) {
+			final CachedText[] nodeTexts = cachedTexts.get(node);
+			final CachedText cachedText = nodeTexts == null ? null : nodeTexts[item];
+			if (cachedText != null && cachedText.source == text)
+				return cachedText.plainText;
+		}
+		final String plainText = HtmlUtils.htmlToPlain(text);
+		synchronized (cachedTexts) {
+			CachedText[] nodeTexts = cachedTexts.get(node);
+			if (nodeTexts == null) {
+				nodeTexts = new CachedText[ITEM_COUNT];
+				cachedTexts.put(node, nodeTexts);
+			}
+			nodeTexts[item] = new CachedText(text, plainText);
+		}
+		return plainText;
+	}
+
+	void invalidate(final NodeModel node) {
+		synchronized (cachedTexts) {
+			cachedTexts.remove(node);
+		}
+	}
+
+	@Override
+	public void nodeChanged(final NodeChangeEvent event) {
+		invalidate(event.getNode());
+	}
+}
@@ -0,0 +1,13 @@
+package org.freeplane.features.text;
+
+import org.freeplane.core.extension.IExtension;
+
+/**
+ * Map extension giving access to rich content which is stored outside of the map xml.
+ * Builders attach content to it when a rich content element refers to an entry instead of containing the text.
+ */
+public interface RichContentSource extends IExtension {
+	String ENTRY_ATTRIBUTE = "ENTRY";
+
+	void attach(RichTextModel model, String entry);
+}
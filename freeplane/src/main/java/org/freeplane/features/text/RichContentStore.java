@@ -0,0 +1,15 @@
+package org.freeplane.features.text;
+
+import java.io.IOException;
+
+/**
+ * Writer hint, registered with {@code RichContentStore.class} as key,
+ * which takes rich content out of the written map xml.
+ */
+public interface RichContentStore {
+	/**
+	 * @return name of the entry the content has been stored in
+	 * or null if the content should be written into the map xml
+	 */
+	String store(String type, RichTextModel model, String xml) throws IOException;
+}
@@ -5,18 +5,61 @@ import org.freeplane.core.util.XmlUtils;
 
 
 public class RichTextModel {
+	/** Supplies content kept outside of the map, it is read on first access. */
+	public interface ContentLoader {
+		String loadXml();
+	}
+
 	private String html = null;
 	private String xml = null;
+	private volatile ContentLoader contentLoader = null;
 
 	public String getHtml() {
+		loadContent();
 		return html;
 	}
 
 	public String getXml() {
+		loadContent();
+		return xml;
+	}
+
+	/**
+	 * Returns the xml content like {@link #getXml()}, but content which has not been loaded yet
+	 * is read without keeping it in memory.
+	 */
+	public String getXmlForSaving() {
+		final ContentLoader loader = contentLoader;
+		if (loader != null) {
+			return XmlUtils.makeValidXml(loader.loadXml());
+		}
 		return xml;
 	}
 
+	public boolean isContentLoaded() {
+		return contentLoader == null;
+	}
+
+	public synchronized void setContentLoader(final ContentLoader contentLoader) {
+		xml = null;
+		html = null;
+		this.contentLoader = contentLoader;
+	}
+
+	private void loadContent() {
+		if (contentLoader != null) {
+			synchronized (this) {
+				final ContentLoader loader = contentLoader;
+				if (loader != null) {
+					assignXml(loader.loadXml());
+					contentLoader = null;
+				}
+			}
+		}
+	}
+
 	public final void setHtml(final String pNoteText) {
+		contentLoader = null;
 		if (pNoteText == null) {
 			xml = null;
 			html = null;
@@ -34,6 +77,11 @@ public class RichTextModel {
 	}
 
 	public final void setXml(final String pXmlNoteText) {
+		contentLoader = null;
+		assignXml(pXmlNoteText);
+	}
+
+	private void assignXml(final String pXmlNoteText) {
 		if (pXmlNoteText == null) {
 			xml = null;
 			html = null;
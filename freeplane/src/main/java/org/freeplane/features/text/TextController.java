@@ -44,6 +44,7 @@ import org.freeplane.features.format.PatternFormat;
 import org.freeplane.features.link.LinkController;
 import org.freeplane.features.map.ITooltipProvider;
 import org.freeplane.features.map.MapController;
+import org.freeplane.features.map.MapModel;
 import org.freeplane.features.map.NodeChangeEvent;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.mode.Controller;
@@ -101,6 +102,12 @@ public class TextController implements IExtension {
 		final WriteManager writeManager = mapController.getWriteManager();
 		final NodeTextBuilder textBuilder = new NodeTextBuilder();
 		textBuilder.registerBy(readManager, writeManager);
+		mapController.addNodeChangeListener(PlainTextCache.INSTANCE);
+		mapController.addNodeChangeListener(TransformedObjectCache.INSTANCE);
+		mapController.addMapChangeListener(TransformedObjectCache.INSTANCE);
+		final ResourceController resourceController = ResourceController.getResourceController();
+		TransformedObjectCache.INSTANCE.setEnabled(resourceController.getBooleanProperty(TransformedObjectCache.CACHE_TRANSFORMED_OBJECTS_PROPERTY));
+		resourceController.addPropertyChangeListener(TransformedObjectCache.INSTANCE);
 		writeManager.addExtensionElementWriter(DetailTextModel.class, textBuilder);
 		writeManager.addExtensionAttributeWriter(ShortenedTextModel.class, textBuilder);
 		modeController.addAction(new ToggleDetailsAction());
@@ -116,6 +123,7 @@ public class TextController implements IExtension {
 	public void addTextTransformer(IContentTransformer textTransformer) {
 		textTransformers.add(textTransformer);
 		Collections.sort(textTransformers);
+		TransformedObjectCache.INSTANCE.clear();
 	}
 
 	public List<IContentTransformer> getTextTransformers() {
@@ -124,6 +132,25 @@ public class TextController implements IExtension {
 
 	public void removeTextTransformer(IContentTransformer textTransformer) {
 		textTransformers.remove(textTransformer);
+		TransformedObjectCache.INSTANCE.clear();
+	}
+
+	/** removes cached transformation results of given nodes, e.g. of formulas depending on changed nodes */
+	public static void invalidateTransformedObjects(Iterable<NodeModel> nodes) {
+		for (NodeModel node : nodes)
+			TransformedObjectCache.INSTANCE.invalidate(node);
+	}
+
+	public static void invalidateTransformedObjects(MapModel map) {
+		TransformedObjectCache.INSTANCE.invalidate(map);
+	}
+
+	public static long getTransformedObjectCacheHits() {
+		return TransformedObjectCache.INSTANCE.getHits();
+	}
+
+	public static long getTransformedObjectCacheMisses() {
+		return TransformedObjectCache.INSTANCE.getMisses();
 	}
 
 	public String getText(NodeModel nodeModel) {
@@ -141,6 +168,22 @@ public class TextController implements IExtension {
 					return string.substring(1);
 			}
 		}
+		// local links are transformed to texts of other nodes which are not tracked
+		final boolean usesCache = nodeModel != null && object != null && !(object instanceof URI)
+				&& TransformedObjectCache.INSTANCE.isEnabled() && isTransformationCacheable(object, nodeModel, extension);
+		if (usesCache) {
+			final Object cachedObject = TransformedObjectCache.INSTANCE.get(this, nodeModel, object, extension);
+			if (cachedObject != null)
+				return cachedObject;
+		}
+		final Object transformedObject = transformObject(object, nodeModel, extension);
+		if (usesCache)
+			TransformedObjectCache.INSTANCE.put(this, nodeModel, object, extension, transformedObject);
+		return transformedObject;
+	}
+
+	private Object transformObject(Object object, final NodeModel nodeModel, Object extension)
+	        throws TransformationException {
 		boolean markTransformation = false;
 		for (IContentTransformer textTransformer : getTextTransformers()) {
 			try {
@@ -158,6 +201,14 @@ public class TextController implements IExtension {
 			return object;
 	}
 
+	private boolean isTransformationCacheable(Object object, final NodeModel nodeModel, Object extension) {
+		for (IContentTransformer textTransformer : getTextTransformers()) {
+			if (! textTransformer.isTransformationCacheable(this, object, nodeModel, extension))
+				return false;
+		}
+		return true;
+	}
+
 	public boolean isFormula(Object object, final NodeModel nodeModel, Object extension) {
 		if (object instanceof String) {
 			String string = (String) object;
@@ -252,7 +303,7 @@ public class TextController implements IExtension {
 		final Object userObject = nodeModel.getUserObject();
 		final Object input;
 		if (userObject instanceof String && HtmlUtils.isHtml((String) userObject))
-			input = HtmlUtils.htmlToPlain((String) userObject);
+			input = PlainTextCache.INSTANCE.getPlainText(nodeModel, PlainTextCache.NODE_TEXT, (String) userObject);
 		else
 			input = userObject;
 		final String text = getTransformedTextNoThrow(input, nodeModel, userObject);
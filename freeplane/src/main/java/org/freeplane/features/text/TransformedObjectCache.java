@@ -0,0 +1,184 @@
+package org.freeplane.features.text;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.freeplane.core.resources.IFreeplanePropertyListener;
+import org.freeplane.features.map.IMapChangeListener;
+import org.freeplane.features.map.INodeChangeListener;
+import org.freeplane.features.map.MapChangeEvent;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeChangeEvent;
+import org.freeplane.features.map.NodeDeletionEvent;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.map.NodeMoveEvent;
+import org.freeplane.features.nodestyle.NodeStyleController;
+import org.freeplane.features.styles.IStyle;
+
+/**
+ * Caches objects returned by content transformers,
+ * so that painting, tooltips and filters do not run all transformers again for unchanged nodes.
+ *
+ * A cached object is only used if it has been transformed by the same text controller
+ * from the same source and extension instances.
+ * Entries of changed nodes are removed on node change events,
+ * structural and map changes remove all entries of the map because of node numbering and styles,
+ * formula plugin removes entries of nodes depending on changed nodes.
+ * Entries are kept per map, so that removing entries of one map does not check entries of other maps.
+ */
+class TransformedObjectCache implements INodeChangeListener, IMapChangeListener, IFreeplanePropertyListener {
+	static final String CACHE_TRANSFORMED_OBJECTS_PROPERTY = "cache_transformed_objects";
+	private static final int MAXIMAL_ENTRY_COUNT_PER_NODE = 8;
+
+	static final TransformedObjectCache INSTANCE = new TransformedObjectCache();
+
+	private static class CachedObject {
+		final TextController textController;
+		final Object source;
+		final Object extension;
+		final Object transformedObject;
+
+		CachedObject(TextController textController, Object source, Object extension, Object transformedObject) {
+			this.textController = textController;
+			this.source = source;
+			this.extension = extension;
+			this.transformedObject = transformedObject;
+		}
+	}
+
+	private final WeakHashMap<MapModel, Map<NodeModel, CachedObject[]>> cachedObjects = new WeakHashMap<>();
+	private volatile boolean enabled = true;
+	private long hits;
+	private long misses;
+
+	TransformedObjectCache() {
+	}
+
+	void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		if (!enabled)
+			clear();
+	}
+
+	boolean isEnabled() {
+		return enabled;
+	}
+
+	/** returns null if there is no cached object */
+	Object get(TextController textController, NodeModel node, Object source, Object extension) {
+		synchronized (cachedObjects) {
+			final Map<NodeModel, CachedObject[]> mapObjects = cachedObjects.get(node.getMap());
+			final CachedObject[] nodeObjects = mapObjects != null ? mapObjects.get(node) : null;
+			if (nodeObjects != null) {
+				for (CachedObject cachedObject : nodeObjects) {
+					if (cachedObject != null && cachedObject.textController == textController
+							&& cachedObject.source == source && cachedObject.extension == extension) {
+						hits++;
+						return cachedObject.transformedObject;
+					}
+				}
+			}
+			misses++;
+			return null;
+		}
+	}
+
+	void put(TextController textController, NodeModel node, Object source, Object extension, Object transformedObject) {
+		if (!enabled || transformedObject == null)
+			return;
+		final CachedObject newObject = new CachedObject(textController, source, extension, transformedObject);
+		synchronized (cachedObjects) {
+			final Map<NodeModel, CachedObject[]> mapObjects = cachedObjects.computeIfAbsent(node.getMap(), map -> new WeakHashMap<>());
+			final CachedObject[] nodeObjects = mapObjects.computeIfAbsent(node, n -> new CachedObject[MAXIMAL_ENTRY_COUNT_PER_NODE]);
+			// the newest entry comes first, the oldest one is dropped if all slots are used
+			System.arraycopy(nodeObjects, 0, nodeObjects, 1, nodeObjects.length - 1);
+			nodeObjects[0] = newObject;
+		}
+	}
+
+	void invalidate(final NodeModel node) {
+		synchronized (cachedObjects) {
+			final Map<NodeModel, CachedObject[]> mapObjects = cachedObjects.get(node.getMap());
+			if (mapObjects != null)
+				mapObjects.remove(node);
+		}
+	}
+
+	void invalidate(final MapModel map) {
+		synchronized (cachedObjects) {
+			cachedObjects.remove(map);
+		}
+	}
+
+	void clear() {
+		synchronized (cachedObjects) {
+			cachedObjects.clear();
+		}
+	}
+
+	int size() {
+		synchronized (cachedObjects) {
+			int size = 0;
+			for (Map<NodeModel, CachedObject[]> mapObjects : cachedObjects.values())
+				size += mapObjects.size();
+			return size;
+		}
+	}
+
+	long getHits() {
+		synchronized (cachedObjects) {
+			return hits;
+		}
+	}
+
+	long getMisses() {
+		synchronized (cachedObjects) {
+			return misses;
+		}
+	}
+
+	@Override
+	public void nodeChanged(final NodeChangeEvent event) {
+		final NodeModel node = event.getNode();
+		// style nodes define formats of all nodes using them
+		if (node.getUserObject() instanceof IStyle)
+			clear();
+		// numbers of following siblings and descendants depend on the numbering of the changed node
+		else if (NodeStyleController.NODE_NUMBERING.equals(event.getProperty()))
+			invalidate(node.getMap());
+		else
+			invalidate(node);
+	}
+
+	@Override
+	public void mapChanged(MapChangeEvent event) {
+		final MapModel map = event.getMap();
+		if (map != null)
+			invalidate(map);
+		else
+			clear();
+	}
+
+	@Override
+	public void onNodeDeleted(NodeDeletionEvent nodeDeletionEvent) {
+		invalidate(nodeDeletionEvent.parent.getMap());
+	}
+
+	@Override
+	public void onNodeInserted(NodeModel parent, NodeModel child, int newIndex) {
+		invalidate(parent.getMap());
+	}
+
+	@Override
+	public void onNodeMoved(NodeMoveEvent nodeMoveEvent) {
+		invalidate(nodeMoveEvent.newParent.getMap());
+	}
+
+	@Override
+	public void propertyChanged(String propertyName, String newValue, String oldValue) {
+		if (CACHE_TRANSFORMED_OBJECTS_PROPERTY.equals(propertyName))
+			setEnabled(Boolean.parseBoolean(newValue));
+		else
+			clear();
+	}
+}
@@ -77,6 +77,15 @@ public class ConditionalContentTransformer implements IContentTransformer, IEdit
 				return false;
 	}
 
+	@Override
+	public boolean isTransformationCacheable(TextController textController,
+			Object content, NodeModel node, Object transformedExtension) {
+			if (isTransformationActive())
+				return target.isTransformationCacheable(textController, content, node, transformedExtension);
+			else
+				return true;
+	}
+
 	@Override
 	public Icon getIcon(TextController textController, Object content,
 			NodeModel node, Object transformedExtension) {
@@ -24,6 +24,7 @@ import java.util.Date;
 import org.freeplane.core.resources.TranslatedObject;
 import org.freeplane.features.filter.condition.ASelectableCondition;
 import org.freeplane.features.format.FormattedDate;
+import org.freeplane.features.map.NodeModel;
 import org.freeplane.n3.nanoxml.XMLElement;
 
 public abstract class TimeCondition extends ASelectableCondition {
@@ -60,6 +61,11 @@ public abstract class TimeCondition extends ASelectableCondition {
 		return date;
 	}
 
+	@Override
+	public boolean dependsOnlyOnMapContent(final NodeModel node) {
+		return true;
+	}
+
 	abstract protected String getName();
 
 
@@ -24,7 +24,6 @@ import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics2D;
-import java.awt.image.RenderedImage;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.List;
@@ -70,9 +69,11 @@ public interface IMapViewManager {
 
 	public String createHtmlMap();
 
-	public RenderedImage createImage(int dpi);
+	/** the returned image must be closed after use */
+	public MapImage createImage(int dpi);
 
-	public RenderedImage createImage(final Dimension slideSize, NodeModel placedNode, NodePosition placedNodePosition, int imageResolutionInDpi);
+	/** the returned image must be closed after use */
+	public MapImage createImage(final Dimension slideSize, NodeModel placedNode, NodePosition placedNodePosition, int imageResolutionInDpi);
 
 	public Color getBackgroundColor(NodeModel node);
 
@@ -0,0 +1,31 @@
+package org.freeplane.features.ui;
+
+import java.awt.image.RenderedImage;
+import java.io.Closeable;
+
+/**
+ * Image of a map view. Its pixels may be printed only when they are read,
+ * so that the map view stays prepared for printing until the image is closed.
+ */
+public class MapImage implements Closeable {
+	private final RenderedImage image;
+	private final Runnable closer;
+
+	public MapImage(RenderedImage image) {
+		this(image, () -> {});
+	}
+
+	public MapImage(RenderedImage image, Runnable closer) {
+		this.image = image;
+		this.closer = closer;
+	}
+
+	public RenderedImage getImage() {
+		return image;
+	}
+
+	@Override
+	public void close() {
+		closer.run();
+	}
+}
@@ -0,0 +1,174 @@
+package org.freeplane.features.url.mindmapmode;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.freeplane.core.util.LogUtils;
+
+/**
+ * Replaces a file by writing the new content into a temporary file in the same directory,
+ * forcing it to disk and renaming it over the target.
+ *
+ * The target file is never visible partially written: it either keeps its old content or gets the new one.
+ */
+class AtomicFileWriter {
+	interface Content {
+		void writeTo(OutputStream out) throws IOException;
+	}
+
+	static final int BUFFER_SIZE = 256 * 1024;
+	private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+	private static class CountingOutputStream extends FilterOutputStream {
+		private long count;
+
+		CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+
+		/** Content writers close their streams, but the channel must stay open until it is forced to disk. */
+		@Override
+		public void close() throws IOException {
+			flush();
+		}
+	}
+
+	SaveStatistics write(final File file, final Content content) throws IOException {
+		final Path target = resolveTarget(file.toPath().toAbsolutePath());
+		final Path directory = target.getParent();
+		final long startTime = System.nanoTime();
+		boolean replaced = false;
+		final Path tempFile = createTempFile(directory, target.getFileName().toString());
+		try {
+			final long bytesWritten;
+			final long writeTime;
+			final long syncTime;
+			// the lock is released before the rename: Windows can not replace an open file,
+			// and on POSIX systems the lock would stay with the replaced old file
+			try (FileChannel lockedTarget = lockAgainstOtherApplications(target);
+			        FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+				final CountingOutputStream counter = new CountingOutputStream(new BufferedOutputStream(
+				    Channels.newOutputStream(channel), BUFFER_SIZE));
+				content.writeTo(counter);
+				counter.flush();
+				bytesWritten = counter.count;
+				final long syncStartTime = System.nanoTime();
+				writeTime = syncStartTime - startTime;
+				channel.force(true);
+				syncTime = System.nanoTime() - syncStartTime;
+			}
+			copyPermissions(target, tempFile);
+			move(tempFile, target);
+			replaced = true;
+			syncDirectory(directory);
+			return new SaveStatistics(target.toFile(), bytesWritten, writeTime, syncTime,
+			    System.nanoTime() - startTime);
+		}
+		finally {
+			if (!replaced) {
+				Files.deleteIfExists(tempFile);
+			}
+		}
+	}
+
+	private Path resolveTarget(Path target) throws IOException {
+		if (Files.isSymbolicLink(target) && Files.exists(target)) {
+			return target.toRealPath();
+		}
+		return target;
+	}
+
+	/** Unlike {@link Files#createTempFile} creates the file with the default permissions of new files. */
+	private Path createTempFile(Path directory, String prefix) throws IOException {
+		for (;;) {
+			final Path tempFile = directory.resolve(prefix + Long.toUnsignedString(ThreadLocalRandom.current().nextLong())
+					+ TEMP_FILE_SUFFIX);
+			try {
+				return Files.createFile(tempFile);
+			}
+			catch (FileAlreadyExistsException e) {
+				continue;
+			}
+		}
+	}
+
+	/**
+	 * Returns the channel of the existing target holding its lock until it is closed,
+	 * or null if the target does not exist yet.
+	 */
+	private FileChannel lockAgainstOtherApplications(Path target) throws IOException {
+		if (!Files.exists(target)) {
+			return null;
+		}
+		final FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE);
+		boolean lockedByOtherApplication = false;
+		try {
+			final FileLock lock = channel.tryLock();
+			lockedByOtherApplication = lock == null;
+		}
+		catch (Exception e) {
+			LogUtils.warn(e.getMessage(), e);
+		}
+		if (lockedByOtherApplication) {
+			channel.close();
+			throw new IOException("can not obtain file lock for " + target);
+		}
+		return channel;
+	}
+
+	private void copyPermissions(Path source, Path target) {
+		try {
+			if (Files.exists(source) && Files.getFileAttributeView(source, PosixFileAttributeView.class) != null) {
+				Files.setPosixFilePermissions(target, Files.getPosixFilePermissions(source));
+			}
+		}
+		catch (Exception e) {
+			LogUtils.warn(e.getMessage(), e);
+		}
+	}
+
+	private void move(Path source, Path target) throws IOException {
+		try {
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (AtomicMoveNotSupportedException e) {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private void syncDirectory(Path directory) {
+		// makes the rename itself durable, supported on POSIX systems only
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		}
+		catch (IOException e) {
+			// directories can not be opened on Windows, the renamed file itself has already been forced to disk
+		}
+	}
+}
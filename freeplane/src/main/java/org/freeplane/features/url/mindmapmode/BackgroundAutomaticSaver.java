@@ -0,0 +1,153 @@
+package org.freeplane.features.url.mindmapmode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.freeplane.core.util.LogUtils;
+import org.freeplane.core.util.TextUtils;
+import org.freeplane.features.mode.Controller;
+import org.freeplane.features.ui.ViewController;
+
+/**
+ * Writes map snapshots taken by {@link DoAutomaticSave} to the backup files on a background thread.
+ *
+ * Only the file output is moved to the background: the map is still serialized into memory
+ * on the event dispatch thread, because the map model may only be read there.
+ *
+ * A snapshot which is still waiting to be written is replaced by a newer snapshot of the same map.
+ * A snapshot which is being written is abandoned as soon as a newer snapshot of the same map arrives,
+ * backup files are only rotated after a snapshot has been written completely.
+ */
+class BackgroundAutomaticSaver {
+	/** serialized map, written without copying the buffer */
+	static class SnapshotContent extends ByteArrayOutputStream {
+		private static final int CHUNK_SIZE = 64 * 1024;
+
+		SnapshotContent() {
+			super(CHUNK_SIZE);
+		}
+
+		/** returns false if writing was abandoned */
+		boolean writeTo(OutputStream out, File file) throws IOException {
+			for (int offset = 0; offset < count; offset += CHUNK_SIZE) {
+				if (pendingSnapshots.containsKey(file))
+					return false;
+				out.write(buf, offset, Math.min(CHUNK_SIZE, count - offset));
+			}
+			return true;
+		}
+	}
+
+	static class Snapshot {
+		final File file;
+		final File pathToStore;
+		final int numberOfFiles;
+		final boolean filesShouldBeDeletedAfterShutdown;
+		final SnapshotContent content;
+
+		Snapshot(final File file, final File pathToStore, final int numberOfFiles,
+		         final boolean filesShouldBeDeletedAfterShutdown, final SnapshotContent content) {
+			this.file = file;
+			this.pathToStore = pathToStore;
+			this.numberOfFiles = numberOfFiles;
+			this.filesShouldBeDeletedAfterShutdown = filesShouldBeDeletedAfterShutdown;
+			this.content = content;
+		}
+	}
+
+	private static final String STATUS_KEY = "automatic_save";
+	final private static ExecutorService executorService = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			final Thread thread = new Thread(r, "BackgroundAutomaticSaver");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		}
+	});
+	final private static ConcurrentHashMap<File, Snapshot> pendingSnapshots = new ConcurrentHashMap<File, Snapshot>();
+
+	static void save(final Snapshot snapshot) {
+		if (pendingSnapshots.put(snapshot.file, snapshot) != null) {
+			return;
+		}
+		executorService.execute(new Runnable() {
+			@Override
+			public void run() {
+				final Snapshot latestSnapshot = pendingSnapshots.remove(snapshot.file);
+				if (latestSnapshot != null) {
+					write(latestSnapshot);
+				}
+			}
+		});
+	}
+
+	private static void write(final Snapshot snapshot) {
+		final ViewController viewController = Controller.getCurrentController().getViewController();
+		File writtenFile = null;
+		try {
+			if (snapshot.numberOfFiles == 0) {
+				return;
+			}
+			snapshot.pathToStore.mkdirs();
+			writtenFile = File.createTempFile(snapshot.file.getName(), ".tmp", snapshot.pathToStore);
+			showStatus(viewController, TextUtils.format("automatically_save_in_progress", snapshot.file), null);
+			final boolean written;
+			try (OutputStream out = new FileOutputStream(writtenFile)) {
+				written = snapshot.content.writeTo(out, snapshot.file);
+			}
+			if (!written) {
+				showStatus(viewController, null, null);
+				return;
+			}
+			final File tempFile = MFileManager.renameBackupFiles(snapshot.pathToStore, snapshot.file,
+			    snapshot.numberOfFiles, DoAutomaticSave.AUTOSAVE_EXTENSION);
+			if (tempFile == null) {
+				showStatus(viewController, null, null);
+				return;
+			}
+			Files.move(writtenFile.toPath(), tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			writtenFile = null;
+			if (snapshot.filesShouldBeDeletedAfterShutdown) {
+				tempFile.deleteOnExit();
+			}
+			showStatus(viewController, null, TextUtils.format("automatically_save_message", tempFile));
+		}
+		catch (final IOException e) {
+			showStatus(viewController, null, null);
+			LogUtils.warn("Error in automatic MapModel.save(): ", e);
+		}
+		finally {
+			if (writtenFile != null) {
+				writtenFile.delete();
+			}
+		}
+	}
+
+	private static void showStatus(final ViewController viewController, final String progress,
+	                               final String message) {
+		viewController.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				if (progress != null) {
+					viewController.addStatusInfo(STATUS_KEY, progress);
+				}
+				else {
+					viewController.removeStatus(STATUS_KEY);
+				}
+				if (message != null) {
+					viewController.out(message);
+				}
+			}
+		});
+	}
+}
@@ -0,0 +1,383 @@
+package org.freeplane.features.url.mindmapmode;
+
+import java.awt.GraphicsEnvironment;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashSet;
+
+import org.freeplane.core.extension.IExtension;
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.core.util.LogUtils;
+import org.freeplane.features.map.IMapChangeListener;
+import org.freeplane.features.map.IMapLifeCycleListener;
+import org.freeplane.features.map.INodeChangeListener;
+import org.freeplane.features.map.MapChangeEvent;
+import org.freeplane.features.map.MapController;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.MapWriter;
+import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.features.map.NodeChangeEvent;
+import org.freeplane.features.map.NodeDeletionEvent;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.map.NodeMoveEvent;
+import org.freeplane.features.map.mindmapmode.MMapModel;
+import org.freeplane.features.mode.Controller;
+
+/**
+ * Append-only log of the changes of a map saved to a file, replacing the periodic automatic saves.
+ *
+ * Inserted branches are recorded with their content, changed nodes without their children,
+ * moved and deleted nodes by their IDs, so that the amount of written data depends on the changes
+ * and not on the map size. The records apply to the saved map file or to a checkpoint
+ * which is written when the journal grows too long or when map wide settings change.
+ * {@link ChangeJournalRecovery} replays the journal left by a crashed session.
+ */
+public class ChangeJournal implements IExtension {
+	private static class Recorder implements IMapChangeListener, INodeChangeListener, IMapLifeCycleListener {
+		@Override
+		public void onNodeInserted(final NodeModel parent, final NodeModel child, final int newIndex) {
+			final ChangeJournal journal = parent.getMap().getExtension(ChangeJournal.class);
+			if (journal != null) {
+				journal.recordInsert(parent, child, newIndex);
+			}
+		}
+
+		@Override
+		public void onNodeDeleted(final NodeDeletionEvent nodeDeletionEvent) {
+			final ChangeJournal journal = nodeDeletionEvent.parent.getMap().getExtension(ChangeJournal.class);
+			if (journal != null) {
+				journal.recordDelete(nodeDeletionEvent.node);
+			}
+		}
+
+		@Override
+		public void onNodeMoved(final NodeMoveEvent nodeMoveEvent) {
+			final ChangeJournal journal = nodeMoveEvent.newParent.getMap().getExtension(ChangeJournal.class);
+			if (journal != null) {
+				journal.recordMove(nodeMoveEvent.child, nodeMoveEvent.newParent, nodeMoveEvent.newIndex);
+			}
+		}
+
+		@Override
+		public void nodeChanged(final NodeChangeEvent event) {
+			if (!event.setsDirtyFlag()) {
+				return;
+			}
+			final ChangeJournal journal = event.getNode().getMap().getExtension(ChangeJournal.class);
+			if (journal != null) {
+				journal.recordUpdate(event.getNode());
+			}
+		}
+
+		@Override
+		public void mapChanged(final MapChangeEvent event) {
+			final MapModel map = event.getMap();
+			if (map == null || !event.setsDirtyFlag()) {
+				return;
+			}
+			final ChangeJournal journal = map.getExtension(ChangeJournal.class);
+			if (journal != null) {
+				journal.requestCheckpoint();
+			}
+		}
+
+		@Override
+		public void onCreate(final MapModel map) {
+			start(map);
+		}
+
+		@Override
+		public void onRemove(final MapModel map) {
+			stop(map);
+		}
+	}
+
+	static final String JOURNAL_PROPERTY = "automatic_save_journal";
+	static final String JOURNAL_EXTENSION = "journal";
+	static final String CHECKPOINT_EXTENSION = "checkpoint";
+	private static final int MAX_JOURNAL_LENGTH = 1 << 22;
+
+	private final MapModel map;
+	private final File mapFile;
+	private final File journalFile;
+	private final File checkpointFile;
+	private final LinkedHashSet<NodeModel> changedNodes;
+	private FileChannel journalChannel;
+	private FileLock lock;
+	private JournalOutput out;
+	private boolean flushScheduled;
+	private boolean checkpointRequested;
+
+	static void install(final MapController mapController) {
+		final Recorder recorder = new Recorder();
+		mapController.addMapChangeListener(recorder);
+		mapController.addNodeChangeListener(recorder);
+		mapController.addMapLifeCycleListener(recorder);
+	}
+
+	static File journalFile(final File mapFile) {
+		return new File(MFileManager.backupDir(mapFile), MFileManager.backupFileName(mapFile) + '.'
+		        + JOURNAL_EXTENSION);
+	}
+
+	static File checkpointFile(final File mapFile) {
+		return new File(MFileManager.backupDir(mapFile), MFileManager.backupFileName(mapFile) + '.'
+		        + CHECKPOINT_EXTENSION);
+	}
+
+	/** Starts a new journal for the map, e.g. after it has been saved. */
+	static void restart(final MapModel map) {
+		stop(map);
+		start(map);
+	}
+
+	private static void start(final MapModel map) {
+		if (!(map instanceof MMapModel) || map.isReadOnly() || map.getFile() == null
+		        || GraphicsEnvironment.isHeadless()
+		        || !ResourceController.getResourceController().getBooleanProperty(JOURNAL_PROPERTY)) {
+			return;
+		}
+		final ChangeJournal journal = new ChangeJournal(map, map.getFile());
+		try {
+			if (journal.open()) {
+				map.addExtension(journal);
+			}
+		}
+		catch (final IOException e) {
+			LogUtils.warn("Can not start change journal " + journal.journalFile, e);
+			journal.close(false);
+		}
+	}
+
+	private static void stop(final MapModel map) {
+		final ChangeJournal journal = (ChangeJournal) map.removeExtension(ChangeJournal.class);
+		if (journal != null) {
+			journal.close(true);
+		}
+	}
+
+	private ChangeJournal(final MapModel map, final File mapFile) {
+		this.map = map;
+		this.mapFile = mapFile;
+		journalFile = journalFile(mapFile);
+		checkpointFile = checkpointFile(mapFile);
+		changedNodes = new LinkedHashSet<NodeModel>();
+	}
+
+	private boolean open() throws IOException {
+		journalFile.getParentFile().mkdirs();
+		if (!lockJournal()) {
+			return false;
+		}
+		// recovery can replay the journal on plain map xml only
+		if (map.isSaved() && CompressedMapFile.getContainer(map) == null) {
+			resetJournal(JournalOutput.BASE_MAP_FILE, mapFile.lastModified());
+		}
+		else {
+			// the checkpoint of a saved map is written with its first change, so that opening does not write the whole map
+			checkpointRequested = true;
+			if (!map.isSaved()) {
+				scheduleFlush();
+			}
+		}
+		return true;
+	}
+
+	private boolean lockJournal() throws IOException {
+		journalChannel = FileChannel.open(journalFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		try {
+			lock = journalChannel.tryLock();
+		}
+		catch (final OverlappingFileLockException e) {
+			lock = null;
+		}
+		if (lock == null) {
+			LogUtils.info("Change journal " + journalFile + " is used by another process");
+			closeJournal();
+			return false;
+		}
+		return true;
+	}
+
+	private void resetJournal(final byte baseType, final long baseLastModified) throws IOException {
+		journalChannel.truncate(0);
+		out = new JournalOutput(Channels.newOutputStream(journalChannel));
+		out.writeHeader(baseType, baseLastModified);
+		out.flush();
+	}
+
+	private void writeCheckpoint() throws IOException {
+		final File tempFile = new File(checkpointFile.getPath() + ".tmp");
+		final MapWriter mapWriter = Controller.getCurrentModeController().getMapController().getMapWriter();
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tempFile),
+		    StandardCharsets.UTF_8))) {
+			mapWriter.writeMapAsXml(map, writer, Mode.FILE, true, false);
+		}
+		Files.move(tempFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		changedNodes.clear();
+		checkpointRequested = false;
+		resetJournal(JournalOutput.BASE_CHECKPOINT, checkpointFile.lastModified());
+	}
+
+	private void recordInsert(final NodeModel parent, final NodeModel child, final int index) {
+		if (!recordsChanges()) {
+			return;
+		}
+		try {
+			out.writeInsert(parent.createID(), index, nodeXml(child, true));
+		}
+		catch (final IOException e) {
+			fail(e);
+		}
+		scheduleFlush();
+	}
+
+	private void recordDelete(final NodeModel node) {
+		if (!recordsChanges()) {
+			return;
+		}
+		try {
+			out.writeDelete(node.createID());
+		}
+		catch (final IOException e) {
+			fail(e);
+		}
+		scheduleFlush();
+	}
+
+	private void recordMove(final NodeModel node, final NodeModel newParent, final int newIndex) {
+		if (!recordsChanges()) {
+			return;
+		}
+		try {
+			out.writeMove(node.createID(), newParent.createID(), newIndex);
+		}
+		catch (final IOException e) {
+			fail(e);
+		}
+		scheduleFlush();
+	}
+
+	private void recordUpdate(final NodeModel node) {
+		if (!recordsChanges()) {
+			return;
+		}
+		changedNodes.add(node);
+		scheduleFlush();
+	}
+
+	/** returns false while the journal waits for a checkpoint which is going to contain all changes */
+	private boolean recordsChanges() {
+		if (out != null) {
+			return true;
+		}
+		if (checkpointRequested) {
+			scheduleFlush();
+		}
+		return false;
+	}
+
+	private void requestCheckpoint() {
+		if (!recordsChanges()) {
+			return;
+		}
+		checkpointRequested = true;
+		scheduleFlush();
+	}
+
+	private void scheduleFlush() {
+		if (flushScheduled) {
+			return;
+		}
+		flushScheduled = true;
+		Controller.getCurrentController().getViewController().invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				flushScheduled = false;
+				flush();
+			}
+		});
+	}
+
+	private void flush() {
+		if (journalChannel == null) {
+			return;
+		}
+		try {
+			if (checkpointRequested || out.size() > MAX_JOURNAL_LENGTH) {
+				writeCheckpoint();
+				return;
+			}
+			for (final NodeModel node : changedNodes) {
+				if (isAttached(node)) {
+					out.writeUpdate(node.createID(), nodeXml(node, false));
+				}
+			}
+			changedNodes.clear();
+			out.flush();
+		}
+		catch (final IOException e) {
+			fail(e);
+		}
+	}
+
+	private boolean isAttached(final NodeModel node) {
+		NodeModel ancestor = node;
+		while (ancestor.getParentNode() != null) {
+			ancestor = ancestor.getParentNode();
+		}
+		return ancestor == map.getRootNode();
+	}
+
+	private String nodeXml(final NodeModel node, final boolean withChildren) throws IOException {
+		final StringWriter writer = new StringWriter();
+		Controller.getCurrentModeController().getMapController().getMapWriter()
+		    .writeNodeAsXml(writer, node, Mode.FILE, true, withChildren, false);
+		return writer.toString();
+	}
+
+	private void fail(final IOException e) {
+		LogUtils.warn("Change journal " + journalFile + " disabled", e);
+		map.removeExtension(this);
+		close(false);
+	}
+
+	private void closeJournal() {
+		out = null;
+		try {
+			if (lock != null && lock.isValid()) {
+				lock.release();
+			}
+			if (journalChannel != null) {
+				journalChannel.close();
+			}
+		}
+		catch (final IOException e) {
+			LogUtils.warn(e);
+		}
+		lock = null;
+		journalChannel = null;
+	}
+
+	private void close(final boolean deleteFiles) {
+		closeJournal();
+		changedNodes.clear();
+		if (deleteFiles) {
+			journalFile.delete();
+			checkpointFile.delete();
+		}
+	}
+}
@@ -0,0 +1,278 @@
+package org.freeplane.features.url.mindmapmode;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Vector;
+
+import org.freeplane.core.io.xml.XMLLocalParserFactory;
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.core.util.LogUtils;
+import org.freeplane.features.map.NodeBuilder;
+import org.freeplane.n3.nanoxml.IXMLParser;
+import org.freeplane.n3.nanoxml.StdXMLReader;
+import org.freeplane.n3.nanoxml.XMLElement;
+import org.freeplane.n3.nanoxml.XMLException;
+import org.freeplane.n3.nanoxml.XMLWriter;
+
+/**
+ * Replays the {@link ChangeJournal} left by a crashed session onto its base file
+ * and stores the result as the newest automatic save of the map,
+ * so that it is offered when the map is opened.
+ */
+class ChangeJournalRecovery {
+	private final Map<String, XMLElement> nodes = new HashMap<String, XMLElement>();
+
+	static void recover(final File mapFile) {
+		final File journalFile = ChangeJournal.journalFile(mapFile);
+		if (!journalFile.exists()) {
+			return;
+		}
+		final File checkpointFile = ChangeJournal.checkpointFile(mapFile);
+		try (FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.READ,
+		    StandardOpenOption.WRITE)) {
+			final FileLock lock;
+			try {
+				lock = channel.tryLock();
+			}
+			catch (final OverlappingFileLockException e) {
+				return;
+			}
+			if (lock == null) {
+				return;
+			}
+			try {
+				if (!recover(mapFile, journalFile, checkpointFile)) {
+					return;
+				}
+				checkpointFile.delete();
+				channel.truncate(0);
+			}
+			finally {
+				lock.release();
+			}
+		}
+		catch (final Exception e) {
+			LogUtils.warn("Can not recover changes from " + journalFile, e);
+			return;
+		}
+		journalFile.delete();
+	}
+
+	private static boolean recover(final File mapFile, final File journalFile, final File checkpointFile)
+	        throws IOException, XMLException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)))) {
+			File baseFile = baseFile(in, mapFile, checkpointFile);
+			final boolean replayJournal = baseFile != null;
+			if (!replayJournal) {
+				if (checkpointFile.lastModified() <= mapFile.lastModified()) {
+					return true;
+				}
+				baseFile = checkpointFile;
+			}
+			final XMLElement map;
+			try (Reader reader = new InputStreamReader(new FileInputStream(baseFile), StandardCharsets.UTF_8)) {
+				map = parse(reader);
+			}
+			final boolean changed = replayJournal && new ChangeJournalRecovery().replay(in, map);
+			if (!changed && baseFile == mapFile) {
+				return true;
+			}
+			final int numberOfFiles = ResourceController.getResourceController().getIntProperty(
+			    "number_of_different_files_for_automatic_save", 0);
+			final File recoveredFile = MFileManager.renameBackupFiles(MFileManager.backupDir(mapFile), mapFile,
+			    numberOfFiles, DoAutomaticSave.AUTOSAVE_EXTENSION);
+			if (recoveredFile == null) {
+				return false;
+			}
+			try (Writer writer = new OutputStreamWriter(new FileOutputStream(recoveredFile),
+			    StandardCharsets.UTF_8)) {
+				new XMLWriter(writer).write(map, false);
+			}
+			return true;
+		}
+	}
+
+	/** Returns the file the journal records apply to, or null if the journal is outdated. */
+	private static File baseFile(final DataInputStream in, final File mapFile, final File checkpointFile)
+	        throws IOException {
+		try {
+			if (in.readInt() != JournalOutput.MAGIC) {
+				return null;
+			}
+			final byte baseType = in.readByte();
+			final long baseLastModified = in.readLong();
+			final File baseFile = baseType == JournalOutput.BASE_CHECKPOINT ? checkpointFile : mapFile;
+			if (baseFile.lastModified() == baseLastModified) {
+				return baseFile;
+			}
+		}
+		catch (final EOFException e) {
+		}
+		return null;
+	}
+
+	private static XMLElement parse(final Reader reader) throws XMLException {
+		final IXMLParser parser = XMLLocalParserFactory.createLocalXMLParser();
+		parser.setReader(new StdXMLReader(reader));
+		return (XMLElement) parser.parse();
+	}
+
+	/**
+	 * Applies the journal records to the map element.
+	 * A record truncated by the crash ends the replay.
+	 *
+	 * @return true if any record was applied
+	 */
+	boolean replay(final InputStream input, final XMLElement map) throws IOException, XMLException {
+		final DataInputStream in = new DataInputStream(input);
+		index(map);
+		boolean changed = false;
+		for (;;) {
+			try {
+				final int type = in.read();
+				if (type < 0) {
+					return changed;
+				}
+				switch (type) {
+					case JournalOutput.INSERT:
+						insert(readString(in), in.readInt(), readString(in));
+						break;
+					case JournalOutput.UPDATE:
+						update(readString(in), readString(in));
+						break;
+					case JournalOutput.MOVE:
+						move(readString(in), readString(in), in.readInt());
+						break;
+					case JournalOutput.DELETE:
+						delete(readString(in));
+						break;
+					default:
+						LogUtils.warn("Unknown change journal record " + type);
+						return changed;
+				}
+				changed = true;
+			}
+			catch (final EOFException e) {
+				return changed;
+			}
+		}
+	}
+
+	private static String readString(final DataInputStream in) throws IOException {
+		final int length = in.readInt();
+		// length field of a torn record can contain any value
+		if (length < 0 || length > in.available()) {
+			throw new EOFException();
+		}
+		final byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private void index(final XMLElement element) {
+		if (isNode(element)) {
+			final String id = element.getAttribute("ID", null);
+			if (id != null) {
+				nodes.put(id, element);
+			}
+		}
+		for (final XMLElement child : element.getChildren()) {
+			index(child);
+		}
+	}
+
+	private void insert(final String parentId, final int index, final String xml) throws XMLException {
+		final XMLElement parent = nodes.get(parentId);
+		if (parent == null) {
+			return;
+		}
+		final XMLElement node = parse(new StringReader(xml));
+		insertNode(parent, node, index);
+		index(node);
+	}
+
+	private void update(final String id, final String xml) throws XMLException {
+		final XMLElement node = nodes.get(id);
+		if (node == null || node.hasAttribute("TREE_ID") || node.hasAttribute("CONTENT_ID")) {
+			return;
+		}
+		final XMLElement newContent = parse(new StringReader(xml));
+		for (final Object name : node.getAttributes().keySet()) {
+			node.removeAttribute((String) name);
+		}
+		final Enumeration<String> attributeNames = newContent.enumerateAttributeNames();
+		while (attributeNames.hasMoreElements()) {
+			final String name = attributeNames.nextElement();
+			node.setAttribute(name, newContent.getAttribute(name, null));
+		}
+		final Vector<XMLElement> children = node.getChildren();
+		for (int i = children.size() - 1; i >= 0; i--) {
+			if (!isNode(children.get(i))) {
+				node.removeChildAtIndex(i);
+			}
+		}
+		int position = 0;
+		for (final XMLElement child : newContent.getChildren()) {
+			node.insertChild(child, position++);
+		}
+	}
+
+	private void move(final String id, final String parentId, final int index) {
+		final XMLElement node = nodes.get(id);
+		final XMLElement parent = nodes.get(parentId);
+		if (node == null || parent == null) {
+			return;
+		}
+		detach(node);
+		insertNode(parent, node, index);
+	}
+
+	private void delete(final String id) {
+		final XMLElement node = nodes.get(id);
+		if (node != null) {
+			detach(node);
+		}
+	}
+
+	private static void detach(final XMLElement node) {
+		final XMLElement parent = node.getParent();
+		if (parent != null) {
+			parent.removeChild(node);
+		}
+	}
+
+	private static void insertNode(final XMLElement parent, final XMLElement node, final int index) {
+		final Vector<XMLElement> children = parent.getChildren();
+		int nodeCount = 0;
+		for (int i = 0; i < children.size(); i++) {
+			if (isNode(children.get(i)) && nodeCount++ == index) {
+				parent.insertChild(node, i);
+				return;
+			}
+		}
+		parent.addChild(node);
+	}
+
+	private static boolean isNode(final XMLElement element) {
+		return NodeBuilder.XML_NODE.equals(element.getName());
+	}
+}
@@ -0,0 +1,199 @@
+package org.freeplane.features.url.mindmapmode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.freeplane.core.util.FileUtils;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.MapWriter;
+import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.features.text.RichContentSource;
+import org.freeplane.features.text.RichContentStore;
+import org.freeplane.features.text.RichTextModel;
+import org.freeplane.features.url.UrlManager;
+
+/**
+ * Compressed map container: a zip file with the map xml as entry {@value #MAP_ENTRY}
+ * and large notes and details as separately compressed entries.
+ *
+ * Content entries are read when their notes and details are first accessed.
+ */
+class CompressedMapFile implements RichContentSource {
+	static final String FILE_EXTENSION_WITHOUT_DOT = "mmz";
+	static final String FILE_EXTENSION = "." + FILE_EXTENSION_WITHOUT_DOT;
+	static final String MAP_ENTRY = "map" + UrlManager.FREEPLANE_FILE_EXTENSION;
+	static final int MIN_STORED_CONTENT_LENGTH = 1024;
+	private static final String CONTENT_DIRECTORY = "content/";
+	private static final byte[] ZIP_SIGNATURE = { 'P', 'K', 3, 4 };
+
+	static class ContentStore implements RichContentStore {
+		private final ZipOutputStream zip;
+		private final Map<RichTextModel, String> storedContent = new LinkedHashMap<RichTextModel, String>();
+
+		ContentStore(ZipOutputStream zip) {
+			this.zip = zip;
+		}
+
+		@Override
+		public String store(String type, RichTextModel model, String xml) throws IOException {
+			if (xml.length() < MIN_STORED_CONTENT_LENGTH || storedContent.containsKey(model)) {
+				return null;
+			}
+			final String entry = CONTENT_DIRECTORY + (storedContent.size() + 1) + "."
+			        + String.valueOf(type).toLowerCase(Locale.ENGLISH) + ".html";
+			zip.putNextEntry(new ZipEntry(entry));
+			zip.write(xml.getBytes(StandardCharsets.UTF_8));
+			zip.closeEntry();
+			storedContent.put(model, entry);
+			return entry;
+		}
+
+		Map<RichTextModel, String> getStoredContent() {
+			return storedContent;
+		}
+	}
+
+	private final File file;
+	private ZipFile zipFile;
+	private final Map<RichTextModel, String> attachedContent = new WeakHashMap<RichTextModel, String>();
+
+	CompressedMapFile(File file) {
+		this.file = file;
+	}
+
+	static boolean hasCompressedFileExtension(File file) {
+		return FILE_EXTENSION_WITHOUT_DOT.equalsIgnoreCase(FileUtils.getExtension(file.getName()));
+	}
+
+	static boolean isCompressed(byte[] start, int length) {
+		if (length < ZIP_SIGNATURE.length) {
+			return false;
+		}
+		for (int i = 0; i < ZIP_SIGNATURE.length; i++) {
+			if (start[i] != ZIP_SIGNATURE[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static CompressedMapFile getContainer(MapModel map) {
+		final RichContentSource source = map.getExtension(RichContentSource.class);
+		return source instanceof CompressedMapFile ? (CompressedMapFile) source : null;
+	}
+
+	/**
+	 * Writes the map as compressed container.
+	 *
+	 * @return rich text models whose content has been stored in separate entries and their entry names
+	 */
+	static Map<RichTextModel, String> write(MapModel map, MapWriter mapWriter, OutputStream out)
+	        throws IOException {
+		final ZipOutputStream zip = new ZipOutputStream(out);
+		final ContentStore store = new ContentStore(zip);
+		final ByteArrayOutputStream mapXml = new ByteArrayOutputStream();
+		mapWriter.writeMapAsXml(map, new OutputStreamWriter(mapXml, StandardCharsets.UTF_8), Mode.FILE, true,
+		    false, Collections.singletonMap(RichContentStore.class, store));
+		zip.putNextEntry(new ZipEntry(MAP_ENTRY));
+		mapXml.writeTo(zip);
+		zip.closeEntry();
+		zip.finish();
+		return store.getStoredContent();
+	}
+
+	File getFile() {
+		return file;
+	}
+
+	InputStream openMap() throws IOException {
+		final ZipFile zipFile = zipFile();
+		final ZipEntry mapEntry = zipFile.getEntry(MAP_ENTRY);
+		if (mapEntry == null) {
+			throw new IOException("No map entry " + MAP_ENTRY + " in " + file);
+		}
+		return zipFile.getInputStream(mapEntry);
+	}
+
+	@Override
+	public void attach(final RichTextModel model, final String entry) {
+		synchronized (this) {
+			attachedContent.put(model, entry);
+		}
+		model.setContentLoader(new RichTextModel.ContentLoader() {
+			@Override
+			public String loadXml() {
+				try {
+					return load(entry);
+				}
+				catch (IOException e) {
+					throw new UncheckedIOException("Can not read " + entry + " from " + file, e);
+				}
+			}
+		});
+	}
+
+	synchronized String load(String entry) throws IOException {
+		final ZipFile zipFile = zipFile();
+		final ZipEntry zipEntry = zipFile.getEntry(entry);
+		if (zipEntry == null) {
+			throw new IOException("No entry " + entry + " in " + file);
+		}
+		try (InputStream in = zipFile.getInputStream(zipEntry)) {
+			final ByteArrayOutputStream content = new ByteArrayOutputStream((int) Math.max(zipEntry.getSize(), 32));
+			final byte[] buffer = new byte[8192];
+			for (int readBytes; (readBytes = in.read(buffer)) != -1;) {
+				content.write(buffer, 0, readBytes);
+			}
+			return new String(content.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+
+	/** Reads all content which has not been accessed yet, except for given models, into memory. */
+	void loadAttachedContent(Collection<RichTextModel> excludedModels) {
+		final ArrayList<RichTextModel> models;
+		synchronized (this) {
+			models = new ArrayList<RichTextModel>(attachedContent.keySet());
+			attachedContent.clear();
+		}
+		for (RichTextModel model : models) {
+			if (!excludedModels.contains(model)) {
+				model.getXml();
+			}
+		}
+	}
+
+	/** Releases the file handle, it is opened again if more content is accessed later. */
+	synchronized void close() {
+		if (zipFile != null) {
+			try {
+				zipFile.close();
+			}
+			catch (IOException e) {
+			}
+			zipFile = null;
+		}
+	}
+
+	private ZipFile zipFile() throws IOException {
+		if (zipFile == null) {
+			zipFile = new ZipFile(file);
+		}
+		return zipFile;
+	}
+}
@@ -19,14 +19,20 @@
  */
 package org.freeplane.features.url.mindmapmode;
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.TimerTask;
 
 import org.freeplane.core.resources.ResourceController;
 import org.freeplane.core.util.LogUtils;
 import org.freeplane.core.util.TextUtils;
 import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.MapWriter.Mode;
 import org.freeplane.features.map.mindmapmode.MMapModel;
 import org.freeplane.features.mode.Controller;
 import org.freeplane.features.mode.ModeController;
@@ -35,6 +41,7 @@ import org.freeplane.features.url.UrlManager;
 
 public class DoAutomaticSave extends TimerTask {
 	static final String AUTOSAVE_EXTENSION = "autosave";
+	static final String BACKGROUND_SAVE_PROPERTY = "background_automatic_save";
 	/**
 	 * This value is compared with the result of
 	 * getNumberOfChangesSinceLastSave(). If the values coincide, no further
@@ -59,6 +66,10 @@ public class DoAutomaticSave extends TimerTask {
 
 	@Override
 	public void run() {
+		/* Changes are recorded by the journal */
+		if (model.getExtension(ChangeJournal.class) != null) {
+			return;
+		}
 		/* Map is dirty enough? */
 		if (model.getNumberOfChangesSinceLastSave() == changeState) {
 			return;
@@ -94,6 +105,10 @@ public class DoAutomaticSave extends TimerTask {
 						else {
 							pathToStore = new File(file.getParent(), BACKUP_DIR);
 						}
+						if (ResourceController.getResourceController().getBooleanProperty(BACKGROUND_SAVE_PROPERTY)) {
+							saveSnapshotInBackground(file, pathToStore);
+							return;
+						}
 						pathToStore.mkdirs();
 						final File tempFile = MFileManager.renameBackupFiles(pathToStore, file, numberOfFiles,
 						    AUTOSAVE_EXTENSION);
@@ -120,4 +135,30 @@ public class DoAutomaticSave extends TimerTask {
 			LogUtils.severe(e);
 		}
 	}
+
+	/**
+	 * Serializes the map into memory on the event dispatch thread
+	 * and leaves only writing of the backup files to the {@link BackgroundAutomaticSaver}.
+	 * The user interface still waits for the serialization.
+	 */
+	private void saveSnapshotInBackground(final File file, final File pathToStore) throws IOException {
+		if (!file.canWrite()) {
+			return;
+		}
+		final MMapModel map = (MMapModel) model;
+		if (map.getTimerForAutomaticSaving() != null) {
+			map.getTimerForAutomaticSaving().cancel();
+		}
+		final BackgroundAutomaticSaver.SnapshotContent content = new BackgroundAutomaticSaver.SnapshotContent();
+		try {
+			final Writer writer = new BufferedWriter(new OutputStreamWriter(content, StandardCharsets.UTF_8));
+			Controller.getCurrentModeController().getMapController().getMapWriter()
+			    .writeMapAsXml(map, writer, Mode.FILE, true, false);
+		}
+		finally {
+			map.scheduleTimerForAutomaticSaving();
+		}
+		BackgroundAutomaticSaver.save(new BackgroundAutomaticSaver.Snapshot(file, pathToStore, numberOfFiles,
+		    filesShouldBeDeletedAfterShutdown, content));
+	}
 }
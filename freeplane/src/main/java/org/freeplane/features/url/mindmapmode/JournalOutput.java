@@ -0,0 +1,81 @@
+package org.freeplane.features.url.mindmapmode;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the records of a {@link ChangeJournal}.
+ *
+ * A journal starts with a header naming the file the records apply to,
+ * followed by records of a type byte and their fields.
+ * Strings are stored as their UTF-8 length followed by the UTF-8 bytes.
+ */
+class JournalOutput implements Closeable {
+	static final int MAGIC = 0x46504A31;
+	static final byte BASE_MAP_FILE = 0;
+	static final byte BASE_CHECKPOINT = 1;
+	static final byte INSERT = 1;
+	static final byte UPDATE = 2;
+	static final byte MOVE = 3;
+	static final byte DELETE = 4;
+
+	private final DataOutputStream out;
+
+	JournalOutput(final OutputStream out) {
+		this.out = new DataOutputStream(new BufferedOutputStream(out));
+	}
+
+	void writeHeader(final byte baseType, final long baseLastModified) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeByte(baseType);
+		out.writeLong(baseLastModified);
+	}
+
+	void writeInsert(final String parentId, final int index, final String xml) throws IOException {
+		out.writeByte(INSERT);
+		writeString(parentId);
+		out.writeInt(index);
+		writeString(xml);
+	}
+
+	void writeUpdate(final String id, final String xml) throws IOException {
+		out.writeByte(UPDATE);
+		writeString(id);
+		writeString(xml);
+	}
+
+	void writeMove(final String id, final String parentId, final int index) throws IOException {
+		out.writeByte(MOVE);
+		writeString(id);
+		writeString(parentId);
+		out.writeInt(index);
+	}
+
+	void writeDelete(final String id) throws IOException {
+		out.writeByte(DELETE);
+		writeString(id);
+	}
+
+	private void writeString(final String value) throws IOException {
+		final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	int size() {
+		return out.size();
+	}
+
+	void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+}
@@ -24,16 +24,15 @@ import java.awt.dnd.DropTarget;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.BufferedInputStream;
-import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.SequenceInputStream;
@@ -41,7 +40,6 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.nio.channels.FileLock;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -49,7 +47,9 @@ import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.Vector;
@@ -81,9 +81,11 @@ import org.freeplane.core.util.FileUtils;
 import org.freeplane.core.util.LogUtils;
 import org.freeplane.core.util.TextUtils;
 import org.freeplane.features.link.LinkController;
+import org.freeplane.features.map.IMapLifeCycleListener;
 import org.freeplane.features.map.MapChangeEvent;
 import org.freeplane.features.map.MapController;
 import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.MapWriter;
 import org.freeplane.features.map.MapWriter.Mode;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.map.mindmapmode.DocuMapAttribute;
@@ -92,6 +94,8 @@ import org.freeplane.features.map.mindmapmode.MMapModel;
 import org.freeplane.features.mode.Controller;
 import org.freeplane.features.mode.ModeController;
 import org.freeplane.features.mode.mindmapmode.MModeController;
+import org.freeplane.features.text.RichContentSource;
+import org.freeplane.features.text.RichTextModel;
 import org.freeplane.features.text.TextController;
 import org.freeplane.features.ui.IMapViewChangeListener;
 import org.freeplane.features.url.IMapInputStreamConverter;
@@ -120,7 +124,8 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 			}
 			final String extension = FileUtils.getExtension(f.getName());
 			if (extension != null) {
-				if (extension.equals(UrlManager.FREEPLANE_FILE_EXTENSION_WITHOUT_DOT)) {
+				if (extension.equals(UrlManager.FREEPLANE_FILE_EXTENSION_WITHOUT_DOT)
+				        || extension.equals(CompressedMapFile.FILE_EXTENSION_WITHOUT_DOT)) {
 					return true;
 				}
 				else {
@@ -164,7 +169,7 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 	}
 
 	/** prevents name conflicts with singleBackupDirectory in most cases (uses the file's hashcode). */
-	private static String backupFileName(final File file) {
+	static String backupFileName(final File file) {
 		if (singleBackupDirectory == null)
 			return file.getName();
 		return file.getName() + "." + file.hashCode();
@@ -193,7 +198,7 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 		}
 	}
 
-	private static File backupDir(final File file) {
+	static File backupDir(final File file) {
 		if (singleBackupDirectory != null)
 			return singleBackupDirectory;
 		return new File(file.getParentFile(), DoAutomaticSave.BACKUP_DIR);
@@ -256,6 +261,16 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 		super.init();
 		createActions();
 		createPreferences();
+		ChangeJournal.install(Controller.getCurrentModeController().getMapController());
+		Controller.getCurrentModeController().getMapController().addMapLifeCycleListener(new IMapLifeCycleListener() {
+			@Override
+			public void onRemove(MapModel map) {
+				final CompressedMapFile container = CompressedMapFile.getContainer(map);
+				if (container != null) {
+					container.close();
+				}
+			}
+		});
 		if (ResourceController.getResourceController().getBooleanProperty("single_backup_directory")) {
 			String value = ResourceController.getResourceController().getProperty("single_backup_directory_path");
 			// vb, 2010-10-14: I'm not exactly happy with putting this here - if you have a better place move it!
@@ -517,6 +532,9 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 		final byte[] buffer = new byte[versionInfoLength];
         try (final BufferedInputStream file = new BufferedInputStream(new FileInputStream(f))) {
             final int readCount = file.read(buffer);
+            if (CompressedMapFile.isCompressed(buffer, readCount)) {
+                return loadCompressedTree(map, f);
+            }
             final String mapStart = new String(buffer, StandardCharsets.UTF_8.name());
             final ByteArrayInputStream readBytes = new ByteArrayInputStream(buffer, 0, readCount);
             MapVersionInterpreter versionInterpreter = MapVersionInterpreter.getVersionInterpreter(mapStart);
@@ -533,6 +551,15 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
         }
 	}
 
+	private NodeModel loadCompressedTree(final MapModel map, final File f) throws IOException, XMLException {
+		final CompressedMapFile container = new CompressedMapFile(f);
+		map.putExtension(RichContentSource.class, container);
+		try (final Reader reader = new InputStreamReader(container.openMap(), StandardCharsets.UTF_8)) {
+			return Controller.getCurrentModeController().getMapController().getMapReader()
+			    .createNodeTreeFromXml(map, reader, Mode.FILE);
+		}
+	}
+
     private Reader openInputStream(final File file, final InputStream sequencedInput,
             MapVersionInterpreter versionInterpreter) throws IOException, FileNotFoundException {
         Reader reader;
@@ -771,6 +798,7 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 		if(! urlAfter.equals(urlBefore))
 			mapController.fireMapChanged(new MapChangeEvent(this, map, UrlManager.MAP_URL, urlBefore, urlAfter, false));
 		mapController.setSaved(map, true);
+		ChangeJournal.restart(map);
 		return true;
 	}
 
@@ -793,7 +821,8 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 		File f = chooser.getSelectedFile();
 		setLastCurrentDir(f.getParentFile());
 		final String ext = FileUtils.getExtension(f.getName());
-		if (!ext.equals(org.freeplane.features.url.UrlManager.FREEPLANE_FILE_EXTENSION_WITHOUT_DOT)) {
+		if (!ext.equals(org.freeplane.features.url.UrlManager.FREEPLANE_FILE_EXTENSION_WITHOUT_DOT)
+		        && !ext.equals(CompressedMapFile.FILE_EXTENSION_WITHOUT_DOT)) {
 			f = new File(f.getParent(), f.getName()
 			        + org.freeplane.features.url.UrlManager.FREEPLANE_FILE_EXTENSION);
 		}
@@ -859,28 +888,40 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 	/**@deprecated -- use MMapIO*/
 	@Deprecated
 	public void writeToFile(final MapModel map, final File file) throws FileNotFoundException, IOException {
-		FileLock lock = null;
-		try (final FileOutputStream out = new FileOutputStream(file)){
-			boolean lockedByOtherApplication = false;
-			try {
-				lock = out.getChannel().tryLock();
-				lockedByOtherApplication = lock == null;
-			}
-			catch (Exception e) {
-				LogUtils.warn(e.getMessage(), e);
+		final MapWriter mapWriter = Controller.getCurrentModeController().getMapController().getMapWriter();
+		// backups and automatic saves keep the content attached and store it by getXmlForSaving()
+		final boolean writesMapFile = file.getAbsoluteFile().equals(map.getFile());
+		final CompressedMapFile oldContainer = writesMapFile ? CompressedMapFile.getContainer(map) : null;
+		final boolean compressed = CompressedMapFile.hasCompressedFileExtension(file);
+		final Map<RichTextModel, String> storedContent = new HashMap<RichTextModel, String>();
+		final SaveStatistics statistics = new AtomicFileWriter().write(file, new AtomicFileWriter.Content() {
+			@Override
+			public void writeTo(OutputStream out) throws IOException {
+				if (compressed) {
+					storedContent.putAll(CompressedMapFile.write(map, mapWriter, out));
+				}
+				else {
+					mapWriter.writeMapAsXml(map, new OutputStreamWriter(out, StandardCharsets.UTF_8), Mode.FILE,
+					    true, false);
+				}
+				if (oldContainer != null) {
+					// the old container file can be replaced next
+					oldContainer.loadAttachedContent(storedContent.keySet());
+					oldContainer.close();
+				}
 			}
-			if (lockedByOtherApplication) {
-				throw new IOException("can not obtain file lock for " + file);
+		});
+		if (compressed && writesMapFile) {
+			final CompressedMapFile container = new CompressedMapFile(file);
+			for (Map.Entry<RichTextModel, String> content : storedContent.entrySet()) {
+				container.attach(content.getKey(), content.getValue());
 			}
-			final BufferedWriter fileout = new BufferedWriter(new OutputStreamWriter(out,//
-				StandardCharsets.UTF_8));
-			Controller.getCurrentModeController().getMapController().getMapWriter()
-			    .writeMapAsXml(map, fileout, Mode.FILE, true, false);
+			map.putExtension(RichContentSource.class, container);
 		}
-		finally {
-			if (lock != null && lock.isValid())
-				lock.release();
+		else if (oldContainer != null) {
+			map.removeExtension(RichContentSource.class);
 		}
+		LogUtils.info(statistics.toString());
 	}
 
 	public void setFile(final MapModel map, final File file) {
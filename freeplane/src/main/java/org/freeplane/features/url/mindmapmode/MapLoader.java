@@ -290,6 +290,7 @@ public class MapLoader{
 			}
 			else{
 				if(file.exists()){
+					ChangeJournalRecovery.recover(file);
 					File alternativeFile = fileManager().getAlternativeFile(file, AlternativeFileMode.AUTOSAVE);
 					if(alternativeFile != null){
 						if (alternativeFile.getAbsoluteFile().equals(file.getAbsoluteFile()) )
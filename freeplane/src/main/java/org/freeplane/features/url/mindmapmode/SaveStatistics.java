@@ -0,0 +1,53 @@
+package org.freeplane.features.url.mindmapmode;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timing and size of a single map save.
+ */
+public class SaveStatistics {
+	private final File file;
+	private final long bytesWritten;
+	private final long writeNanos;
+	private final long syncNanos;
+	private final long totalNanos;
+
+	SaveStatistics(File file, long bytesWritten, long writeNanos, long syncNanos, long totalNanos) {
+		this.file = file;
+		this.bytesWritten = bytesWritten;
+		this.writeNanos = writeNanos;
+		this.syncNanos = syncNanos;
+		this.totalNanos = totalNanos;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	/** time spent serializing the content into the temporary file */
+	public long getWriteNanos() {
+		return writeNanos;
+	}
+
+	/** time spent forcing the temporary file to the storage device */
+	public long getSyncNanos() {
+		return syncNanos;
+	}
+
+	/** time from opening the temporary file until the target file has been replaced */
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "saved " + file + ": " + bytesWritten + " bytes in " + TimeUnit.NANOSECONDS.toMillis(totalNanos)
+		        + " ms (write " + TimeUnit.NANOSECONDS.toMillis(writeNanos) + " ms, sync "
+		        + TimeUnit.NANOSECONDS.toMillis(syncNanos) + " ms)";
+	}
+}
@@ -25,7 +25,6 @@ import java.awt.Container;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics2D;
-import java.awt.image.RenderedImage;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
@@ -46,6 +45,7 @@ import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.mode.ModeController;
 import org.freeplane.features.ui.IMapViewChangeListener;
 import org.freeplane.features.ui.IMapViewManager;
+import org.freeplane.features.ui.MapImage;
 
 /**
  * @author Dimitry Polivaev
@@ -138,12 +138,12 @@ public class HeadlessMapViewController implements IMapViewManager {
 	}
 
 	@Override
-	public RenderedImage createImage(int dpi) {
+	public MapImage createImage(int dpi) {
 		throw new RuntimeException("Method not implemented");
 	}
 
 	@Override
-	public RenderedImage createImage(final Dimension slideSize, NodeModel placedNode, NodePosition placedNodePosition, int dpi) {
+	public MapImage createImage(final Dimension slideSize, NodeModel placedNode, NodePosition placedNodePosition, int dpi) {
 		throw new RuntimeException("Method not implemented");
 	}
 
@@ -239,6 +239,7 @@ public class MModeControllerFactory {
 		new MIconController(modeController).install(modeController);
 		new ProgressFactory().installActions(modeController);
 		final MapController mapController = modeController.getMapController();
+		FilterController.getController(controller).updateFiltersOnChanges(mapController);
 		EdgeController.install(new MEdgeController(modeController));
 		CloudController.install(new MCloudController(modeController));
 		NoteController.install(new MNoteController(modeController));
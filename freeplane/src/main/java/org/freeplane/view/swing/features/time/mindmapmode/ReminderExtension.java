@@ -20,10 +20,8 @@
 package org.freeplane.view.swing.features.time.mindmapmode;
 
 import java.util.Date;
-import java.util.Timer;
 
 import org.freeplane.core.extension.IExtension;
-import org.freeplane.core.util.SysUtils;
 import org.freeplane.features.map.IMapChangeListener;
 import org.freeplane.features.map.MapChangeEvent;
 import org.freeplane.features.map.NodeDeletionEvent;
@@ -46,7 +44,7 @@ public class ReminderExtension implements IExtension, IMapChangeListener {
 	private long remindUserAt = 0;
 	private PeriodUnit periodUnit;
 	private int period;
-	private Timer timer;
+	private ReminderScheduler scheduler;
 	private String script;
 	private TimerBlinkTask task;
 
@@ -99,20 +97,19 @@ public class ReminderExtension implements IExtension, IMapChangeListener {
     	this.script = script;
     }
 
-	public void scheduleTimer(final TimerBlinkTask task, final Date date) {
-		if (timer == null) {
-			timer = SysUtils.createTimer(getClass().getSimpleName());
-		}
-		timer.schedule(task, date, BLINKING_PERIOD);
+	void scheduleTimer(final ReminderScheduler scheduler, final TimerBlinkTask task, final Date date) {
+		deactivateTimer();
+		this.scheduler = scheduler;
+		scheduler.schedule(node.getMap(), task, date, BLINKING_PERIOD);
 		this.task = task;
 	}
 
 	public void deactivateTimer() {
-		if (timer == null) {
+		if (scheduler == null) {
 			return;
 		}
-		timer.cancel();
-		timer = null;
+		scheduler.cancel(node.getMap(), task);
+		scheduler = null;
 		task = null;
 	}
 
@@ -123,6 +123,7 @@ public class ReminderHook extends PersistentNodeHook implements IExtension {
 	static final String SCRIPT = "SCRIPT";
 	private static final Integer REMINDER_TOOLTIP = 12;
 	private ModeController modeController;
+	private final ReminderScheduler reminderScheduler;
 
 	/**
 	 *
@@ -130,6 +131,8 @@ public class ReminderHook extends PersistentNodeHook implements IExtension {
 	public ReminderHook(ModeController modeController){
 		super();
 		this.modeController = modeController;
+		reminderScheduler = new ReminderScheduler();
+		modeController.getMapController().addMapLifeCycleListener(reminderScheduler);
 		registerAction(new TimeManagementAction(this));
 		registerAction(new ReminderListAction());
 		registerAction(new OldReminderListAction());
@@ -326,7 +329,7 @@ public class ReminderHook extends PersistentNodeHook implements IExtension {
 
 	private void scheduleTimer(final ReminderExtension model, final TimerBlinkTask task) {
 		final Date date = new Date(model.getRemindUserAt());
-		model.scheduleTimer(task, date);
+		model.scheduleTimer(reminderScheduler, task, date);
 	}
 
 	ModeController getModeController() {
@@ -0,0 +1,70 @@
+package org.freeplane.view.swing.features.time.mindmapmode;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.Timer;
+
+import org.freeplane.features.map.IMapLifeCycleListener;
+import org.freeplane.features.map.MapModel;
+
+/**
+ * Runs the tasks of all reminders on a single daemon timer thread
+ * and cancels the tasks of all reminders of a map when the map is closed.
+ */
+class ReminderScheduler implements IMapLifeCycleListener {
+	private static final int PURGE_THRESHOLD = 256;
+	private Timer timer;
+	private final Map<MapModel, Set<TimerBlinkTask>> scheduledTasks = new HashMap<>();
+	private int cancelledTaskCount = 0;
+
+	ReminderScheduler() {
+		this(null);
+	}
+
+	ReminderScheduler(final Timer timer) {
+		this.timer = timer;
+	}
+
+	synchronized void schedule(final MapModel map, final TimerBlinkTask task, final Date firstTime, final long period) {
+		if (timer == null)
+			timer = new Timer(getClass().getSimpleName(), true);
+		timer.schedule(task, firstTime, period);
+		Set<TimerBlinkTask> mapTasks = scheduledTasks.get(map);
+		if (mapTasks == null) {
+			mapTasks = new HashSet<>();
+			scheduledTasks.put(map, mapTasks);
+		}
+		mapTasks.add(task);
+	}
+
+	synchronized void cancel(final MapModel map, final TimerBlinkTask task) {
+		task.cancel();
+		final Set<TimerBlinkTask> mapTasks = scheduledTasks.get(map);
+		if (mapTasks != null) {
+			mapTasks.remove(task);
+			if (mapTasks.isEmpty())
+				scheduledTasks.remove(map);
+		}
+		if (++cancelledTaskCount >= PURGE_THRESHOLD)
+			purge();
+	}
+
+	@Override
+	public synchronized void onRemove(final MapModel map) {
+		final Set<TimerBlinkTask> mapTasks = scheduledTasks.remove(map);
+		if (mapTasks == null)
+			return;
+		for (final TimerBlinkTask task : mapTasks)
+			task.cancel();
+		purge();
+	}
+
+	private void purge() {
+		cancelledTaskCount = 0;
+		if (timer != null)
+			timer.purge();
+	}
+}
@@ -0,0 +1,228 @@
+package org.freeplane.view.swing.map;
+
+import java.awt.Component;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.swing.SwingUtilities;
+
+import org.freeplane.core.util.LogUtils;
+import org.freeplane.features.filter.Filter;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.map.SummaryLevels;
+import org.freeplane.view.swing.map.ChildViewLayoutCache.ChildViewData;
+import org.freeplane.view.swing.map.VerticalNodeViewLayoutStrategy.LayoutInput;
+import org.freeplane.view.swing.map.VerticalNodeViewLayoutStrategy.LayoutResult;
+
+/**
+ * Lays out many invalid node views at once outside of the event dispatch thread.
+ * Content sizes and all other layout input are read from the views on the event dispatch thread,
+ * the layout is calculated on a background thread and applied to the views in the following validation.
+ * The views keep their previous bounds while the layout is calculated.
+ * The calculation is cancelled if any of its views is invalidated again.
+ */
+class BackgroundLayout {
+	static final String BACKGROUND_LAYOUT_PROPERTY = "background_layout";
+	private static final int MINIMAL_INVALID_VIEW_COUNT = 1000;
+	final private static ExecutorService executorService = Executors.newSingleThreadExecutor(r -> {
+		final Thread thread = new Thread(r, "BackgroundLayout");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private static class LayoutTask {
+		final NodeView view;
+		final LayoutInput input;
+		/** contains null for child views laid out before */
+		final LayoutTask[] childTasks;
+
+		LayoutTask(NodeView view, LayoutInput input, LayoutTask[] childTasks) {
+			this.view = view;
+			this.input = input;
+			this.childTasks = childTasks;
+		}
+	}
+
+	private static class PendingLayout {
+		final LayoutResult result;
+		final int layoutRevision;
+
+		PendingLayout(LayoutResult result, int layoutRevision) {
+			this.result = result;
+			this.layoutRevision = layoutRevision;
+		}
+	}
+
+	private class Calculation implements Runnable {
+		final LayoutTask rootTask;
+		final Set<NodeView> views;
+		final Map<NodeView, LayoutResult> results = new HashMap<>();
+		volatile boolean cancelled;
+		boolean failed;
+
+		Calculation(LayoutTask rootTask, Set<NodeView> views) {
+			this.rootTask = rootTask;
+			this.views = views;
+		}
+
+		@Override
+		public void run() {
+			try {
+				calculate(rootTask);
+			}
+			catch (CancellationException e) {
+				return;
+			}
+			catch (RuntimeException e) {
+				LogUtils.severe(e);
+				failed = true;
+			}
+			SwingUtilities.invokeLater(() -> onCalculated(this));
+		}
+
+		private LayoutResult calculate(LayoutTask task) {
+			if (cancelled)
+				throw new CancellationException();
+			final ChildViewData[] children = task.input.children.clone();
+			for (int i = 0; i < children.length; i++) {
+				final LayoutTask childTask = task.childTasks[i];
+				if (childTask != null)
+					children[i] = children[i].withLayout(calculate(childTask));
+			}
+			final LayoutResult result = new VerticalNodeViewLayoutStrategy(task.input.withChildren(children)).calculateLayout();
+			results.put(task.view, result);
+			return result;
+		}
+	}
+
+	final private MapView map;
+	final private int minimalInvalidViewCount;
+	final private Executor executor;
+	private Calculation calculation;
+	private Map<NodeView, PendingLayout> pendingLayouts = Collections.emptyMap();
+
+	BackgroundLayout(MapView map) {
+		this(map, MINIMAL_INVALID_VIEW_COUNT, executorService);
+	}
+
+	BackgroundLayout(MapView map, int minimalInvalidViewCount, Executor executor) {
+		this.map = map;
+		this.minimalInvalidViewCount = minimalInvalidViewCount;
+		this.executor = executor;
+	}
+
+	/** returns true if the view is laid out or is going to be laid out by the background layout */
+	boolean layout(NodeView view) {
+		if (! pendingLayouts.isEmpty()) {
+			final PendingLayout pendingLayout = pendingLayouts.remove(view);
+			if (pendingLayout != null && pendingLayout.layoutRevision == view.getLayoutRevision()) {
+				pendingLayout.result.applyTo(view);
+				return true;
+			}
+			if (view == map.getRoot())
+				pendingLayouts.clear();
+			return false;
+		}
+		if (calculation != null) {
+			if (! map.isPrinting())
+				return true;
+			cancel();
+			return false;
+		}
+		if (view != map.getRoot() || map.isPrinting() || ! map.isShowing()
+				|| countInvalidViews(view, 0) < minimalInvalidViewCount)
+			return false;
+		final Set<NodeView> views = new HashSet<>();
+		final LayoutTask rootTask = createTask(view, map.getFilter(), views);
+		if (rootTask == null)
+			return false;
+		calculation = new Calculation(rootTask, views);
+		executor.execute(calculation);
+		return true;
+	}
+
+	boolean isCalculating() {
+		return calculation != null;
+	}
+
+	private int countInvalidViews(NodeView view, int count) {
+		count++;
+		for (int i = 0; i < view.getComponentCount() && count < minimalInvalidViewCount; i++) {
+			final Component component = view.getComponent(i);
+			if (component instanceof NodeView && ! component.isValid())
+				count = countInvalidViews((NodeView) component, count);
+		}
+		return count;
+	}
+
+	/** returns null if the view can not be laid out in background */
+	private LayoutTask createTask(NodeView view, Filter filter, Set<NodeView> views) {
+		if (view.getContent() == null)
+			return null;
+		final int childViewCount = view.getComponentCount() - 1;
+		final NodeModel node = view.getModel();
+		final SummaryLevels summaryLevels = view.isFolded() ? SummaryLevels.ignoringChildNodes(node, filter) : SummaryLevels.of(node, filter);
+		if (childViewCount > summaryLevels.summaryLevels.length)
+			return null;
+		final ChildViewData[] children = new ChildViewData[childViewCount];
+		final LayoutTask[] childTasks = new LayoutTask[childViewCount];
+		for (int i = 0; i < childViewCount; i++) {
+			final Component component = view.getComponent(i);
+			if (! (component instanceof NodeView))
+				return null;
+			final NodeView child = (NodeView) component;
+			if (! child.isValid() && ! child.keepsVirtualizedLayout()) {
+				childTasks[i] = createTask(child, filter, views);
+				if (childTasks[i] == null)
+					return null;
+			}
+			children[i] = new ChildViewData(child, filter);
+		}
+		views.add(view);
+		return new LayoutTask(view, new LayoutInput(view, children, summaryLevels), childTasks);
+	}
+
+	private void onCalculated(Calculation calculation) {
+		if (this.calculation != calculation)
+			return;
+		if (calculation.failed) {
+			cancel();
+			return;
+		}
+		this.calculation = null;
+		pendingLayouts = new HashMap<>();
+		for (Map.Entry<NodeView, LayoutResult> entry : calculation.results.entrySet()) {
+			final NodeView view = entry.getKey();
+			view.invalidate();
+			pendingLayouts.put(view, new PendingLayout(entry.getValue(), view.getLayoutRevision()));
+		}
+		map.revalidate();
+		map.repaint();
+	}
+
+	/** called if a valid view is invalidated */
+	void viewInvalidated(NodeView view) {
+		if (calculation != null && calculation.views.contains(view))
+			cancel();
+	}
+
+	/** views of a cancelled calculation are laid out again on the event dispatch thread */
+	void cancel() {
+		final Calculation cancelledCalculation = calculation;
+		if (cancelledCalculation == null)
+			return;
+		calculation = null;
+		cancelledCalculation.cancelled = true;
+		for (NodeView view : cancelledCalculation.views)
+			view.invalidate();
+		map.revalidate();
+		map.repaint();
+	}
+}
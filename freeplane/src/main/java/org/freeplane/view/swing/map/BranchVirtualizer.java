@@ -0,0 +1,170 @@
+package org.freeplane.view.swing.map;
+
+import java.awt.Component;
+import java.awt.Rectangle;
+
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import org.freeplane.features.map.NodeModel;
+
+/**
+ * Removes views of branches far from the visible map area and creates them again
+ * when they come close to it. Virtualized branches keep their size,
+ * so that the layout of the remaining views does not change.
+ *
+ * Only views which have already been created and laid out can be released,
+ * because the size of a branch is calculated from its child views.
+ * While a map is opened, each branch is laid out and released as soon as its views are created,
+ * so that views of the whole map do not exist at the same time.
+ * Branches close to the visible area are created again after the first layout of the map.
+ */
+class BranchVirtualizer {
+	static final String RELEASE_OFFSCREEN_BRANCH_VIEWS_PROPERTY = "release_offscreen_branch_views";
+	private static final int UPDATE_DELAY = 200;
+	private static final int MINIMAL_VIRTUALIZED_VIEW_COUNT = 16;
+	final private MapView map;
+	final private Timer updateTimer;
+	private boolean releasesCreatedBranches;
+
+	BranchVirtualizer(MapView map) {
+		this.map = map;
+		updateTimer = new Timer(UPDATE_DELAY, e -> update());
+		updateTimer.setRepeats(false);
+		releasesCreatedBranches = true;
+	}
+
+	/** called after the views of the branch have been created, the root view completes the map creation */
+	void onBranchViewsCreated(NodeView view) {
+		if (! releasesCreatedBranches)
+			return;
+		if (view.isRoot()) {
+			releasesCreatedBranches = false;
+			scheduleUpdate();
+		}
+		else if (map.getBackgroundLayout() == null && canVirtualizeChildViews(view)) {
+			view.validate();
+			view.virtualizeChildViews();
+		}
+	}
+
+	void scheduleUpdate() {
+		updateTimer.restart();
+	}
+
+	void stop() {
+		updateTimer.stop();
+	}
+
+	private void update() {
+		if (map.isPrinting() || ! map.isDisplayable())
+			return;
+		if (! map.isValid()) {
+			scheduleUpdate();
+			return;
+		}
+		final NodeView root = map.getRoot();
+		if (updateChildren(root, root.getX(), root.getY(), keptArea())) {
+			// materialized views are checked again after they are laid out
+			scheduleUpdate();
+		}
+	}
+
+	// same area as used for painting connectors
+	private Rectangle keptArea() {
+		final Rectangle viewRect = ((JViewport) map.getParent()).getViewRect();
+		viewRect.x -= viewRect.width;
+		viewRect.y -= viewRect.height;
+		viewRect.width *= 3;
+		viewRect.height *= 3;
+		return viewRect;
+	}
+
+	private boolean updateChildren(NodeView view, int x, int y, Rectangle keptArea) {
+		boolean materialized = false;
+		for (NodeView child : view.getChildrenViews()) {
+			final int childX = x + child.getX();
+			final int childY = y + child.getY();
+			final boolean isKept = keptArea.intersects(childX, childY, child.getWidth(), child.getHeight());
+			if (child.areChildViewsVirtualized()) {
+				if (isKept) {
+					child.materializeChildViews();
+					materialized = true;
+				}
+			}
+			else if (! isKept && canVirtualizeChildViews(child))
+				child.virtualizeChildViews();
+			else
+				materialized |= updateChildren(child, childX, childY, keptArea);
+		}
+		return materialized;
+	}
+
+	private boolean canVirtualizeChildViews(NodeView view) {
+		for (NodeView selected : map.getSelection()) {
+			if (SwingUtilities.isDescendingFrom(selected, view))
+				return false;
+		}
+		final int descendantViewCount = countDescendantViewsWithoutConnectors(view);
+		return descendantViewCount >= MINIMAL_VIRTUALIZED_VIEW_COUNT;
+	}
+
+	/** returns -1 if any view in the branch has connectors, because they are painted using views of both ends */
+	private int countDescendantViewsWithoutConnectors(NodeView view) {
+		int count = 0;
+		final int componentCount = view.getComponentCount();
+		for (int i = 0; i < componentCount; i++) {
+			final Component component = view.getComponent(i);
+			if (component instanceof NodeView) {
+				final NodeView child = (NodeView) component;
+				if (map.hasConnectors(child.getModel()))
+					return -1;
+				final int childCount = countDescendantViewsWithoutConnectors(child);
+				if (childCount < 0)
+					return -1;
+				count += childCount + 1;
+			}
+		}
+		return count;
+	}
+
+	void materializeAll() {
+		releasesCreatedBranches = false;
+		materializeAll(map.getRoot());
+	}
+
+	private void materializeAll(NodeView view) {
+		view.materializeChildViews();
+		for (NodeView child : view.getChildrenViews())
+			materializeAll(child);
+	}
+
+	/** creates view of given node if it belongs to a virtualized branch */
+	NodeView materializeNodeView(NodeModel node) {
+		final NodeModel parent = node.getParentNode();
+		if (parent == null)
+			return null;
+		NodeView parentView = map.getNodeView(parent);
+		if (parentView == null)
+			parentView = materializeNodeView(parent);
+		if (parentView == null)
+			return null;
+		parentView.materializeChildViews();
+		return map.getNodeView(node);
+	}
+
+	/** virtualized branch layout becomes invalid if any node without view inside of it changes,
+	 * nodes having views are updated by the views themselves */
+	void onChangeInside(NodeModel node) {
+		if (map.getNodeView(node) != null)
+			return;
+		for (NodeModel ancestor = node.getParentNode(); ancestor != null; ancestor = ancestor.getParentNode()) {
+			final NodeView ancestorView = map.getNodeView(ancestor);
+			if (ancestorView != null) {
+				ancestorView.materializeChildViews();
+				return;
+			}
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package org.freeplane.view.swing.map;
+
+import org.freeplane.features.filter.Filter;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.map.SummaryLevels;
+import org.freeplane.features.map.SummaryNode;
+import org.freeplane.features.nodelocation.LocationModel;
+import org.freeplane.features.styles.MapViewLayout;
+import org.freeplane.view.swing.map.VerticalNodeViewLayoutStrategy.LayoutResult;
+
+/**
+ * Layout results of child views kept between layouts of their parent view.
+ * Child view data are read again only for child views invalidated since the previous layout,
+ * so that a change inside of one branch lays out only the views on the path to the root
+ * and takes sizes of all unchanged sibling branches from the cache.
+ */
+class ChildViewLayoutCache {
+	static class ChildViewData {
+		final NodeView view;
+		final int layoutRevision;
+		final boolean isLeft;
+		final boolean isFree;
+		final boolean isFirstGroupNode;
+		final boolean isContentVisible;
+		final boolean isHiddenSummary;
+		final boolean isLeftNode;
+		final boolean isSummaryNode;
+		final boolean hasVisibleContent;
+		final int width;
+		final int height;
+		final int topOverlap;
+		final int bottomOverlap;
+		final int cloudHeight;
+		final int contentX;
+		final int contentY;
+		final int contentWidth;
+		final int contentHeight;
+		final int shift;
+		final int hGap;
+		final int summaryHGap;
+
+		ChildViewData(NodeView view, Filter filter) {
+			this.view = view;
+			this.layoutRevision = view.getLayoutRevision();
+			final NodeModel node = view.getModel();
+			isLeft = view.isLeft();
+			isFree = view.isFree();
+			isFirstGroupNode = view.isFirstGroupNode();
+			isContentVisible = view.isContentVisible();
+			isHiddenSummary = node.isHiddenSummary();
+			isLeftNode = node.isLeft();
+			isSummaryNode = SummaryNode.isSummaryNode(node);
+			hasVisibleContent = node.hasVisibleContent(filter);
+			width = view.getWidth();
+			height = view.getHeight();
+			topOverlap = view.getTopOverlap();
+			bottomOverlap = view.getBottomOverlap();
+			cloudHeight = CloudHeightCalculator.INSTANCE.getAdditionalCloudHeigth(view);
+			contentX = view.getContent().getX();
+			contentY = view.getContent().getY();
+			contentWidth = view.getContent().getWidth();
+			contentHeight = view.getContent().getHeight();
+			shift = isContentVisible ? view.getShift() : 0;
+			summaryHGap = view.getZoomed(LocationModel.DEFAULT_HGAP_PX*7/12);
+			if (isContentVisible)
+				hGap = view.getHGap();
+			else if (view.isSummary())
+				hGap = summaryHGap;
+			else
+				hGap = 0;
+		}
+
+		private ChildViewData(ChildViewData data, LayoutResult layout) {
+			view = data.view;
+			layoutRevision = data.layoutRevision;
+			isLeft = data.isLeft;
+			isFree = data.isFree;
+			isFirstGroupNode = data.isFirstGroupNode;
+			isContentVisible = data.isContentVisible;
+			isHiddenSummary = data.isHiddenSummary;
+			isLeftNode = data.isLeftNode;
+			isSummaryNode = data.isSummaryNode;
+			hasVisibleContent = data.hasVisibleContent;
+			width = layout.width;
+			height = layout.height;
+			topOverlap = layout.topOverlap;
+			bottomOverlap = layout.bottomOverlap;
+			cloudHeight = data.cloudHeight;
+			contentX = layout.contentBounds.x;
+			contentY = layout.contentBounds.y;
+			contentWidth = layout.contentBounds.width;
+			contentHeight = layout.contentBounds.height;
+			shift = data.shift;
+			hGap = data.hGap;
+			summaryHGap = data.summaryHGap;
+		}
+
+		/** returns data of the child view after the given layout is applied to it */
+		ChildViewData withLayout(LayoutResult layout) {
+			return new ChildViewData(this, layout);
+		}
+
+		private boolean isUpToDate(NodeView view) {
+			return this.view == view && layoutRevision == view.getLayoutRevision();
+		}
+
+		private boolean hasSameSummaryLevelsAs(ChildViewData data) {
+			return isLeftNode == data.isLeftNode && isSummaryNode == data.isSummaryNode
+					&& isFirstGroupNode == data.isFirstGroupNode && hasVisibleContent == data.hasVisibleContent;
+		}
+	}
+
+	private static final ChildViewData[] NO_CHILDREN = new ChildViewData[0];
+	private final NodeView view;
+	private ChildViewData[] children = NO_CHILDREN;
+	private SummaryLevels summaryLevels;
+	private Filter filter;
+	private float zoom;
+	private MapViewLayout layoutType;
+	private boolean isFolded;
+	private boolean isLeft;
+	private boolean isSummary;
+
+	ChildViewLayoutCache(NodeView view) {
+		this.view = view;
+	}
+
+	/** child views are expected to be valid */
+	ChildViewData[] getChildren(int childViewCount) {
+		final MapView map = view.getMap();
+		final Filter filter = map.getFilter();
+		final boolean keepsChildren = isValidFor(childViewCount, filter, map);
+		if (! keepsChildren) {
+			this.filter = filter;
+			zoom = map.getZoom();
+			layoutType = map.getLayoutType();
+			isFolded = view.isFolded();
+			isLeft = view.getModel().isLeft();
+			isSummary = view.isSummary();
+			children = new ChildViewData[childViewCount];
+			summaryLevels = null;
+		}
+		for (int i = 0; i < childViewCount; i++) {
+			final NodeView child = (NodeView) view.getComponent(i);
+			final ChildViewData oldData = children[i];
+			if (oldData == null || ! oldData.isUpToDate(child)) {
+				final ChildViewData newData = new ChildViewData(child, filter);
+				if (oldData == null || ! newData.hasSameSummaryLevelsAs(oldData))
+					summaryLevels = null;
+				children[i] = newData;
+			}
+		}
+		return children;
+	}
+
+	/** cached child data can only be used if the parent view has the same child views and settings,
+	 * because child shifts depend on the number of visible siblings */
+	private boolean isValidFor(int childViewCount, Filter filter, MapView map) {
+		if (children.length != childViewCount || this.filter != filter || zoom != map.getZoom()
+				|| layoutType != map.getLayoutType() || isFolded != view.isFolded()
+				|| isLeft != view.getModel().isLeft() || isSummary != view.isSummary())
+			return false;
+		for (int i = 0; i < childViewCount; i++) {
+			if (children[i].view != view.getComponent(i))
+				return false;
+		}
+		return true;
+	}
+
+	SummaryLevels getSummaryLevels() {
+		if (summaryLevels == null) {
+			final NodeModel node = view.getModel();
+			summaryLevels = isFolded ? SummaryLevels.ignoringChildNodes(node, filter) : SummaryLevels.of(node, filter);
+		}
+		return summaryLevels;
+	}
+}
@@ -0,0 +1,105 @@
+package org.freeplane.view.swing.map;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.freeplane.view.swing.map.link.ILinkView;
+
+/**
+ * Painted link views put into a uniform grid by their bounds,
+ * so that repainting and hit testing only visit views near the given area.
+ * Views without known bounds or covering too many grid cells are always visited.
+ */
+class LinkViewIndex {
+	private static final int CELL_SIZE = 256;
+	private static final int MAXIMAL_CELL_COUNT_PER_VIEW = 256;
+	private static final int COLLISION_TOLERANCE = 16;
+	private final List<ILinkView> views = new ArrayList<>();
+	private final Map<Long, List<Integer>> cells = new HashMap<>();
+	private final BitSet unboundedViews = new BitSet();
+	private final Rectangle coveredArea;
+	private final String showConnectors;
+	private final boolean hideSingleEndConnectors;
+
+	/** @param coveredArea area containing all views added to the index, null means the area is unknown */
+	LinkViewIndex(Rectangle coveredArea, String showConnectors, boolean hideSingleEndConnectors) {
+		this.coveredArea = coveredArea;
+		this.showConnectors = showConnectors;
+		this.hideSingleEndConnectors = hideSingleEndConnectors;
+	}
+
+	boolean canPaint(Rectangle clip, String showConnectors, boolean hideSingleEndConnectors) {
+		return coveredArea != null && clip != null && coveredArea.contains(clip)
+				&& this.showConnectors == showConnectors && this.hideSingleEndConnectors == hideSingleEndConnectors;
+	}
+
+	/** @param bounds painted view bounds or null if they are unknown */
+	void add(ILinkView view, Rectangle bounds) {
+		final int index = views.size();
+		views.add(view);
+		if (bounds == null || cellCount(bounds) > MAXIMAL_CELL_COUNT_PER_VIEW) {
+			unboundedViews.set(index);
+			return;
+		}
+		for (int column = firstCell(bounds.x); column <= lastCell(bounds.x, bounds.width); column++)
+			for (int row = firstCell(bounds.y); row <= lastCell(bounds.y, bounds.height); row++)
+				cells.computeIfAbsent(cellKey(column, row), k -> new ArrayList<>(4)).add(index);
+	}
+
+	List<ILinkView> getViews() {
+		return Collections.unmodifiableList(views);
+	}
+
+	/** returns views in the order they were added */
+	List<ILinkView> getViewsIntersecting(Rectangle area) {
+		final BitSet found = (BitSet) unboundedViews.clone();
+		for (int column = firstCell(area.x); column <= lastCell(area.x, area.width); column++)
+			for (int row = firstCell(area.y); row <= lastCell(area.y, area.height); row++) {
+				final List<Integer> cell = cells.get(cellKey(column, row));
+				if (cell != null)
+					for (int index : cell)
+						found.set(index);
+			}
+		final List<ILinkView> foundViews = new ArrayList<>(found.cardinality());
+		for (int index = found.nextSetBit(0); index >= 0; index = found.nextSetBit(index + 1))
+			foundViews.add(views.get(index));
+		return foundViews;
+	}
+
+	ILinkView detectCollision(Point p) {
+		final List<ILinkView> candidates = getViewsIntersecting(new Rectangle(p.x - COLLISION_TOLERANCE, p.y - COLLISION_TOLERANCE,
+				2 * COLLISION_TOLERANCE, 2 * COLLISION_TOLERANCE));
+		for (ILinkView view : candidates) {
+			if (view.detectCollision(p, true))
+				return view;
+		}
+		for (ILinkView view : candidates) {
+			if (view.detectCollision(p, false))
+				return view;
+		}
+		return null;
+	}
+
+	private static long cellCount(Rectangle bounds) {
+		return (long)(lastCell(bounds.x, bounds.width) - firstCell(bounds.x) + 1)
+				* (lastCell(bounds.y, bounds.height) - firstCell(bounds.y) + 1);
+	}
+
+	private static int firstCell(int coordinate) {
+		return Math.floorDiv(coordinate, CELL_SIZE);
+	}
+
+	private static int lastCell(int coordinate, int length) {
+		return Math.floorDiv(coordinate + Math.max(length, 1) - 1, CELL_SIZE);
+	}
+
+	private static long cellKey(int column, int row) {
+		return ((long)column << 32) | (row & 0xFFFFFFFFL);
+	}
+}
@@ -60,13 +60,13 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.Vector;
 
 import javax.swing.JComponent;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JViewport;
 import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeListener;
 
 import org.freeplane.core.extension.Configurable;
 import org.freeplane.core.extension.HighlightedElements;
@@ -193,7 +193,7 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 		}
 
 		private void centerNode(final NodeModel node, final boolean slowScroll) {
-			final NodeView nodeView = getNodeView(node);
+			final NodeView nodeView = getMaterializedNodeView(node);
 			if (nodeView != null) {
 				mapScroller.scrollNode(nodeView, ScrollingDirective.SCROLL_NODE_TO_CENTER, slowScroll);
 			}
@@ -212,7 +212,7 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 		}
 
 		private void moveNodeTo(final NodeModel node, final NodePosition position, final boolean slowScroll) {
-			final NodeView nodeView = getNodeView(node);
+			final NodeView nodeView = getMaterializedNodeView(node);
 			if (nodeView != null) {
 				mapScroller.scrollNode(nodeView, ScrollingDirective.of(position), slowScroll);
 			}
@@ -259,19 +259,19 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 
         @Override
         public void preserveNodeLocationOnScreen(NodeModel node) {
-            final NodeView nodeView = getNodeView(node);
+            final NodeView nodeView = getMaterializedNodeView(node);
             MapView.this.preserveNodeLocationOnScreen(nodeView);
         }
 
         @Override
         public void preserveNodeLocationOnScreen(final NodeModel node, final float horizontalPoint, final float verticalPoint) {
-            final NodeView nodeView = getNodeView(node);
+            final NodeView nodeView = getMaterializedNodeView(node);
             MapView.this.preserveNodeLocationOnScreen(nodeView, horizontalPoint, verticalPoint);
         }
 
 		@Override
 		public void scrollNodeTreeToVisible(final NodeModel  node) {
-			final NodeView nodeView = getNodeView(node);
+			final NodeView nodeView = getMaterializedNodeView(node);
 			if(nodeView != null)
 				mapScroller.scrollNodeTreeToVisible(nodeView);
 		}
@@ -279,7 +279,7 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 
 		@Override
 		public void makeTheSelected(final NodeModel node) {
-			final NodeView nodeView = getNodeView(node);
+			final NodeView nodeView = getMaterializedNodeView(node);
 			if (nodeView != null) {
 				addSelected(nodeView, false);
 			}
@@ -287,14 +287,14 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 
 		@Override
 		public void scrollNodeToVisible(final NodeModel node) {
-			mapScroller.scrollNodeToVisible(getNodeView(node));
+			mapScroller.scrollNodeToVisible(getMaterializedNodeView(node));
 		}
 
 		@Override
 		public void selectAsTheOnlyOneSelected(final NodeModel node) {
 			if(node.isVisible(filter))
 				display(node);
-			final NodeView nodeView = getNodeView(node);
+			final NodeView nodeView = getMaterializedNodeView(node);
 			if (nodeView != null) {
 				MapView.this.selectAsTheOnlyOneSelected(nodeView);
 			}
@@ -304,12 +304,12 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 		public void selectBranch(final NodeModel node, final boolean extend) {
 			if(! extend)
 				selectAsTheOnlyOneSelected(node);
-			addBranchToSelection(getNodeView(node));
+			addBranchToSelection(getMaterializedNodeView(node));
 		}
 
 		@Override
 		public void selectContinuous(final NodeModel node) {
-			MapView.this.selectContinuous(getNodeView(node));
+			MapView.this.selectContinuous(getMaterializedNodeView(node));
 		}
 
 		@Override
@@ -332,7 +332,7 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 		@Override
 		public void toggleSelected(final NodeModel node) {
 			display(node);
-			MapView.this.toggleSelected(getNodeView(node));
+			MapView.this.toggleSelected(getMaterializedNodeView(node));
 		}
 
         @Override
@@ -343,7 +343,7 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
             for(final NodeModel node : nodes) {
             	if(node != null && node.isVisible(filter)){
             		display(node);
-            		final NodeView nodeView = getNodeView(node);
+            		final NodeView nodeView = getMaterializedNodeView(node);
             		if (nodeView != null) {
             			views.add(nodeView);
             		}
@@ -370,6 +370,7 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 	    @Override
         public void setFilter(Filter filter) {
 	        MapView.this.filter = filter;
+	        linkViewIndex = null;
 	    }
 
 
@@ -386,6 +387,7 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 		}
 
 		private void select(final NodeView node) {
+			node.materializeChildViews();
 			clear();
 			selectedSet.add(node);
 			selectedList.add(node);
@@ -402,6 +404,7 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 			}
 			else{
 				if(selectedSet.add(node)){
+					node.materializeChildViews();
 					selectedList.add(node);
 					onSelectionChange(node);
 					return true;
@@ -539,6 +542,7 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 	}
 
 	private static final int margin = 20;
+	private static final int LINK_VIEW_MARGIN = 30;
 	static boolean printOnWhiteBackground;
 	static private IFreeplanePropertyListener propertyChangeListener;
 	public static final String RESOURCES_SELECTED_NODE_COLOR = "standardselectednodecolor";
@@ -568,7 +572,7 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 	static Color standardSelectColor;
 	static Color standardSelectRectangleColor;
 	/** Used to identify a right click onto a link curve. */
-	private Vector<ILinkView> arrowLinkViews;
+	private LinkViewIndex linkViewIndex;
 	private Color background = null;
 	private JComponent backgroundComponent;
 	private Rectangle boundingRectangle = null;
@@ -602,7 +606,10 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 	private static boolean outlineViewFitsWindowWidth;
 
 	final private ComponentAdapter viewportSizeChangeListener;
-	private final INodeChangeListener connectorChangeListener;
+	private final INodeChangeListener nodeChangeListener;
+	private final BranchVirtualizer branchVirtualizer;
+	private final BackgroundLayout backgroundLayout;
+	private final ChangeListener viewportChangeListener;
 	public static final String SPOTLIGHT_ENABLED = "spotlight";
 
 	static {
@@ -676,14 +683,30 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 		final String fitToViewportAsString = MapStyle.getController(modeController).getPropertySetDefault(model,
 		    MapStyle.FIT_TO_VIEWPORT);
 		fitToViewport = Boolean.parseBoolean(fitToViewportAsString);
-		connectorChangeListener = new INodeChangeListener() {
+		nodeChangeListener = new INodeChangeListener() {
 			@Override
 			public void nodeChanged(final NodeChangeEvent event) {
-				if(NodeLinks.CONNECTOR.equals(event.getProperty()) &&
-						event.getNode().getMap().equals(getModel()))
+				if(! event.getNode().getMap().equals(getModel()))
+					return;
+				linkViewIndex = null;
+				if(branchVirtualizer != null)
+					branchVirtualizer.onChangeInside(event.getNode());
+				if(NodeLinks.CONNECTOR.equals(event.getProperty()))
 					repaint();
 			}
 		};
+		if(ResourceController.getResourceController().getBooleanProperty(BranchVirtualizer.RELEASE_OFFSCREEN_BRANCH_VIEWS_PROPERTY)) {
+			branchVirtualizer = new BranchVirtualizer(this);
+			viewportChangeListener = e -> branchVirtualizer.scheduleUpdate();
+		}
+		else {
+			branchVirtualizer = null;
+			viewportChangeListener = null;
+		}
+		if(ResourceController.getResourceController().getBooleanProperty(BackgroundLayout.BACKGROUND_LAYOUT_PROPERTY))
+			backgroundLayout = new BackgroundLayout(this);
+		else
+			backgroundLayout = null;
 		addPropertyChangeListener(SPOTLIGHT_ENABLED, repaintOnClientPropertyChangeListener);
 	}
 
@@ -722,17 +745,31 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 	@Override
     public void addNotify() {
 	    super.addNotify();
-	    modeController.getMapController().addUINodeChangeListener(connectorChangeListener);
+	    modeController.getMapController().addUINodeChangeListener(nodeChangeListener);
 	    getParent().addComponentListener(viewportSizeChangeListener);
+	    if(viewportChangeListener != null)
+	    	((JViewport) getParent()).addChangeListener(viewportChangeListener);
     }
 
 	@Override
     public void removeNotify() {
-		modeController.getMapController().removeNodeChangeListener(connectorChangeListener);
+		modeController.getMapController().removeNodeChangeListener(nodeChangeListener);
 		getParent().removeComponentListener(viewportSizeChangeListener);
+		if(viewportChangeListener != null) {
+			((JViewport) getParent()).removeChangeListener(viewportChangeListener);
+			branchVirtualizer.stop();
+		}
+		if(backgroundLayout != null)
+			backgroundLayout.cancel();
 	    super.removeNotify();
     }
 
+	@Override
+	public void invalidate() {
+		linkViewIndex = null;
+		super.invalidate();
+	}
+
 	boolean isLayoutCompleted() {
 	    final JViewport viewPort = (JViewport) getParent();
 		final Dimension visibleDimension = viewPort.getExtentSize();
@@ -817,29 +854,20 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 	}
 
 	private void onSelectionChange(final NodeView node) {
-		if(SHOW_CONNECTORS_FOR_SELECTION == showConnectors)
+		if(SHOW_CONNECTORS_FOR_SELECTION == showConnectors) {
+			linkViewIndex = null;
 			repaint(getVisibleRect());
+		}
 		else
 			node.repaintSelected();
 	}
 
 	public Object detectCollision(final Point p) {
-		if (arrowLinkViews == null) {
+		if (linkViewIndex == null) {
 			return null;
 		}
-		for (int i = 0; i < arrowLinkViews.size(); ++i) {
-			final ILinkView arrowView = arrowLinkViews.get(i);
-			if (arrowView.detectCollision(p, true)) {
-				return arrowView.getModel();
-			}
-		}
-		for (int i = 0; i < arrowLinkViews.size(); ++i) {
-			final ILinkView arrowView = arrowLinkViews.get(i);
-			if (arrowView.detectCollision(p, false)) {
-				return arrowView.getModel();
-			}
-		}
-		return null;
+		final ILinkView arrowView = linkViewIndex.detectCollision(p);
+		return arrowView != null ? arrowView.getModel() : null;
 	}
 
 	/**
@@ -851,6 +879,8 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 			return;
 		isPreparedForPrinting = false;
 		isPrinting = false;
+		if (branchVirtualizer != null)
+			branchVirtualizer.scheduleUpdate();
 		if (zoom == 1f) {
 			getRoot().updateAll();
 			synchronized (getTreeLock()) {
@@ -882,9 +912,8 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 	public Rectangle getInnerBounds() {
 		final Rectangle innerBounds = rootView.getBounds();
 		final Rectangle maxBounds = new Rectangle(0, 0, getWidth(), getHeight());
-		if(arrowLinkViews != null)
-			for (int i = 0; i < arrowLinkViews.size(); ++i) {
-				final ILinkView arrowView = arrowLinkViews.get(i);
+		if(linkViewIndex != null)
+			for (final ILinkView arrowView : linkViewIndex.getViews()) {
 				arrowView.increaseBounds(innerBounds);
 			}
 		return innerBounds.intersection(maxBounds);
@@ -915,6 +944,18 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 		return nodeView;
     }
 
+	void onBranchViewsCreated(final NodeView view) {
+		if (branchVirtualizer != null)
+			branchVirtualizer.onBranchViewsCreated(view);
+	}
+
+	private NodeView getMaterializedNodeView(final NodeModel node) {
+		final NodeView nodeView = getNodeView(node);
+		if (nodeView != null || branchVirtualizer == null)
+			return nodeView;
+		return branchVirtualizer.materializeNodeView(node);
+	}
+
 	public NodeView getNodeView(final NodeModel node) {
 		if (node == null) {
 			return null;
@@ -1393,6 +1434,7 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
    @Override
    public void setBackground(Color background) {
        super.setBackground(background);
+       linkViewIndex = null;
        updateBackground();
    }
 
@@ -1541,14 +1583,22 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 
 	@Override
 	public void onNodeDeleted(final NodeDeletionEvent nodeDeletionEvent) {
+		if(branchVirtualizer != null)
+			branchVirtualizer.onChangeInside(nodeDeletionEvent.parent);
 	}
 
 	@Override
 	public void onNodeInserted(final NodeModel parent, final NodeModel child, final int newIndex) {
+		if(branchVirtualizer != null)
+			branchVirtualizer.onChangeInside(parent);
 	}
 
 	@Override
 	public void onNodeMoved(final NodeMoveEvent nodeMoveEvent) {
+		if(branchVirtualizer != null) {
+			branchVirtualizer.onChangeInside(nodeMoveEvent.oldParent);
+			branchVirtualizer.onChangeInside(nodeMoveEvent.newParent);
+		}
 	}
 
 	@Override
@@ -1749,7 +1799,7 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 						else
 							break;
 						arrowLink.paint(graphics);
-						arrowLinkViews.add(arrowLink);
+						linkViewIndex.add(arrowLink, getPaintedBounds(arrowLink));
 					}
 				}
 			}
@@ -1759,16 +1809,47 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 		}
 	}
 
+	private Rectangle getPaintedBounds(final ILinkView arrowLink) {
+		final Rectangle bounds = new Rectangle(0, 0, -1, -1);
+		arrowLink.increaseBounds(bounds);
+		if(bounds.isEmpty())
+			return null;
+		final int linkViewMargin = getZoomed(LINK_VIEW_MARGIN);
+		bounds.grow(linkViewMargin, linkViewMargin);
+		return bounds;
+	}
+
 	private void paintConnectors(final Graphics2D graphics) {
-		arrowLinkViews = new Vector<ILinkView>();
 		final Object renderingHint = getModeController().getController().getMapViewManager().setEdgesRenderingHint(
 		    graphics);
-		if(hasNodeLinks())
-			paintConnectors(rootView, graphics, new HashSet<ConnectorModel>());
+		final Rectangle clip = graphics.getClipBounds();
+		if(! isPrinting && linkViewIndex != null && linkViewIndex.canPaint(clip, showConnectors, hideSingleEndConnectors)) {
+			final Font font = graphics.getFont();
+			for (final ILinkView arrowLink : linkViewIndex.getViewsIntersecting(clip))
+				arrowLink.paint(graphics);
+			graphics.setFont(font);
+		}
+		else {
+			final Rectangle connectorArea = isPrinting ? null : getConnectorArea();
+			linkViewIndex = new LinkViewIndex(connectorArea, showConnectors, hideSingleEndConnectors);
+			if(hasNodeLinks())
+				paintConnectors(rootView, rootView.getX(), rootView.getY(), connectorArea, graphics, new HashSet<ConnectorModel>());
+		}
 		graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, renderingHint);
 	}
 
-	private void paintConnectors(final NodeView source, final Graphics2D graphics, final HashSet<ConnectorModel> alreadyPaintedConnectors) {
+	private Rectangle getConnectorArea() {
+		final JViewport vp = (JViewport) getParent();
+		final Rectangle viewRect = vp.getViewRect();
+		viewRect.x -= viewRect.width;
+		viewRect.y -= viewRect.height;
+		viewRect.width *= 3;
+		viewRect.height *= 3;
+		return viewRect;
+	}
+
+	private void paintConnectors(final NodeView source, final int x, final int y, final Rectangle connectorArea,
+	                             final Graphics2D graphics, final HashSet<ConnectorModel> alreadyPaintedConnectors) {
 		final NodeModel node = source.getModel();
 		final Collection<? extends NodeLinkModel> outLinks = getLinksFrom(node);
 		paintConnectors(outLinks, graphics, alreadyPaintedConnectors);
@@ -1781,21 +1862,16 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 				continue;
 			}
 			final NodeView child = (NodeView) component;
-			if (!isPrinting) {
+			final int childX = x + child.getX();
+			final int childY = y + child.getY();
+			if (connectorArea != null) {
 				if(!child.isHierarchyVisible())
 					continue;
-				final Rectangle bounds = SwingUtilities.convertRectangle(source, child.getBounds(), this);
-				final JViewport vp = (JViewport) getParent();
-				final Rectangle viewRect = vp.getViewRect();
-				viewRect.x -= viewRect.width;
-				viewRect.y -= viewRect.height;
-				viewRect.width *= 3;
-				viewRect.height *= 3;
-				if (!viewRect.intersects(bounds)) {
+				if (!connectorArea.intersects(childX, childY, child.getWidth(), child.getHeight())) {
 					continue;
 				}
 			}
-			paintConnectors(child, graphics, alreadyPaintedConnectors);
+			paintConnectors(child, childX, childY, connectorArea, graphics, alreadyPaintedConnectors);
 		}
 	}
 
@@ -1803,6 +1879,20 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 		return LinkController.getController(getModeController()).hasNodeLinks(getModel(), this);
 	}
 
+	BackgroundLayout getBackgroundLayout() {
+		return backgroundLayout;
+	}
+
+	boolean hasConnectors(final NodeModel node) {
+		for (final NodeLinkModel link : getLinksFrom(node))
+			if (link instanceof ConnectorModel)
+				return true;
+		for (final NodeLinkModel link : getLinksTo(node))
+			if (link instanceof ConnectorModel)
+				return true;
+		return false;
+	}
+
 	private Collection<? extends NodeLinkModel> getLinksTo(final NodeModel node) {
 		return LinkController.getController(getModeController()).getLinksTo(node, this);
 	}
@@ -1879,6 +1969,12 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 	public void preparePrinting() {
 		isPrinting = true;
 		if (!isPreparedForPrinting) {
+			if (branchVirtualizer != null) {
+				branchVirtualizer.materializeAll();
+				synchronized (getTreeLock()) {
+					validateTree();
+				}
+			}
 			if (zoom == 1f) {
 				getRoot().updateAll();
 				synchronized (getTreeLock()) {
@@ -2289,7 +2385,8 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
     }
 
 	void scrollView() {
-		if(isDisplayable())
+		// anchored nodes are scrolled back after the background layout is applied
+		if(isDisplayable() && (backgroundLayout == null || ! backgroundLayout.isCalculating()))
 			mapScroller.scrollView();
 	}
 
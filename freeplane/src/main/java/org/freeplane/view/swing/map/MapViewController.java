@@ -33,7 +33,6 @@ import java.awt.RenderingHints;
 import java.awt.SystemColor;
 import java.awt.Window;
 import java.awt.image.BufferedImage;
-import java.awt.image.RenderedImage;
 import java.beans.PropertyChangeEvent;
 import java.io.File;
 import java.net.MalformedURLException;
@@ -77,6 +76,7 @@ import org.freeplane.features.styles.MapStyle;
 import org.freeplane.features.styles.MapViewLayout;
 import org.freeplane.features.ui.IMapViewChangeListener;
 import org.freeplane.features.ui.IMapViewManager;
+import org.freeplane.features.ui.MapImage;
 import org.freeplane.features.ui.ViewController;
 
 /**
@@ -371,7 +371,7 @@ public class MapViewController implements IMapViewManager , IMapViewChangeListen
 	}
 
 	@Override
-	public RenderedImage createImage(int dpi) {
+	public MapImage createImage(int dpi) {
 		final MapView view = getMapView();
 		if (view == null) {
 			return null;
@@ -382,7 +382,7 @@ public class MapViewController implements IMapViewManager , IMapViewChangeListen
 	}
 
 	@Override
-	public RenderedImage createImage(final Dimension slideSize, NodeModel placedNode, NodePosition placedNodePosition, int dpi) {
+	public MapImage createImage(final Dimension slideSize, NodeModel placedNode, NodePosition placedNodePosition, int dpi) {
 		final MapView view = getMapView();
 		if (view == null) {
 			return null;
@@ -409,16 +409,22 @@ public class MapViewController implements IMapViewManager , IMapViewChangeListen
 		return createImage(dpi, printedGraphicsBounds);
 	}
 
-	public RenderedImage createImage(int dpi, final Rectangle printedArea) {
+	public MapImage createImage(int dpi, final Rectangle printedArea) {
 		final MapView view = getMapView();
+		final double scaleFactor = getImageScaleFactor(dpi);
+		if (ResourceController.getResourceController().getBooleanProperty(TiledMapImage.TILED_IMAGE_EXPORT_PROPERTY)
+				&& printedArea.height * scaleFactor > TiledMapImage.STRIP_HEIGHT) {
+			final TiledMapImage tiledImage = new TiledMapImage(view, printedArea, scaleFactor);
+			return new MapImage(tiledImage, tiledImage::close);
+		}
 		view.preparePrinting();
 		final BufferedImage myImage = printToImage(dpi, view, printedArea);
 		view.endPrinting();
-		return myImage;
+		return new MapImage(myImage);
 	}
 
 	private BufferedImage printToImage(int dpi, final MapView view, final Rectangle innerBounds) {
-		double scaleFactor = (double) dpi / (double) (UITools.FONT_SCALE_FACTOR * 72);
+		double scaleFactor = getImageScaleFactor(dpi);
 
 		int imageWidth = (int) Math.ceil(innerBounds.width * scaleFactor);
 		int imageHeight = (int) Math.ceil(innerBounds.height * scaleFactor);
@@ -439,6 +445,10 @@ public class MapViewController implements IMapViewManager , IMapViewChangeListen
 		return myImage;
 	}
 
+	private double getImageScaleFactor(int dpi) {
+		return (double) dpi / (double) (UITools.FONT_SCALE_FACTOR * 72);
+	}
+
 	/* (non-Javadoc)
 	 * @see org.freeplane.core.frame.IMapViewController#getBackgroundColor(org.freeplane.core.model.NodeModel)
 	 */
@@ -134,6 +134,9 @@ public class NodeView extends JComponent implements INodeView {
 	private int topOverlap;
 	private int bottomOverlap;
 	private boolean isFolded;
+	private boolean childViewsVirtualized;
+	private int layoutRevision;
+	private ChildViewLayoutCache childViewLayoutCache;
 	private DashVariant edgeDash = DashVariant.DEFAULT;
 
 	public static final int DETAIL_VIEWER_POSITION = 2;
@@ -827,6 +830,39 @@ public class NodeView extends JComponent implements INodeView {
 			NodeViewFactory.getInstance().newNodeView(newNode, getMap(), this, index);
 	}
 
+	/** removes views of all descendants keeping the current size and layout of the branch */
+	void virtualizeChildViews() {
+		preferredChild = null;
+		childViewLayoutCache = null;
+		for (NodeView child : getChildrenViews()) {
+			child.remove();
+		}
+		childViewsVirtualized = true;
+	}
+
+	void materializeChildViews() {
+		if(! childViewsVirtualized)
+			return;
+		childViewsVirtualized = false;
+		addChildViews();
+		revalidate();
+	}
+
+	boolean areChildViewsVirtualized() {
+		return childViewsVirtualized;
+	}
+
+	/** virtualized branch keeps its layout only as long as its content size does not change */
+	boolean keepsVirtualizedLayout() {
+		if(! childViewsVirtualized)
+			return false;
+		if(! ContentSizeCalculator.INSTANCE.calculateContentSize(this).equals(getContent().getSize())) {
+			// views can not be added during validation, the old layout is kept until they are created
+			SwingUtilities.invokeLater(this::materializeChildViews);
+		}
+		return true;
+	}
+
 	/* fc, 25.1.2004: Refactoring necessary: should call the model. */
 	public boolean isChildOf(final NodeView myNodeView) {
 		return getParentView() == myNodeView;
@@ -908,6 +944,10 @@ public class NodeView extends JComponent implements INodeView {
 		if (mainView == null) {
 			return;
 		}
+		// changed content size invalidates the layout of virtualized branch
+		if (childViewsVirtualized && ! property.equals(HistoryInformationModel.class)) {
+			materializeChildViews();
+		}
 		if (property.equals(NodeModel.NODE_ICON) || property.equals(HierarchicalIcons.ICONS)) {
 			mainView.updateIcons(this);
 			revalidate();
@@ -947,6 +987,10 @@ public class NodeView extends JComponent implements INodeView {
 
 	@Override
 	public void onNodeDeleted(NodeDeletionEvent nodeDeletionEvent) {
+		if (childViewsVirtualized) {
+			materializeChildViews();
+			return;
+		}
 		if (nodeDeletionEvent.index >= getComponentCount() - 1) {
 			return;
 		}
@@ -997,6 +1041,10 @@ public class NodeView extends JComponent implements INodeView {
 		if (isFolded) {
 			return;
 		}
+		if (childViewsVirtualized) {
+			materializeChildViews();
+			return;
+		}
 		addChildView(child, index);
 		numberingChanged(index + 1);
 		revalidate();
@@ -1387,6 +1435,7 @@ public class NodeView extends JComponent implements INodeView {
 		for (NodeView child : getChildrenViews()) {
 			child.remove();
 		}
+		childViewsVirtualized = false;
 		addChildViews();
 		map.revalidateSelecteds();
 		revalidate();
@@ -1557,6 +1606,8 @@ public class NodeView extends JComponent implements INodeView {
 	}
 
 	public void updateAll() {
+		materializeChildViews();
+		childViewLayoutCache = null;
 		update();
 		invalidate();
 		for (final NodeView child : getChildrenViews()) {
@@ -1586,6 +1637,28 @@ public class NodeView extends JComponent implements INodeView {
 		super.validateTree();
 	}
 
+	@Override
+	public void invalidate() {
+		layoutRevision++;
+		if(map != null && isValid()) {
+			final BackgroundLayout backgroundLayout = map.getBackgroundLayout();
+			if(backgroundLayout != null)
+				backgroundLayout.viewInvalidated(this);
+		}
+		super.invalidate();
+	}
+
+	/** changes whenever the view is invalidated, so that its parent knows which child layouts have changed */
+	int getLayoutRevision() {
+		return layoutRevision;
+	}
+
+	ChildViewLayoutCache getChildViewLayoutCache() {
+		if(childViewLayoutCache == null)
+			childViewLayoutCache = new ChildViewLayoutCache(this);
+		return childViewLayoutCache;
+	}
+
 	public void addContent(JComponent component, int pos) {
 		component.putClientProperty("NODE_VIEW_CONTENT_POSITION", pos);
 		final Container contentPane = getContentPane();
@@ -175,6 +175,7 @@ class NodeViewFactory {
 		newView.update();
         fireNodeViewCreated(newView);
         newView.addChildViews();
+        newView.getMap().onBranchViewsCreated(newView);
 	}
 
 	private static final IMouseListener DETAILS_MOUSE_LISTENER = new DetailsViewMouseListener();
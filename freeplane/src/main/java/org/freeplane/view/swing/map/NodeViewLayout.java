@@ -38,7 +38,10 @@ public class NodeViewLayout implements INodeViewLayout{
 
     public void layoutContainer(final Container c) {
         NodeView view = (NodeView) c;
- 		if(view.getContent() != null){
+ 		if(view.getContent() != null && ! view.keepsVirtualizedLayout()){
+        	final BackgroundLayout backgroundLayout = view.getMap().getBackgroundLayout();
+        	if(backgroundLayout != null && backgroundLayout.layout(view))
+        		return;
         	final VerticalNodeViewLayoutStrategy layoutData = new VerticalNodeViewLayoutStrategy(view);
         	layoutData.calculateLayoutData();
         }
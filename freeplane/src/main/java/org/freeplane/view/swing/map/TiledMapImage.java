@@ -0,0 +1,207 @@
+package org.freeplane.view.swing.map;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.SystemColor;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Vector;
+
+import org.freeplane.core.ui.svgicons.GraphicsHints;
+
+/**
+ * Map image consisting of horizontal strips which are printed only when the image encoder requests their pixels.
+ * Encoders reading the image row by row like the PNG writer keep only one strip in memory,
+ * so that memory use does not depend on the map size.
+ * The map view stays prepared for printing until the image is closed.
+ */
+class TiledMapImage implements RenderedImage {
+	static final String TILED_IMAGE_EXPORT_PROPERTY = "tiled_image_export";
+	static final int STRIP_HEIGHT = 512;
+	private static final BufferedImage SAMPLE_IMAGE = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+	private final MapView view;
+	private final Rectangle printedArea;
+	private final double scaleFactor;
+	private final int width;
+	private final int height;
+	private final SampleModel sampleModel;
+	private int stripIndex = -1;
+	private BufferedImage strip;
+
+	TiledMapImage(MapView view, Rectangle printedArea, double scaleFactor) {
+		this.view = view;
+		this.printedArea = printedArea;
+		this.scaleFactor = scaleFactor;
+		width = (int) Math.ceil(printedArea.width * scaleFactor);
+		height = (int) Math.ceil(printedArea.height * scaleFactor);
+		sampleModel = SAMPLE_IMAGE.getSampleModel().createCompatibleSampleModel(width, STRIP_HEIGHT);
+		view.preparePrinting();
+	}
+
+	void close() {
+		strip = null;
+		stripIndex = -1;
+		view.endPrinting();
+	}
+
+	private BufferedImage getStrip(int index) {
+		if (index != stripIndex) {
+			strip = null;
+			strip = printStrip(index);
+			stripIndex = index;
+		}
+		return strip;
+	}
+
+	private BufferedImage printStrip(int index) {
+		final BufferedImage stripImage = new BufferedImage(width, STRIP_HEIGHT, BufferedImage.TYPE_INT_RGB);
+		final Graphics2D g = stripImage.createGraphics();
+		try {
+			Color background = view.getBackground();
+			if (background == null) {
+				background = SystemColor.window;
+			}
+			g.setBackground(background);
+			g.clearRect(0, 0, width, STRIP_HEIGHT);
+			g.translate(0, -index * STRIP_HEIGHT);
+			g.scale(scaleFactor, scaleFactor);
+			g.translate(-printedArea.x, -printedArea.y);
+			g.setRenderingHint(GraphicsHints.CACHE_ICONS, Boolean.TRUE);
+			view.print(g);
+		}
+		finally {
+			g.dispose();
+		}
+		return stripImage;
+	}
+
+	@Override
+	public Vector<RenderedImage> getSources() {
+		return null;
+	}
+
+	@Override
+	public Object getProperty(String name) {
+		return Image.UndefinedProperty;
+	}
+
+	@Override
+	public String[] getPropertyNames() {
+		return null;
+	}
+
+	@Override
+	public ColorModel getColorModel() {
+		return SAMPLE_IMAGE.getColorModel();
+	}
+
+	@Override
+	public SampleModel getSampleModel() {
+		return sampleModel;
+	}
+
+	@Override
+	public int getWidth() {
+		return width;
+	}
+
+	@Override
+	public int getHeight() {
+		return height;
+	}
+
+	@Override
+	public int getMinX() {
+		return 0;
+	}
+
+	@Override
+	public int getMinY() {
+		return 0;
+	}
+
+	@Override
+	public int getNumXTiles() {
+		return 1;
+	}
+
+	@Override
+	public int getNumYTiles() {
+		return (height + STRIP_HEIGHT - 1) / STRIP_HEIGHT;
+	}
+
+	@Override
+	public int getMinTileX() {
+		return 0;
+	}
+
+	@Override
+	public int getMinTileY() {
+		return 0;
+	}
+
+	@Override
+	public int getTileWidth() {
+		return width;
+	}
+
+	@Override
+	public int getTileHeight() {
+		return STRIP_HEIGHT;
+	}
+
+	@Override
+	public int getTileGridXOffset() {
+		return 0;
+	}
+
+	@Override
+	public int getTileGridYOffset() {
+		return 0;
+	}
+
+	@Override
+	public Raster getTile(int tileX, int tileY) {
+		return getStrip(tileY).getRaster().createTranslatedChild(0, tileY * STRIP_HEIGHT);
+	}
+
+	@Override
+	public Raster getData() {
+		return getData(new Rectangle(0, 0, width, height));
+	}
+
+	@Override
+	public Raster getData(Rectangle rect) {
+		final WritableRaster data = Raster.createWritableRaster(sampleModel.createCompatibleSampleModel(rect.width, rect.height),
+		    rect.getLocation());
+		copyData(rect.intersection(new Rectangle(0, 0, width, height)), data);
+		return data;
+	}
+
+	@Override
+	public WritableRaster copyData(WritableRaster raster) {
+		final WritableRaster data = raster != null ? raster
+				: Raster.createWritableRaster(sampleModel.createCompatibleSampleModel(width, height), null);
+		copyData(data.getBounds().intersection(new Rectangle(0, 0, width, height)), data);
+		return data;
+	}
+
+	private void copyData(Rectangle area, WritableRaster data) {
+		if (area.isEmpty())
+			return;
+		final int firstStrip = area.y / STRIP_HEIGHT;
+		final int lastStrip = (area.y + area.height - 1) / STRIP_HEIGHT;
+		for (int index = firstStrip; index <= lastStrip; index++) {
+			final Raster tile = getTile(0, index);
+			final Rectangle copiedArea = tile.getBounds().intersection(area);
+			data.setRect(tile.createChild(copiedArea.x, copiedArea.y, copiedArea.width, copiedArea.height,
+			    copiedArea.x, copiedArea.y, null));
+		}
+	}
+}
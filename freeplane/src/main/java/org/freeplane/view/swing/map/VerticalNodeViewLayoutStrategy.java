@@ -22,28 +22,112 @@ package org.freeplane.view.swing.map;
 
 import java.awt.Component;
 import java.awt.Dimension;
+import java.awt.Rectangle;
 import java.util.Arrays;
 
 import javax.swing.JComponent;
 
 import org.freeplane.core.ui.components.UITools;
 import org.freeplane.core.util.LogUtils;
-import org.freeplane.features.filter.Filter;
-import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.map.SummaryLevels;
 import org.freeplane.features.nodelocation.LocationModel;
+import org.freeplane.view.swing.map.ChildViewLayoutCache.ChildViewData;
 
 class VerticalNodeViewLayoutStrategy {
-	
+
+	/** all data needed to calculate a layout, read from the views on the event dispatch thread */
+	static class LayoutInput {
+		final ChildViewData[] children;
+		final SummaryLevels summaryLevels;
+		final int[] summaryNodeIndices;
+		final Dimension contentSize;
+		final int spaceAround;
+		final int cloudHeight;
+		final boolean isContentVisible;
+		final int minimalDistanceBetweenChildren;
+		final int defaultVGap;
+		final boolean isHiddenSummary;
+
+		LayoutInput(NodeView view, ChildViewData[] children, SummaryLevels summaryLevels) {
+			this.children = children;
+			this.summaryLevels = summaryLevels;
+			final int indexCount = Math.min(children.length, summaryLevels.summaryLevels.length);
+			summaryNodeIndices = new int[indexCount];
+			for (int i = 0; i < indexCount; i++)
+				summaryNodeIndices[i] = summaryLevels.summaryLevels[i] == 0 ? summaryLevels.findSummaryNodeIndex(i) : SummaryLevels.NODE_NOT_FOUND;
+			contentSize = new Dimension(ContentSizeCalculator.INSTANCE.calculateContentSize(view));
+			spaceAround = view.getSpaceAround();
+			cloudHeight = CloudHeightCalculator.INSTANCE.getAdditionalCloudHeigth(view);
+			isContentVisible = view.isContentVisible();
+			minimalDistanceBetweenChildren = view.getChildDistanceContainer().getMinimalDistanceBetweenChildren();
+			defaultVGap = view.getMap().getZoomed(LocationModel.DEFAULT_VGAP.toBaseUnits());
+			isHiddenSummary = view.getModel().isHiddenSummary();
+		}
+
+		private LayoutInput(LayoutInput input, ChildViewData[] children) {
+			this.children = children;
+			summaryLevels = input.summaryLevels;
+			summaryNodeIndices = input.summaryNodeIndices;
+			contentSize = input.contentSize;
+			spaceAround = input.spaceAround;
+			cloudHeight = input.cloudHeight;
+			isContentVisible = input.isContentVisible;
+			minimalDistanceBetweenChildren = input.minimalDistanceBetweenChildren;
+			defaultVGap = input.defaultVGap;
+			isHiddenSummary = input.isHiddenSummary;
+		}
+
+		LayoutInput withChildren(ChildViewData[] children) {
+			return new LayoutInput(this, children);
+		}
+	}
+
+	/** calculated bounds of content and child views */
+	static class LayoutResult {
+		final boolean isContentVisible;
+		final Rectangle contentBounds;
+		final int[] childX;
+		final int[] childY;
+		final int width;
+		final int height;
+		final int topOverlap;
+		final int bottomOverlap;
+
+		LayoutResult(boolean isContentVisible, Rectangle contentBounds, int[] childX, int[] childY,
+				int width, int height, int topOverlap, int bottomOverlap) {
+			this.isContentVisible = isContentVisible;
+			this.contentBounds = contentBounds;
+			this.childX = childX;
+			this.childY = childY;
+			this.width = width;
+			this.height = height;
+			this.topOverlap = topOverlap;
+			this.bottomOverlap = bottomOverlap;
+		}
+
+		void applyTo(NodeView view) {
+			final JComponent content = view.getContent();
+			content.setVisible(isContentVisible);
+			content.setBounds(contentBounds);
+			for (int i = 0; i < childX.length; i++)
+				view.getComponent(i).setLocation(childX[i], childY[i]);
+			view.setSize(width, height);
+			view.setTopOverlap(topOverlap);
+			view.setBottomOverlap(bottomOverlap);
+		}
+	}
+
 	static private boolean wrongChildComponentsReported = false;
 	
 	private int childViewCount;
 	private final int spaceAround;
 	private final NodeView view;
+	private final LayoutInput input;
 
 	private final int[] xCoordinates;
 	private final int[] yCoordinates;
 	private final boolean[] isChildFreeNode;
+	private final ChildViewData[] children;
 	private SummaryLevels viewLevels;
 	private int left;
 	private int childContentHeight;
@@ -55,6 +139,13 @@ class VerticalNodeViewLayoutStrategy {
 		this.view = view;
 		childViewCount = view.getComponentCount() - 1;
 		layoutChildViews(view);
+		final ChildViewLayoutCache childViewLayoutCache = view.getChildViewLayoutCache();
+		final ChildViewData[] children = childViewLayoutCache.getChildren(childViewCount);
+		final SummaryLevels summaryLevels = childViewLayoutCache.getSummaryLevels();
+		if(childViewCount > summaryLevels.summaryLevels.length)
+			reportMissingNodes(view, summaryLevels);
+		this.input = new LayoutInput(view, children, summaryLevels);
+		this.children = children;
 		this.left = 0;
 		this.childContentHeight = 0;
 		this.top = 0;
@@ -63,7 +154,34 @@ class VerticalNodeViewLayoutStrategy {
 		this.xCoordinates = new int[childViewCount];
 		this.yCoordinates = new int[childViewCount];
 		this.isChildFreeNode = new boolean[childViewCount];
-		spaceAround = view.getSpaceAround();
+		spaceAround = input.spaceAround;
+	}
+
+	/** used to calculate layout outside of the event dispatch thread, child views are not accessed */
+	VerticalNodeViewLayoutStrategy(LayoutInput input) {
+		this.view = null;
+		this.input = input;
+		this.children = input.children;
+		childViewCount = children.length;
+		this.left = 0;
+		this.childContentHeight = 0;
+		this.top = 0;
+		rightSideCoordinatesAreSet = false;
+		leftSideCoordinaresAreSet = false;
+		this.xCoordinates = new int[childViewCount];
+		this.yCoordinates = new int[childViewCount];
+		this.isChildFreeNode = new boolean[childViewCount];
+		spaceAround = input.spaceAround;
+	}
+
+	private void reportMissingNodes(NodeView view, SummaryLevels summaryLevels) {
+		final String errorMessage = "Bad node view child components: missing node for component " + summaryLevels.summaryLevels.length;
+		UITools.errorMessage(errorMessage);
+		System.err.println(errorMessage);
+		for (int i = 0; i < view.getComponentCount(); i++){
+			final Component component = view.getComponent(i);
+			System.err.println(component);
+		}
 	}
 
 	private void layoutChildViews(NodeView view) {
@@ -84,18 +202,20 @@ class VerticalNodeViewLayoutStrategy {
 
 	private void setFreeChildNodes(final boolean isLeft) {
 		for (int i = 0; i < childViewCount; i++) {
-			final NodeView child = (NodeView) view.getComponent(i);
-			if (child.isLeft() == isLeft)
-				this.isChildFreeNode[i] = child.isFree();
+			final ChildViewData child = children[i];
+			if (child.isLeft == isLeft)
+				this.isChildFreeNode[i] = child.isFree;
 		}
 	}
 	public void calculateLayoutData() {
-		final NodeModel node = view.getModel();
-		Filter filter = view.getMap().getFilter();
-		viewLevels = view.isFolded() ? SummaryLevels.ignoringChildNodes(node, filter) : SummaryLevels.of(node, filter);
+		calculateLayout().applyTo(view);
+	}
+
+	LayoutResult calculateLayout() {
+		viewLevels = input.summaryLevels;
 		for(boolean isLeft : viewLevels.sides)
 			calculateLayoutData(isLeft);
-		applyLayoutToChildComponents();
+		return calculateChildBounds();
 	}
 	
 	private void calculateLayoutData(final boolean isLeft) {
@@ -106,8 +226,8 @@ class VerticalNodeViewLayoutStrategy {
 	}
 
 	private void calculateLayoutY(final boolean isLeft) {
-		final int minimalDistanceBetweenChildren = view.getChildDistanceContainer().getMinimalDistanceBetweenChildren();
-		final Dimension contentSize = ContentSizeCalculator.INSTANCE.calculateContentSize(view);
+		final int minimalDistanceBetweenChildren = input.minimalDistanceBetweenChildren;
+		final Dimension contentSize = input.contentSize;
 		int childContentHeightSum = 0;
 		int top = 0;
 		int level = viewLevels.highestSummaryLevel + 1;
@@ -120,27 +240,18 @@ class VerticalNodeViewLayoutStrategy {
 		final int[] groupLowerYCoordinate = new int[level];
 
 		for (int childViewIndex = 0; childViewIndex < childViewCount; childViewIndex++) {
-			final NodeView child = (NodeView) view.getComponent(childViewIndex);
-			if (child.isLeft() == isLeft) {
-				final int childHeight = child.getHeight() - 2 * spaceAround;
+			final ChildViewData child = children[childViewIndex];
+			if (child.isLeft == isLeft) {
+				final int childHeight = child.height - 2 * spaceAround;
 				final int oldLevel = level;
-				if(childViewIndex >= viewLevels.summaryLevels.length){
-					final String errorMessage = "Bad node view child components: missing node for component " + childViewIndex;
-					UITools.errorMessage(errorMessage);
-					System.err.println(errorMessage);
-					for (int i = 0; i < view.getComponentCount(); i++){
-						final Component component = view.getComponent(i);
-						System.err.println(component);
-					}
-				}
 				level = viewLevels.summaryLevels[childViewIndex];
-				boolean isFreeNode = child.isFree();
+				boolean isFreeNode = child.isFree;
 				boolean isItem = level == 0;
 
-				final int childCloudHeigth = CloudHeightCalculator.INSTANCE.getAdditionalCloudHeigth(child);
-				final int childContentHeight = child.getContent().getHeight() + childCloudHeigth;
-				final int childShiftY = child.isContentVisible() ? child.getShift() : 0;
-				final int childContentShift = child.getContent().getY() - childCloudHeigth / 2 - spaceAround;
+				final int childCloudHeigth = child.cloudHeight;
+				final int childContentHeight = child.contentHeight + childCloudHeigth;
+				final int childShiftY = child.shift;
+				final int childContentShift = child.contentY - childCloudHeigth / 2 - spaceAround;
 
 				if (isItem) {
 					if (isFreeNode)
@@ -153,8 +264,8 @@ class VerticalNodeViewLayoutStrategy {
 						if (childShiftY < 0 || visibleChildCounter == 0)
 							top += childShiftY;
 
-						top += - childContentShift + child.getTopOverlap();
-						y -= child.getTopOverlap();
+						top += - childContentShift + child.topOverlap;
+						y -= child.topOverlap;
 						if (childShiftY < 0) {
 							this.yCoordinates[childViewIndex] = y;
 							y -= childShiftY;
@@ -163,13 +274,13 @@ class VerticalNodeViewLayoutStrategy {
 								y += childShiftY;
 							this.yCoordinates[childViewIndex] = y;
 						}
-						final int summaryNodeIndex = viewLevels.findSummaryNodeIndex(childViewIndex);
+						final int summaryNodeIndex = input.summaryNodeIndices[childViewIndex];
 						if(summaryNodeIndex == SummaryLevels.NODE_NOT_FOUND || summaryNodeIndex - 1 == childViewIndex)
 							vGap = minimalDistanceBetweenChildren;
 						else if (childHeight != 0)
 							vGap = summarizedNodeDistance(minimalDistanceBetweenChildren);
 						if (childHeight != 0)
-							y += childHeight + vGap - child.getBottomOverlap();
+							y += childHeight + vGap - child.bottomOverlap;
 
 						childContentHeightSum += childContentHeight;
 						if (oldLevel > 0) {
@@ -179,7 +290,7 @@ class VerticalNodeViewLayoutStrategy {
 								groupLowerYCoordinate[j] = Integer.MIN_VALUE;
 								contentHeightSumAtGroupStart[j] = childContentHeightSum;
 							}
-						} else if (child.isFirstGroupNode()) {
+						} else if (child.isFirstGroupNode) {
 							contentHeightSumAtGroupStart[0] = childContentHeightSum;
 							groupStartIndex[0] = childViewIndex;
 						}
@@ -188,7 +299,7 @@ class VerticalNodeViewLayoutStrategy {
 						visibleChildCounter++;
 				} else {
 					final int itemLevel = level - 1;
-					if (child.isFirstGroupNode()) {
+					if (child.isFirstGroupNode) {
 						contentHeightSumAtGroupStart[level] = contentHeightSumAtGroupStart[itemLevel];
 						groupStartIndex[level] = groupStartIndex[itemLevel];
 					}
@@ -198,33 +309,32 @@ class VerticalNodeViewLayoutStrategy {
 					}
 					int summaryY = (groupUpperYCoordinate[itemLevel] + groupLowerYCoordinate[itemLevel]) / 2 
 							- childContentHeight / 2 + childShiftY
-							- (child.getContent().getY() - childCloudHeigth / 2 - spaceAround);
+							- (child.contentY - childCloudHeigth / 2 - spaceAround);
 					this.yCoordinates[childViewIndex] = summaryY;
 					if (!isFreeNode) {
 						final int deltaY = summaryY - groupUpperYCoordinate[itemLevel]
-								+ child.getTopOverlap();
+								+ child.topOverlap;
 						if (deltaY < 0) {
 							top += deltaY;
 							y -= deltaY;
 							summaryY -= deltaY;
 							for (int j = groupStartIndex[itemLevel]; j <= childViewIndex; j++) {
-								NodeView groupItem = (NodeView) view.getComponent(j);
-								if (groupItem.isLeft() == isLeft
+								if (children[j].isLeft == isLeft
 										&& (this.viewLevels.summaryLevels[j] > 0 || !this.isChildFreeNode[j]))
 									this.yCoordinates[j] -= deltaY;
 							}
 						}
 						if (childHeight != 0) {
 							summaryY += childHeight + minimalDistanceBetweenChildren
-									- child.getBottomOverlap();
+									- child.bottomOverlap;
 						}
 						y = Math.max(y, summaryY);
 					}
 				}
 				if (! (isItem && isFreeNode)) {
-					int childUpperCoordinate = this.yCoordinates[childViewIndex] + child.getTopOverlap();
-					int childBottomCoordinate = this.yCoordinates[childViewIndex] + childHeight - child.getBottomOverlap();
-					if (child.isFirstGroupNode()) {
+					int childUpperCoordinate = this.yCoordinates[childViewIndex] + child.topOverlap;
+					int childBottomCoordinate = this.yCoordinates[childViewIndex] + childHeight - child.bottomOverlap;
+					if (child.isFirstGroupNode) {
 						if(isItem){
 							groupUpperYCoordinate[level] = Integer.MAX_VALUE;
 							groupLowerYCoordinate[level] = Integer.MIN_VALUE;
@@ -249,7 +359,7 @@ class VerticalNodeViewLayoutStrategy {
 	}
 
 	private int summarizedNodeDistance(final int distance) {
-		final int defaultVGap = view.getMap().getZoomed(LocationModel.DEFAULT_VGAP.toBaseUnits());
+		final int defaultVGap = input.defaultVGap;
 		if(defaultVGap >= distance)
 			return distance;
 		else
@@ -257,31 +367,25 @@ class VerticalNodeViewLayoutStrategy {
 	}
 
 	private void calculateLayoutX(final boolean isLeft) {
-		final Dimension contentSize = ContentSizeCalculator.INSTANCE.calculateContentSize(view);
+		final Dimension contentSize = input.contentSize;
 		int level = viewLevels.highestSummaryLevel + 1;
 		final int summaryBaseX[] = new int[level];
 		for (int i = 0; i < childViewCount; i++) {
-			final NodeView child = (NodeView) view.getComponent(i);
-			if (child.isLeft() == isLeft) {
+			final ChildViewData child = children[i];
+			if (child.isLeft == isLeft) {
 				final int oldLevel = level;
 				level = viewLevels.summaryLevels[i];
-				boolean isFreeNode = child.isFree();
+				boolean isFreeNode = child.isFree;
 				boolean isItem = level == 0;
-				int childHGap;
-				if (child.isContentVisible())
-					childHGap = child.getHGap();
-				else if (child.isSummary())
-					childHGap = child.getZoomed(LocationModel.DEFAULT_HGAP_PX*7/12);
-				else
-					childHGap = 0;
-				if(view.getModel().isHiddenSummary() && ! child.getModel().isHiddenSummary())
-					childHGap -= child.getZoomed(LocationModel.DEFAULT_HGAP_PX*7/12);
+				int childHGap = child.hGap;
+				if(input.isHiddenSummary && ! child.isHiddenSummary)
+					childHGap -= child.summaryHGap;
 
 				if (isItem) {
-					if (!isFreeNode && (oldLevel > 0 || child.isFirstGroupNode()))
+					if (!isFreeNode && (oldLevel > 0 || child.isFirstGroupNode))
 						summaryBaseX[0] = 0;
 				} 
-				else if (child.isFirstGroupNode())
+				else if (child.isFirstGroupNode)
 					summaryBaseX[level] = 0;
 
 
@@ -290,18 +394,18 @@ class VerticalNodeViewLayoutStrategy {
 				if (level > 0)
 					baseX = summaryBaseX[level - 1];
 				else {
-					if (child.isLeft() != (isItem && isFreeNode)) {
+					if (child.isLeft != (isItem && isFreeNode)) {
 						baseX = 0;
 					} else {
 						baseX = contentSize.width;
 					}
 				}
-				if (child.isLeft()) {
-					x = baseX - childHGap - child.getContent().getX() - child.getContent().getWidth();
+				if (child.isLeft) {
+					x = baseX - childHGap - child.contentX - child.contentWidth;
 					summaryBaseX[level] = Math.min(summaryBaseX[level], x + spaceAround);
 				} else {
-					x = baseX + childHGap - child.getContent().getX();
-					summaryBaseX[level] = Math.max(summaryBaseX[level], x + child.getWidth() - spaceAround);
+					x = baseX + childHGap - child.contentX;
+					summaryBaseX[level] = Math.max(summaryBaseX[level], x + child.width - spaceAround);
 				}
 				left = Math.min(left, x);
 				this.xCoordinates[i] = x;
@@ -325,8 +429,7 @@ class VerticalNodeViewLayoutStrategy {
 				changeLeft = isLeft;
 			}
 			for (int i = 0; i < childViewCount; i++) {
-				NodeView child = (NodeView) view.getComponent(i);
-				if (child.isLeft() == changeLeft
+				if (children[i].isLeft == changeLeft
 						&& (viewLevels.summaryLevels[i] > 0 || !isChildFreeNode[i])) {
 					yCoordinates[i] += deltaTop;
 				}
@@ -338,16 +441,11 @@ class VerticalNodeViewLayoutStrategy {
 			rightSideCoordinatesAreSet = true;
 	}
 
-	private void applyLayoutToChildComponents() {
-		JComponent content = view.getContent();
-		int spaceAround = view.getSpaceAround();
+	private LayoutResult calculateChildBounds() {
 		final int contentX = Math.max(spaceAround, -this.left);
-		int cloudHeight = CloudHeightCalculator.INSTANCE
-				.getAdditionalCloudHeigth(view);
+		int cloudHeight = input.cloudHeight;
 		int contentY = spaceAround + cloudHeight / 2 - Math.min(0, this.top);
 
-		content.setVisible(view.isContentVisible());
-
 		int baseY = contentY - spaceAround + this.top;
 		int minY = 0;
 		for (int i = 0; i < childViewCount; i++) {
@@ -360,17 +458,18 @@ class VerticalNodeViewLayoutStrategy {
 			contentY -= minY;
 			baseY -= minY;
 		}
-		final Dimension contentSize = ContentSizeCalculator.INSTANCE
-				.calculateContentSize(view);
+		final Dimension contentSize = input.contentSize;
 		int width = contentX + contentSize.width + spaceAround;
 		int height = contentY + contentSize.height + cloudHeight / 2
 				+ spaceAround;
-		content.setBounds(contentX, contentY, contentSize.width,
+		final Rectangle contentBounds = new Rectangle(contentX, contentY, contentSize.width,
 				contentSize.height);
 		int topOverlap = -minY;
 		int heigthWithoutOverlap = height;
+		final int[] childX = new int[childViewCount];
+		final int[] childY = new int[childViewCount];
 		for (int i = 0; i < childViewCount; i++) {
-			NodeView child = (NodeView) view.getComponent(i);
+			final int childHeight = children[i].height;
 			final int y;
 			if (this.viewLevels.summaryLevels[i] == 0 && this.isChildFreeNode[i]) {
 				y = contentY + this.yCoordinates[i];
@@ -379,18 +478,18 @@ class VerticalNodeViewLayoutStrategy {
 				if (!this.isChildFreeNode[i])
 					heigthWithoutOverlap = Math.max(
 							heigthWithoutOverlap,
-							y + child.getHeight() + cloudHeight / 2
-									- child.getBottomOverlap());
+							y + childHeight + cloudHeight / 2
+									- children[i].bottomOverlap);
 			}
 			final int x = contentX + this.xCoordinates[i];
-			child.setLocation(x, y);
-			width = Math.max(width, child.getX() + child.getWidth());
-			height = Math.max(height, y + child.getHeight() + cloudHeight / 2);
+			childX[i] = x;
+			childY[i] = y;
+			width = Math.max(width, x + children[i].width);
+			height = Math.max(height, y + childHeight + cloudHeight / 2);
 		}
 
-		view.setSize(width, height);
-		view.setTopOverlap(topOverlap);
-		view.setBottomOverlap(height - heigthWithoutOverlap);
+		return new LayoutResult(input.isContentVisible, contentBounds, childX, childY,
+				width, height, topOverlap, height - heigthWithoutOverlap);
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,177 @@
+package org.freeplane.core.io.xml;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.freeplane.core.io.IAttributeHandler;
+import org.freeplane.core.io.IElementContentHandler;
+import org.freeplane.core.io.IElementDOMHandler;
+import org.freeplane.core.io.IElementHandler;
+import org.freeplane.core.io.ReadManager;
+import org.freeplane.n3.nanoxml.XMLElement;
+import org.freeplane.n3.nanoxml.XMLException;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StreamingTreeXmlReaderShould {
+	private static final String MAP = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\r\n"
+	        + "<!-- comment -->\n"
+	        + "<map version=\"freeplane 1.8.0\" UNKNOWN_MAP_ATTRIBUTE=\"x\">\n"
+	        + "<node TEXT=\"root &amp; &lt;more&gt;\" ID=\"ID_1\" TAB=\"a\tb\nc\" LF=\"a&#xa;b\">\n"
+	        + "  <hook NAME=\"MapStyle\"><properties fit_to_viewport=\"false\"/></hook>\n"
+	        + "  <unknown A=\"1\"><inner>text &amp; more</inner></unknown>\n"
+	        + "  <node TEXT=\"child\" ID=\"ID_2\"><icon BUILTIN=\"yes\"/>\n"
+	        + "    <richcontent TYPE=\"NOTE\"><html>\n<body><p>a&amp;b<br/></p><!-- c --></body></html></richcontent>\n"
+	        + "    <richcontent TYPE=\"DETAILS\"/>\n"
+	        + "  </node>\n"
+	        + "  <node ID=\"ID_3\"><![CDATA[<cdata>]]></node>\n"
+	        + "  <plain KEEP=\"no\"><lost/></plain>\n"
+	        + "</node>\n"
+	        + "</map>\n";
+
+	private ReadManager readManager;
+	private List<String> events;
+
+	private class DomHandler implements IElementDOMHandler {
+		@Override
+		public Object createElement(Object parent, String tag, XMLElement attributes) {
+			events.add("create " + tag + " in " + parent + " " + describe(attributes));
+			return tag + events.size();
+		}
+
+		@Override
+		public void endElement(Object parent, String tag, Object element, XMLElement dom) {
+			events.add("end " + tag + " " + element + " in " + parent + " " + describe(dom)
+			        + " parent " + (dom.getParent() == null ? null : dom.getParent().getName()));
+		}
+	}
+
+	private class HookHandler extends DomHandler {
+		private final String name;
+
+		HookHandler(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public Object createElement(Object parent, String tag, XMLElement attributes) {
+			if (attributes == null || !name.equals(attributes.getAttribute("NAME", null)))
+				return null;
+			return super.createElement(parent, tag, attributes);
+		}
+	}
+
+	private class ContentHandler implements IElementContentHandler {
+		@Override
+		public Object createElement(Object parent, String tag, XMLElement attributes) {
+			events.add("create " + tag + " in " + parent);
+			return parent;
+		}
+
+		@Override
+		public void endElement(Object parent, String tag, Object node, XMLElement attributes, String content) {
+			events.add("end " + tag + " " + describe(attributes) + " content [" + content + "]");
+		}
+	}
+
+	private class PlainHandler implements IElementHandler {
+		@Override
+		public Object createElement(Object parent, String tag, XMLElement attributes) {
+			events.add("create " + tag + " in " + parent);
+			return tag;
+		}
+	}
+
+	private class RecordingAttributeHandler implements IAttributeHandler {
+		private final String name;
+
+		RecordingAttributeHandler(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public void setAttribute(Object node, String value) {
+			events.add(name + " of " + node + " = [" + value + "]");
+		}
+	}
+
+	private static String describe(XMLElement element) {
+		if (element == null)
+			return "null";
+		final StringBuilder sb = new StringBuilder();
+		describe(element, sb);
+		return sb.toString();
+	}
+
+	private static void describe(XMLElement element, StringBuilder sb) {
+		sb.append('<').append(element.getName());
+		for (Object name : element.getAttributes().keySet())
+			sb.append(' ').append(name).append("='").append(element.getAttribute((String) name, null)).append('\'');
+		sb.append('>');
+		if (element.getContent() != null)
+			sb.append(element.getContent());
+		for (XMLElement child : element.getChildren())
+			describe(child, sb);
+		sb.append("</>");
+	}
+
+	@Before
+	public void setup() {
+		readManager = new ReadManager();
+		events = new ArrayList<String>();
+		readManager.addElementHandler("map", new DomHandler());
+		readManager.addElementHandler("node", new DomHandler());
+		readManager.addElementHandler("icon", new DomHandler());
+		readManager.addElementHandler("hook", new HookHandler("MapStyle"));
+		readManager.addElementHandler("hook", new HookHandler("Other"));
+		readManager.addElementHandler("richcontent", new ContentHandler());
+		readManager.addElementHandler("plain", new PlainHandler());
+		readManager.addAttributeHandler("node", "TEXT", new RecordingAttributeHandler("TEXT"));
+		readManager.addAttributeHandler("node", "TAB", new RecordingAttributeHandler("TAB"));
+		readManager.addAttributeHandler("node", "LF", new RecordingAttributeHandler("LF"));
+		readManager.addAttributeHandler("icon", "BUILTIN", new RecordingAttributeHandler("BUILTIN"));
+		readManager.addAttributeHandler("hook", "NAME", new RecordingAttributeHandler("NAME"));
+		readManager.addAttributeHandler("richcontent", "TYPE", new RecordingAttributeHandler("TYPE"));
+	}
+
+	private List<String> readWithTreeXmlReader(String xml) throws XMLException {
+		events = new ArrayList<String>();
+		new TreeXmlReader(readManager).load("root", new StringReader(xml));
+		return events;
+	}
+
+	private List<String> readWithStreamingReader(String xml) throws XMLException {
+		events = new ArrayList<String>();
+		new StreamingTreeXmlReader(readManager).load("root", new StringReader(xml));
+		return events;
+	}
+
+	@Test
+	public void callHandlersLikeTreeXmlReader() throws Exception {
+		final List<String> expected = readWithTreeXmlReader(MAP);
+		final List<String> actual = readWithStreamingReader(MAP);
+		assertThat(actual).containsExactlyElementsOf(expected);
+	}
+
+	@Test
+	public void passRawContentToContentHandlers() throws Exception {
+		final List<String> actual = readWithStreamingReader(MAP);
+		assertThat(actual).contains("end richcontent <richcontent></> content "
+		        + "[<html>\n<body><p>a&amp;b<br/></p><!-- c --></body></html>]");
+	}
+
+	@Test
+	public void keepUnknownElementsInParentDom() throws Exception {
+		final List<String> actual = readWithStreamingReader(MAP);
+		assertThat(actual).anyMatch(s -> s.startsWith("end node node2 in map1 <node ID='ID_1'>"
+		        + "<unknown A='1'><inner>text & more</></></>"));
+	}
+
+	@Test(expected = XMLException.class)
+	public void rejectWrongClosingTag() throws Exception {
+		readWithStreamingReader("<map><node></map></node>");
+	}
+}
@@ -0,0 +1,69 @@
+package org.freeplane.core.ui.components.html;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.AffineTransform;
+
+import javax.swing.SwingConstants;
+import javax.swing.text.Document;
+
+import org.junit.Test;
+
+public class HTMLLayoutCacheShould {
+	private static final Font FONT = new Font("Dialog", Font.PLAIN, 12);
+	private static final FontRenderContext FRACTIONAL = new FontRenderContext(new AffineTransform(), false, true);
+	private static final FontRenderContext INTEGER = new FontRenderContext(new AffineTransform(), false, false);
+	private final HTMLLayoutCache uut = new HTMLLayoutCache(2);
+
+	private HTMLLayoutCache.Key key(String text) {
+		return key(text, FRACTIONAL);
+	}
+
+	private HTMLLayoutCache.Key key(String text, FontRenderContext fontRenderContext) {
+		return new HTMLLayoutCache.Key(text, FONT, Color.BLACK, SwingConstants.LEFT, null, fontRenderContext);
+	}
+
+	@Test
+	public void parseSameTextOnlyOnce() throws Exception {
+		final HTMLLayoutCache.Layout first = uut.getLayout(key("<html>a"), () -> mock(Document.class));
+		final HTMLLayoutCache.Layout second = uut.getLayout(key("<html>a"), () -> mock(Document.class));
+
+		assertThat(second.document).isSameAs(first.document);
+	}
+
+	@Test
+	public void parseTextsWithDifferentFontsSeparately() throws Exception {
+		final HTMLLayoutCache.Layout first = uut.getLayout(key("<html>a"), () -> mock(Document.class));
+		final HTMLLayoutCache.Key boldKey = new HTMLLayoutCache.Key("<html>a", FONT.deriveFont(Font.BOLD), Color.BLACK, SwingConstants.LEFT, null, FRACTIONAL);
+		final HTMLLayoutCache.Layout second = uut.getLayout(boldKey, () -> mock(Document.class));
+
+		assertThat(second.document).isNotSameAs(first.document);
+	}
+
+	@Test
+	public void evictLeastRecentlyUsedLayouts() throws Exception {
+		final HTMLLayoutCache.Layout first = uut.getLayout(key("<html>a"), () -> mock(Document.class));
+		uut.getLayout(key("<html>b"), () -> mock(Document.class));
+		uut.getLayout(key("<html>a"), () -> mock(Document.class));
+		uut.getLayout(key("<html>c"), () -> mock(Document.class));
+
+		assertThat(uut.size()).isEqualTo(2);
+		assertThat(uut.getLayout(key("<html>a"), () -> mock(Document.class)).document).isSameAs(first.document);
+	}
+
+	@Test
+	public void keepPreferredSpansMeasuredWithTheSameFontRenderContextOnly() throws Exception {
+		final HTMLLayoutCache.Layout layout = uut.getLayout(key("<html>a"), () -> mock(Document.class));
+		layout.setPreferredSpans(INTEGER, 1, 2);
+		assertThat(layout.getPreferredSpans(FRACTIONAL)).isNull();
+
+		layout.setPreferredSpans(FRACTIONAL, 10, 20);
+
+		assertThat(layout.getPreferredSpans(FRACTIONAL)).containsExactly(10, 20);
+		assertThat(layout.getPreferredSpans(INTEGER)).isNull();
+	}
+}
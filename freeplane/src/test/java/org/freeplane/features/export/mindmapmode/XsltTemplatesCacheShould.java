@@ -0,0 +1,68 @@
+package org.freeplane.features.export.mindmapmode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class XsltTemplatesCacheShould {
+	private final XsltTemplatesCache cache = new XsltTemplatesCache();
+	private File xsltFile;
+	private URL xsltUrl;
+
+	@Before
+	public void createStyleSheet() throws IOException {
+		xsltFile = File.createTempFile("export", ".xsl");
+		writeStyleSheet("a");
+		xsltUrl = xsltFile.toURI().toURL();
+	}
+
+	@After
+	public void deleteStyleSheet() {
+		xsltFile.delete();
+	}
+
+	private void writeStyleSheet(String text) throws IOException {
+		Files.write(xsltFile.toPath(), ("<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+				+ "<xsl:output method=\"text\"/><xsl:template match=\"/\">" + text + "</xsl:template></xsl:stylesheet>")
+					.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private String transform(Templates templates) throws Exception {
+		final StringWriter result = new StringWriter();
+		templates.newTransformer().transform(new StreamSource(new StringReader("<map/>")), new StreamResult(result));
+		return result.toString();
+	}
+
+	@Test
+	public void returnSameTemplatesForUnchangedStyleSheet() throws Exception {
+		final Templates templates = cache.getTemplates(xsltUrl);
+		assertThat(cache.getTemplates(xsltUrl)).isSameAs(templates);
+		assertThat(transform(templates)).isEqualTo("a");
+		assertThat(cache.size()).isEqualTo(1);
+	}
+
+	@Test
+	public void compileModifiedStyleSheetAgain() throws Exception {
+		final Templates templates = cache.getTemplates(xsltUrl);
+		writeStyleSheet("b");
+		xsltFile.setLastModified(xsltFile.lastModified() + 10000);
+		final Templates modifiedTemplates = cache.getTemplates(xsltUrl);
+		assertThat(modifiedTemplates).isNotSameAs(templates);
+		assertThat(transform(modifiedTemplates)).isEqualTo("b");
+		assertThat(cache.size()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,106 @@
+package org.freeplane.features.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.freeplane.features.filter.condition.ICondition;
+import org.freeplane.features.map.MapFake;
+import org.freeplane.features.map.NodeModel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConcurrentConditionCheckerShould {
+	private final Set<NodeModel> nodesCheckedByCallingThread = Collections.newSetFromMap(new ConcurrentHashMap<NodeModel, Boolean>());
+	private final Set<NodeModel> nodesCheckedConcurrently = Collections.newSetFromMap(new ConcurrentHashMap<NodeModel, Boolean>());
+	private Thread callingThread;
+	private ForkJoinPool pool;
+	private MapFake mapFake;
+
+	private final ICondition containsX = new ICondition() {
+		@Override
+		public boolean checkNode(NodeModel node) {
+			if (Thread.currentThread() == callingThread)
+				nodesCheckedByCallingThread.add(node);
+			if (ConcurrentConditionChecker.isCheckingConcurrently())
+				nodesCheckedConcurrently.add(node);
+			return node.getText().contains("x");
+		}
+
+		@Override
+		public boolean canBeCheckedConcurrently(NodeModel node) {
+			return ! node.getText().startsWith("=");
+		}
+	};
+
+	@Before
+	public void setup() {
+		callingThread = Thread.currentThread();
+		pool = new ForkJoinPool(4);
+		mapFake = new MapFake();
+		for (int i = 0; i < 20; i++) {
+			final NodeModel child = mapFake.addNode(i % 3 == 0 ? "x" + i : "=" + i);
+			for (int j = 0; j < 50; j++) {
+				child.insert(mapFake.createNode(j % 7 == 0 ? "=x" + j : "c" + j));
+			}
+		}
+	}
+
+	@After
+	public void shutdownPool() {
+		pool.shutdown();
+	}
+
+	@Test
+	public void returnSameResultsAsCondition() {
+		final NodeModel root = mapFake.getRoot();
+		final ConcurrentConditionChecker checker = ConcurrentConditionChecker.checkConcurrently(containsX, root, true, pool, 0);
+		assertSameResults(checker, root);
+	}
+
+	private void assertSameResults(ConcurrentConditionChecker checker, NodeModel node) {
+		assertThat(checker.checkNode(node)).as(node.getText()).isEqualTo(node.getText().contains("x"));
+		for (NodeModel child : node.getChildren()) {
+			assertSameResults(checker, child);
+		}
+	}
+
+	@Test
+	public void checkNodesWhichCanNotBeCheckedConcurrentlyOnCallingThreadOnly() {
+		final NodeModel root = mapFake.getRoot();
+		final ConcurrentConditionChecker checker = ConcurrentConditionChecker.checkConcurrently(containsX, root, false, pool, 0);
+		for (NodeModel child : root.getChildren()) {
+			assertSameResults(checker, child);
+		}
+		assertAllCheckedByCallingThreadUnlessConcurrentlyCheckable(root);
+	}
+
+	private void assertAllCheckedByCallingThreadUnlessConcurrentlyCheckable(NodeModel node) {
+		for (NodeModel child : node.getChildren()) {
+			if (! containsX.canBeCheckedConcurrently(child))
+				assertThat(nodesCheckedByCallingThread).contains(child);
+			assertAllCheckedByCallingThreadUnlessConcurrentlyCheckable(child);
+		}
+	}
+
+	@Test
+	public void tellConditionsWhichNodesAreCheckedConcurrently() {
+		final NodeModel root = mapFake.getRoot();
+		final ConcurrentConditionChecker checker = ConcurrentConditionChecker.checkConcurrently(containsX, root, false, pool, 0);
+		for (NodeModel child : root.getChildren()) {
+			assertSameResults(checker, child);
+		}
+		assertThat(nodesCheckedConcurrently).isNotEmpty().allMatch(containsX::canBeCheckedConcurrently);
+		assertThat(ConcurrentConditionChecker.isCheckingConcurrently()).isFalse();
+	}
+
+	@Test
+	public void notCheckSmallBranchesConcurrently() {
+		final ConcurrentConditionChecker checker = ConcurrentConditionChecker.checkConcurrently(containsX, mapFake.getRoot(), true, pool, 10000);
+		assertThat(checker).isNull();
+	}
+}
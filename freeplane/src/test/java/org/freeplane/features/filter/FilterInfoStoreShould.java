@@ -0,0 +1,53 @@
+package org.freeplane.features.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.freeplane.features.map.MapFake;
+import org.freeplane.features.map.NodeModel;
+import org.junit.Test;
+
+public class FilterInfoStoreShould {
+	private final FilterInfoStore store = new FilterInfoStore();
+
+	@Test
+	public void returnUncheckedInfoForUnknownNodes() {
+		final NodeModel node = new MapFake().addNode("a");
+		assertThat(store.getFilterInfo(node).isNotChecked()).isTrue();
+	}
+
+	@Test
+	public void keepFlagsOfEachNode() {
+		final MapFake mapFake = new MapFake();
+		final NodeModel a = mapFake.addNode("a");
+		final NodeModel b = mapFake.addNode("b");
+		store.add(a, FilterInfo.FILTER_SHOW_AS_MATCHED);
+		store.add(b, FilterInfo.FILTER_SHOW_AS_HIDDEN);
+		store.add(b, FilterInfo.FILTER_SHOW_AS_ANCESTOR);
+		final FilterInfo infoA = store.getFilterInfo(a);
+		final FilterInfo infoB = store.getFilterInfo(b);
+		assertThat(infoA.isNotChecked()).isFalse();
+		assertThat(infoA.isMatched()).isTrue();
+		assertThat(infoA.isAncestor()).isFalse();
+		assertThat(infoB.isMatched()).isFalse();
+		assertThat(infoB.isAncestor()).isTrue();
+		assertThat(store.getFilterInfo(mapFake.getRoot()).isNotChecked()).isTrue();
+	}
+
+	@Test
+	public void keepFlagsOfNodesFromDifferentMapsSeparately() {
+		final NodeModel a = new MapFake().addNode("a");
+		final NodeModel b = new MapFake().addNode("b");
+		assertThat(a.getOrdinal()).isEqualTo(b.getOrdinal());
+		store.add(a, FilterInfo.FILTER_SHOW_AS_MATCHED);
+		assertThat(store.getFilterInfo(b).isNotChecked()).isTrue();
+	}
+
+	@Test
+	public void resetFlagsWrittenThroughFilterInfo() {
+		final NodeModel a = new MapFake().addNode("a");
+		store.getFilterInfo(a).add(FilterInfo.FILTER_SHOW_AS_MATCHED);
+		assertThat(store.getFilterInfo(a).isMatched()).isTrue();
+		store.getFilterInfo(a).reset();
+		assertThat(store.getFilterInfo(a).isNotChecked()).isTrue();
+	}
+}
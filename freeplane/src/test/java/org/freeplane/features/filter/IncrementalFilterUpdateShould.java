@@ -0,0 +1,111 @@
+package org.freeplane.features.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.freeplane.features.filter.condition.ICondition;
+import org.freeplane.features.map.MapFake;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeModel;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IncrementalFilterUpdateShould {
+	private static final ICondition CONTAINS_X = new ICondition() {
+		@Override
+		public boolean checkNode(NodeModel node) {
+			return node.getText().contains("x");
+		}
+	};
+
+	private MapFake mapFake;
+	private MapModel map;
+	private NodeModel a;
+	private NodeModel a1;
+	private NodeModel a11;
+	private NodeModel b;
+	private Filter filter;
+
+	@Before
+	public void setup() {
+		mapFake = new MapFake();
+		map = mapFake.getRoot().getMap();
+		a = mapFake.addNode("a");
+		a1 = mapFake.createNode("a1");
+		a.insert(a1);
+		a11 = mapFake.createNode("a11");
+		a1.insert(a11);
+		b = mapFake.addNode("b x");
+		filter = new Filter(CONTAINS_X, false, true, true, null);
+		filter.calculateFilterResults(map);
+	}
+
+	private void assertSameResultsAsFullCalculation() {
+		final Filter recalculated = new Filter(CONTAINS_X, false, true, true, null);
+		recalculated.calculateFilterResults(map);
+		assertSameResults(map.getRootNode(), recalculated);
+	}
+
+	private void assertSameResults(NodeModel node, Filter recalculated) {
+		final FilterInfo expected = recalculated.getFilterInfo(node);
+		final FilterInfo actual = filter.getFilterInfo(node);
+		assertThat(actual.isMatched()).as(node.getText() + " matched").isEqualTo(expected.isMatched());
+		assertThat(actual.isAncestor()).as(node.getText() + " ancestor").isEqualTo(expected.isAncestor());
+		assertThat(actual.isDescendant()).as(node.getText() + " descendant").isEqualTo(expected.isDescendant());
+		assertThat(filter.isVisible(node)).as(node.getText() + " visible").isEqualTo(recalculated.isVisible(node));
+		for (NodeModel child : node.getChildren()) {
+			assertSameResults(child, recalculated);
+		}
+	}
+
+	@Test
+	public void updateAncestorsAndDescendantsOfNodeStartingToMatch() {
+		a1.setText("a1 x");
+		assertThat(filter.updateChangedNode(a1)).isTrue();
+		assertSameResultsAsFullCalculation();
+	}
+
+	@Test
+	public void updateAncestorsAndDescendantsOfNodeStoppingToMatch() {
+		a1.setText("a1 x");
+		filter.calculateFilterResults(map);
+		a1.setText("a1");
+		assertThat(filter.updateChangedNode(a1)).isTrue();
+		assertSameResultsAsFullCalculation();
+	}
+
+	@Test
+	public void reportUnchangedResults() {
+		a1.setText("a1 changed");
+		assertThat(filter.updateChangedNode(a1)).isFalse();
+		assertSameResultsAsFullCalculation();
+	}
+
+	@Test
+	public void evaluateInsertedBranch() {
+		final NodeModel c = mapFake.createNode("c");
+		c.insert(mapFake.createNode("c1 x"));
+		a11.insert(c);
+		assertThat(filter.updateInsertedNode(c)).isTrue();
+		assertSameResultsAsFullCalculation();
+	}
+
+	@Test
+	public void updateAncestorsOfRemovedBranch() {
+		a11.setText("a11 x");
+		filter.calculateFilterResults(map);
+		a1.remove(a1.getIndex(a11));
+		assertThat(filter.updateRemovedNode(a1)).isTrue();
+		assertSameResultsAsFullCalculation();
+	}
+
+	@Test
+	public void updateMovedBranch() {
+		a1.setText("a1 x");
+		filter.calculateFilterResults(map);
+		a.remove(a.getIndex(a1));
+		b.insert(a1);
+		filter.updateRemovedNode(a);
+		filter.updateInsertedNode(a1);
+		assertSameResultsAsFullCalculation();
+	}
+}
@@ -0,0 +1,98 @@
+package org.freeplane.features.map;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.features.mode.Controller;
+
+/**
+ * Compares map loading through the nanoxml based TreeXmlReader with the StreamingTreeXmlReader.
+ *
+ * Run with e.g. <code>-Xmx4g</code> and the node count as optional argument (default 500000).
+ */
+public class MapLoadingBenchmark {
+	private static final int CHILD_COUNT = 8;
+
+	private static int nodeCounter = 0;
+
+	public static void main(String[] args) throws Exception {
+		new HeadlessFreeplaneRunner();
+		final int nodeCount = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+		final int runs = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+		final File mapFile = File.createTempFile("benchmark", ".mm");
+		mapFile.deleteOnExit();
+		generateMap(mapFile, nodeCount);
+		System.out.printf("Generated %d nodes, %d MB%n", nodeCounter, mapFile.length() >> 20);
+		for (int run = 0; run <= runs; run++) {
+			measure(mapFile, false, run == 0);
+			measure(mapFile, true, run == 0);
+		}
+	}
+
+	private static void measure(File mapFile, boolean streaming, boolean warmup) throws Exception {
+		ResourceController.getResourceController().setProperty(MapReader.STREAMING_MAP_LOADING_PROPERTY, streaming);
+		final MapReader mapReader = Controller.getCurrentModeController().getMapController().getMapReader();
+		System.gc();
+		final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory
+		    .getThreadMXBean();
+		final long threadId = Thread.currentThread().getId();
+		final long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+		final long start = System.nanoTime();
+		final MapModel map = new MapModel();
+		try (Reader reader = new InputStreamReader(new FileInputStream(mapFile), StandardCharsets.UTF_8)) {
+			mapReader.createNodeTreeFromXml(map, reader, Mode.FILE);
+		}
+		final long time = System.nanoTime() - start;
+		final long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+		System.out.printf("%s%-10s %6d ms %8.0f nodes/s %7d MB allocated%n", warmup ? "warmup " : "",
+		    streaming ? "streaming" : "nanoxml", time / 1000000, nodeCounter * 1e9 / time, allocated >> 20);
+	}
+
+	private static void generateMap(File file, int nodeCount) throws IOException {
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file),
+		    StandardCharsets.UTF_8))) {
+			writer.write("<map version=\"freeplane 1.8.0\">\n");
+			nodeCounter = 0;
+			writeNode(writer, nodeCount);
+			writer.write("</map>\n");
+		}
+	}
+
+	private static void writeNode(Writer writer, int remainingNodes) throws IOException {
+		final int id = ++nodeCounter;
+		writer.write("<node TEXT=\"Node number " + id + " with some &amp; text\" ID=\"ID_" + id
+		        + "\" CREATED=\"1580000000000\" MODIFIED=\"1580000000000\">\n");
+		if (id % 7 == 0) {
+			writer.write("<icon BUILTIN=\"yes\"/>\n");
+		}
+		if (id % 5 == 0) {
+			writer.write("<attribute NAME=\"key\" VALUE=\"" + id + "\"/>\n");
+		}
+		if (id % 10 == 0) {
+			writer.write("<richcontent TYPE=\"NOTE\"><html><head></head><body><p>Note of node " + id
+			        + "</p></body></html></richcontent>\n");
+		}
+		remainingNodes--;
+		if (remainingNodes > 0) {
+			final int childCount = Math.min(CHILD_COUNT, remainingNodes);
+			final int nodesPerChild = remainingNodes / childCount;
+			for (int i = 0; i < childCount; i++) {
+				final int nodesInBranch = i == childCount - 1 ? remainingNodes - nodesPerChild * i : nodesPerChild;
+				writeNode(writer, nodesInBranch);
+			}
+		}
+		writer.write("</node>\n");
+	}
+}
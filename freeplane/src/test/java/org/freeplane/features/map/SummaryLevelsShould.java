@@ -31,6 +31,16 @@ public class SummaryLevelsShould {
 			assertThat(summaryLevels.findSummaryNodeIndex(0), equalTo(summaryNode.getIndex()));
 
 		}
+
+		@Test
+		public void returnNoSummaryNode_IfNextGroupBeginsBeforeIt() throws Exception {
+			mapFake.addNode("1");
+			mapFake.addGroupBeginNode();
+			final NodeModel summaryNode = mapFake.addSummaryNode();
+			final SummaryLevels summaryLevels = new SummaryLevels(mapFake.getRoot());
+			assertThat(summaryLevels.findSummaryNodeIndex(0), equalTo(-1));
+			assertThat(summaryLevels.findSummaryNodeIndex(1), equalTo(summaryNode.getIndex()));
+		}
 	}
 	public static class FindSummaryNode extends SummaryLevelsShould{
 
@@ -0,0 +1,44 @@
+package org.freeplane.features.styles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.freeplane.features.filter.condition.ASelectableCondition;
+import org.freeplane.features.map.NodeModel;
+import org.junit.Test;
+
+public class ConditionalStyleModelShould {
+	private final ConditionalStyleModel uut = new ConditionalStyleModel();
+	private final NodeModel node = new NodeModel(null);
+	private final IStyle style = new StyleString("style");
+
+	private ASelectableCondition condition(boolean dependsOnlyOnMapContent) {
+		final ASelectableCondition condition = mock(ASelectableCondition.class);
+		when(condition.dependsOnlyOnMapContent(node)).thenReturn(dependsOnlyOnMapContent);
+		return condition;
+	}
+
+	@Test
+	public void dependOnlyOnMapContentIfAllConditionsDo() throws Exception {
+		uut.addCondition(true, condition(true), style, false);
+		uut.addCondition(true, null, style, false);
+
+		assertThat(uut.dependsOnlyOnMapContent(node)).isTrue();
+	}
+
+	@Test
+	public void dependOnOtherDataIfAnyActiveConditionDoes() throws Exception {
+		uut.addCondition(true, condition(true), style, false);
+		uut.addCondition(true, condition(false), style, false);
+
+		assertThat(uut.dependsOnlyOnMapContent(node)).isFalse();
+	}
+
+	@Test
+	public void ignoreInactiveConditions() throws Exception {
+		uut.addCondition(false, condition(false), style, false);
+
+		assertThat(uut.dependsOnlyOnMapContent(node)).isTrue();
+	}
+}
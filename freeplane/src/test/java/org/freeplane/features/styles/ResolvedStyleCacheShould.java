@@ -0,0 +1,49 @@
+package org.freeplane.features.styles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import org.freeplane.features.map.NodeModel;
+import org.junit.Test;
+
+public class ResolvedStyleCacheShould {
+	private final ResolvedStyleCache uut = new ResolvedStyleCache();
+	private final NodeModel changedNode = new NodeModel(null);
+	private final NodeModel otherNode = new NodeModel(null);
+	private final Collection<IStyle> styles = Collections.singleton(new StyleString("style"));
+
+	@Test
+	public void removeOnlyChangedNodeStyles() throws Exception {
+		uut.put(changedNode, styles, false);
+		uut.put(otherNode, styles, false);
+
+		uut.remove(changedNode);
+
+		assertThat(uut.get(changedNode)).isNull();
+		assertThat(uut.get(otherNode)).isSameAs(styles);
+	}
+
+	@Test
+	public void removeAllStylesIfAnyDependOnConditions() throws Exception {
+		uut.put(changedNode, styles, false);
+		uut.put(otherNode, styles, true);
+
+		uut.remove(changedNode);
+
+		assertThat(uut.size()).isZero();
+	}
+
+	@Test
+	public void forgetConditionsAfterClear() throws Exception {
+		uut.put(otherNode, styles, true);
+		uut.clear();
+		uut.put(changedNode, styles, false);
+		uut.put(otherNode, styles, false);
+
+		uut.remove(changedNode);
+
+		assertThat(uut.get(otherNode)).isSameAs(styles);
+	}
+}
@@ -0,0 +1,29 @@
+package org.freeplane.features.text;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.freeplane.features.map.MapFake;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.note.NoteModel;
+import org.junit.Test;
+
+public class NoteContainsConditionShould {
+	private final NoteContainsCondition condition = new NoteContainsCondition("x", false, false, false);
+
+	@Test
+	public void checkNotLoadedNotesOnCallingThreadOnly() {
+		final NodeModel node = new MapFake().getRoot();
+		final NoteModel note = new NoteModel();
+		note.setContentLoader(() -> "<html><body>x</body></html>");
+		node.addExtension(note);
+		assertThat(condition.canBeCheckedConcurrently(node)).isFalse();
+		note.getXml();
+		assertThat(condition.canBeCheckedConcurrently(node)).isTrue();
+	}
+
+	@Test
+	public void checkNodesWithoutNotesConcurrently() {
+		final NodeModel node = new MapFake().getRoot();
+		assertThat(condition.canBeCheckedConcurrently(node)).isTrue();
+	}
+}
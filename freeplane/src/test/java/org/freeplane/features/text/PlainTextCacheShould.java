@@ -0,0 +1,41 @@
+package org.freeplane.features.text;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.freeplane.features.map.MapFake;
+import org.freeplane.features.map.NodeChangeEvent;
+import org.freeplane.features.map.NodeModel;
+import org.junit.Test;
+
+public class PlainTextCacheShould {
+	private final PlainTextCache cache = PlainTextCache.INSTANCE;
+	private final NodeModel node = new MapFake().addNode("a");
+
+	@Test
+	public void returnPlainTextUnchanged() {
+		final String text = "plain";
+		assertThat(cache.getPlainText(node, PlainTextCache.NODE_TEXT, text)).isSameAs(text);
+	}
+
+	@Test
+	public void reuseConvertedTextForSameSource() {
+		final String html = "<html><body><p>text</p></body></html>";
+		final String plainText = cache.getPlainText(node, PlainTextCache.NOTE, html);
+		assertThat(plainText).isEqualTo("text");
+		assertThat(cache.getPlainText(node, PlainTextCache.NOTE, html)).isSameAs(plainText);
+	}
+
+	@Test
+	public void convertChangedSource() {
+		cache.getPlainText(node, PlainTextCache.DETAILS, "<html><body><p>old</p></body></html>");
+		assertThat(cache.getPlainText(node, PlainTextCache.DETAILS, "<html><body><p>new</p></body></html>")).isEqualTo("new");
+	}
+
+	@Test
+	public void convertAgainAfterNodeChange() {
+		final String html = "<html><body><p>text</p></body></html>";
+		final String plainText = cache.getPlainText(node, PlainTextCache.NOTE, html);
+		cache.nodeChanged(new NodeChangeEvent(node, NodeModel.NOTE_TEXT, null, null, false, false));
+		assertThat(cache.getPlainText(node, PlainTextCache.NOTE, html)).isEqualTo(plainText).isNotSameAs(plainText);
+	}
+}
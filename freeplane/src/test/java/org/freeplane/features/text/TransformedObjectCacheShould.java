@@ -0,0 +1,64 @@
+package org.freeplane.features.text;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.freeplane.features.map.MapFake;
+import org.freeplane.features.map.NodeChangeEvent;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.nodestyle.NodeStyleController;
+import org.junit.Test;
+
+public class TransformedObjectCacheShould {
+	private final TransformedObjectCache cache = new TransformedObjectCache();
+	private final TextController textController = mock(TextController.class);
+	private final MapFake map = new MapFake();
+	private final NodeModel node = map.addNode("a");
+	private final String source = "=1+1";
+
+	@Test
+	public void returnObjectTransformedFromSameSource() {
+		cache.put(textController, node, source, source, "2");
+		assertThat(cache.get(textController, node, source, source)).isEqualTo("2");
+		assertThat(cache.getHits()).isEqualTo(1);
+	}
+
+	@Test
+	public void ignoreObjectsTransformedFromOtherSourceOrByOtherController() {
+		cache.put(textController, node, source, source, "2");
+		assertThat(cache.get(textController, node, new String(source), source)).isNull();
+		assertThat(cache.get(mock(TextController.class), node, source, source)).isNull();
+		assertThat(cache.getMisses()).isEqualTo(2);
+	}
+
+	@Test
+	public void removeObjectsOfChangedNodes() {
+		cache.put(textController, node, source, source, "2");
+		cache.nodeChanged(new NodeChangeEvent(node, NodeModel.NODE_TEXT, null, null, false, false));
+		assertThat(cache.get(textController, node, source, source)).isNull();
+	}
+
+	@Test
+	public void removeObjectsOfWholeMapOnNodeNumberingChange() {
+		final NodeModel sibling = map.addNode("b");
+		cache.put(textController, node, source, source, "2");
+		cache.nodeChanged(new NodeChangeEvent(sibling, NodeStyleController.NODE_NUMBERING, null, true, false, false));
+		assertThat(cache.get(textController, node, source, source)).isNull();
+	}
+
+	@Test
+	public void removeObjectsOfGivenMap() {
+		cache.put(textController, node, source, source, "2");
+		cache.put(textController, new MapFake().addNode("b"), source, source, "2");
+		cache.invalidate(node.getMap());
+		assertThat(cache.get(textController, node, source, source)).isNull();
+		assertThat(cache.size()).isEqualTo(1);
+	}
+
+	@Test
+	public void keepNothingWhenDisabled() {
+		cache.setEnabled(false);
+		cache.put(textController, node, source, source, "2");
+		assertThat(cache.size()).isZero();
+	}
+}
@@ -0,0 +1,102 @@
+package org.freeplane.features.url.mindmapmode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFileAttributeView;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AtomicFileWriterShould {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static AtomicFileWriter.Content content(final String text) {
+		return new AtomicFileWriter.Content() {
+			@Override
+			public void writeTo(OutputStream out) throws IOException {
+				out.write(text.getBytes(StandardCharsets.UTF_8));
+			}
+		};
+	}
+
+	private static String read(File file) throws IOException {
+		return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void replaceFileContent() throws Exception {
+		final File file = folder.newFile("map.mm");
+		Files.write(file.toPath(), "old content".getBytes(StandardCharsets.UTF_8));
+		new AtomicFileWriter().write(file, content("new"));
+		assertThat(read(file)).isEqualTo("new");
+	}
+
+	@Test
+	public void replaceFileContentIfContentWriterClosesStream() throws Exception {
+		final File file = folder.newFile("map.mm");
+		new AtomicFileWriter().write(file, new AtomicFileWriter.Content() {
+			@Override
+			public void writeTo(OutputStream out) throws IOException {
+				final Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+				writer.write("new");
+				writer.close();
+			}
+		});
+		assertThat(read(file)).isEqualTo("new");
+	}
+
+	@Test
+	public void createMissingFile() throws Exception {
+		final File file = new File(folder.getRoot(), "map.mm");
+		new AtomicFileWriter().write(file, content("new"));
+		assertThat(read(file)).isEqualTo("new");
+	}
+
+	@Test
+	public void createMissingFileWithDefaultPermissions() throws Exception {
+		assumeTrue(Files.getFileAttributeView(folder.getRoot().toPath(), PosixFileAttributeView.class) != null);
+		final File file = new File(folder.getRoot(), "map.mm");
+		new AtomicFileWriter().write(file, content("new"));
+		final File otherFile = folder.newFile("other.mm");
+		assertThat(Files.getPosixFilePermissions(file.toPath())).isEqualTo(Files.getPosixFilePermissions(otherFile.toPath()));
+	}
+
+	@Test
+	public void countWrittenBytes() throws Exception {
+		final File file = folder.newFile("map.mm");
+		final SaveStatistics statistics = new AtomicFileWriter().write(file, content("äbc"));
+		assertThat(statistics.getBytesWritten()).isEqualTo(4L);
+		assertThat(statistics.getTotalNanos()).isGreaterThanOrEqualTo(statistics.getWriteNanos() + statistics.getSyncNanos());
+	}
+
+	@Test
+	public void keepOldContentAndRemoveTemporaryFileIfWritingFails() throws Exception {
+		final File file = folder.newFile("map.mm");
+		Files.write(file.toPath(), "old content".getBytes(StandardCharsets.UTF_8));
+		try {
+			new AtomicFileWriter().write(file, new AtomicFileWriter.Content() {
+				@Override
+				public void writeTo(OutputStream out) throws IOException {
+					out.write("partial".getBytes(StandardCharsets.UTF_8));
+					throw new IOException("disk full");
+				}
+			});
+			fail();
+		}
+		catch (IOException e) {
+		}
+		assertThat(read(file)).isEqualTo("old content");
+		assertThat(folder.getRoot().list()).containsOnly("map.mm");
+	}
+}
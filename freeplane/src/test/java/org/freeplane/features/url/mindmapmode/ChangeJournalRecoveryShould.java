@@ -0,0 +1,110 @@
+package org.freeplane.features.url.mindmapmode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import org.freeplane.core.io.xml.XMLLocalParserFactory;
+import org.freeplane.n3.nanoxml.IXMLParser;
+import org.freeplane.n3.nanoxml.StdXMLReader;
+import org.freeplane.n3.nanoxml.XMLElement;
+import org.freeplane.n3.nanoxml.XMLWriter;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ChangeJournalRecoveryShould {
+	private static final String MAP = "<map version=\"freeplane 1.8.0\">"
+	        + "<node TEXT=\"root\" ID=\"ID_0\">"
+	        + "<node TEXT=\"a\" ID=\"ID_1\"><icon BUILTIN=\"yes\"/><node TEXT=\"a1\" ID=\"ID_11\"/></node>"
+	        + "<node TEXT=\"b\" ID=\"ID_2\"/>"
+	        + "<node TREE_ID=\"ID_2\" ID=\"ID_3\"/>"
+	        + "</node></map>";
+
+	private ByteArrayOutputStream bytes;
+	private JournalOutput journal;
+
+	@Before
+	public void setup() throws IOException {
+		bytes = new ByteArrayOutputStream();
+		journal = new JournalOutput(bytes);
+	}
+
+	private static XMLElement parse(String xml) throws Exception {
+		final IXMLParser parser = XMLLocalParserFactory.createLocalXMLParser();
+		parser.setReader(new StdXMLReader(new StringReader(xml)));
+		return (XMLElement) parser.parse();
+	}
+
+	private String replay() throws Exception {
+		journal.flush();
+		final XMLElement map = parse(MAP);
+		new ChangeJournalRecovery().replay(new ByteArrayInputStream(bytes.toByteArray()), map);
+		final StringWriter writer = new StringWriter();
+		new XMLWriter(writer).write(map, false);
+		return writer.toString();
+	}
+
+	@Test
+	public void insertBranchAtNodeIndex() throws Exception {
+		journal.writeInsert("ID_1", 0, "<node TEXT=\"new\" ID=\"ID_4\"><node TEXT=\"new child\" ID=\"ID_5\"/></node>");
+		journal.writeInsert("ID_5", 0, "<node TEXT=\"grandchild\" ID=\"ID_6\"/>");
+		assertThat(replay()).contains("<node TEXT=\"a\" ID=\"ID_1\"><icon BUILTIN=\"yes\"/>"
+		        + "<node TEXT=\"new\" ID=\"ID_4\"><node TEXT=\"new child\" ID=\"ID_5\">"
+		        + "<node TEXT=\"grandchild\" ID=\"ID_6\"/></node></node><node TEXT=\"a1\" ID=\"ID_11\"/></node>");
+	}
+
+	@Test
+	public void updateNodeContentKeepingChildren() throws Exception {
+		journal.writeUpdate("ID_1", "<node TEXT=\"changed\" ID=\"ID_1\"><attribute NAME=\"n\" VALUE=\"v\"/></node>");
+		assertThat(replay()).contains("<node TEXT=\"changed\" ID=\"ID_1\"><attribute NAME=\"n\" VALUE=\"v\"/>"
+		        + "<node TEXT=\"a1\" ID=\"ID_11\"/></node>");
+	}
+
+	@Test
+	public void keepCloneReferences() throws Exception {
+		journal.writeUpdate("ID_3", "<node TEXT=\"b\" ID=\"ID_3\"/>");
+		assertThat(replay()).contains("<node TREE_ID=\"ID_2\" ID=\"ID_3\"/>");
+	}
+
+	@Test
+	public void moveAndDeleteNodes() throws Exception {
+		journal.writeMove("ID_11", "ID_2", 0);
+		journal.writeDelete("ID_1");
+		assertThat(replay()).isEqualTo("<map version=\"freeplane 1.8.0\"><node TEXT=\"root\" ID=\"ID_0\">"
+		        + "<node TEXT=\"b\" ID=\"ID_2\"><node TEXT=\"a1\" ID=\"ID_11\"/></node>"
+		        + "<node TREE_ID=\"ID_2\" ID=\"ID_3\"/></node></map>");
+	}
+
+	@Test
+	public void ignoreTruncatedLastRecord() throws Exception {
+		journal.writeDelete("ID_2");
+		journal.writeDelete("ID_1");
+		journal.flush();
+		final byte[] content = bytes.toByteArray();
+		bytes = new ByteArrayOutputStream();
+		bytes.write(Arrays.copyOf(content, content.length - 2));
+		journal = new JournalOutput(bytes);
+		final String result = replay();
+		assertThat(result).doesNotContain("TEXT=\"b\"").contains("ID=\"ID_1\"");
+	}
+
+	@Test
+	public void ignoreRecordWithInvalidLength() throws Exception {
+		journal.writeDelete("ID_2");
+		journal.flush();
+		final DataOutputStream torn = new DataOutputStream(bytes);
+		torn.write(JournalOutput.DELETE);
+		torn.writeInt(Integer.MAX_VALUE);
+		torn.write(JournalOutput.DELETE);
+		torn.writeInt(-1);
+		torn.flush();
+		final String result = replay();
+		assertThat(result).doesNotContain("TEXT=\"b\"").contains("ID=\"ID_1\"");
+	}
+}
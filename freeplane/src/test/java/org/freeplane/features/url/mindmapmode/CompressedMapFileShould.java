@@ -0,0 +1,107 @@
+package org.freeplane.features.url.mindmapmode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.zip.ZipOutputStream;
+
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.freeplane.core.util.Compat;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.note.NoteModel;
+import org.freeplane.features.text.RichContentSource;
+import org.freeplane.features.text.RichTextModel;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CompressedMapFileShould {
+	private static final String LARGE_CONTENT = "<html><body>"
+	        + new String(new char[CompressedMapFile.MIN_STORED_CONTENT_LENGTH]).replace('\0', 'x') + "</body></html>";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private String storeContent(File file, RichTextModel model, String content) throws IOException {
+		try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(file))) {
+			return new CompressedMapFile.ContentStore(zip).store("NOTE", model, content);
+		}
+	}
+
+	@Test
+	public void keepSmallContentInMapXml() throws Exception {
+		final File file = folder.newFile("map.mmz");
+		assertThat(storeContent(file, new RichTextModel(), "<html/>")).isNull();
+	}
+
+	@Test
+	public void storeLargeContentInSeparateEntry() throws Exception {
+		final File file = folder.newFile("map.mmz");
+		final String entry = storeContent(file, new RichTextModel(), LARGE_CONTENT);
+		assertThat(entry).isEqualTo("content/1.note.html");
+		assertThat(new CompressedMapFile(file).load(entry)).isEqualTo(LARGE_CONTENT);
+	}
+
+	@Test
+	public void loadAttachedContentOnFirstAccess() throws Exception {
+		final File file = folder.newFile("map.mmz");
+		final String entry = storeContent(file, new RichTextModel(), LARGE_CONTENT);
+		final RichTextModel model = new RichTextModel();
+		new CompressedMapFile(file).attach(model, entry);
+		assertThat(model.isContentLoaded()).isFalse();
+		assertThat(model.getXmlForSaving()).isEqualTo(LARGE_CONTENT);
+		assertThat(model.isContentLoaded()).isFalse();
+		assertThat(model.getXml()).isEqualTo(LARGE_CONTENT);
+		assertThat(model.isContentLoaded()).isTrue();
+	}
+
+	@Test
+	public void loadAttachedContentBeforeFileIsReplaced() throws Exception {
+		final File file = folder.newFile("map.mmz");
+		final String entry = storeContent(file, new RichTextModel(), LARGE_CONTENT);
+		final RichTextModel model = new RichTextModel();
+		final CompressedMapFile container = new CompressedMapFile(file);
+		container.attach(model, entry);
+		container.loadAttachedContent(Collections.<RichTextModel> emptySet());
+		container.close();
+		Files.delete(file.toPath());
+		assertThat(model.isContentLoaded()).isTrue();
+		assertThat(model.getXml()).isEqualTo(LARGE_CONTENT);
+	}
+
+	@Test
+	public void recognizeZipSignature() throws Exception {
+		final File file = folder.newFile("map.mmz");
+		storeContent(file, new RichTextModel(), LARGE_CONTENT);
+		final byte[] content = Files.readAllBytes(file.toPath());
+		assertThat(CompressedMapFile.isCompressed(content, content.length)).isTrue();
+		assertThat(CompressedMapFile.isCompressed("<map".getBytes(), 4)).isFalse();
+	}
+
+	@SuppressWarnings("deprecation")
+	@Test
+	public void keepContentAttachedWhenMapIsSavedAutomatically() throws Exception {
+		new HeadlessFreeplaneRunner();
+		final File file = folder.newFile("map.mmz");
+		final NoteModel note = new NoteModel();
+		final String entry = storeContent(file, note, LARGE_CONTENT);
+		final CompressedMapFile container = new CompressedMapFile(file);
+		container.attach(note, entry);
+		final MapModel map = new MapModel();
+		final NodeModel root = new NodeModel("root", map);
+		root.addExtension(note);
+		map.setRoot(root);
+		map.setURL(Compat.fileToUrl(file));
+		map.putExtension(RichContentSource.class, container);
+		final File autosaveFile = new File(folder.getRoot(), "map.mmz.1.autosave");
+		new MFileManager().writeToFile(map, autosaveFile);
+		assertThat(note.isContentLoaded()).isFalse();
+		assertThat(CompressedMapFile.getContainer(map)).isSameAs(container);
+		assertThat(new String(Files.readAllBytes(autosaveFile.toPath()), "UTF-8")).contains("xxxxxxxx");
+	}
+}
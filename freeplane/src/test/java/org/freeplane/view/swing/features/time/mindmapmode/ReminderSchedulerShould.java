@@ -0,0 +1,62 @@
+package org.freeplane.view.swing.features.time.mindmapmode;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Date;
+import java.util.Timer;
+
+import org.freeplane.features.map.MapModel;
+import org.junit.Test;
+
+public class ReminderSchedulerShould {
+	private final Timer timer = mock(Timer.class);
+	private final ReminderScheduler scheduler = new ReminderScheduler(timer);
+	private final MapModel map = new MapModel();
+	private final MapModel otherMap = new MapModel();
+	private final Date firstTime = new Date();
+
+	private TimerBlinkTask schedule(MapModel map) {
+		final TimerBlinkTask task = mock(TimerBlinkTask.class);
+		scheduler.schedule(map, task, firstTime, 1000);
+		return task;
+	}
+
+	@Test
+	public void cancelAllTasksOfClosedMap() {
+		final TimerBlinkTask first = schedule(map);
+		final TimerBlinkTask second = schedule(map);
+		final TimerBlinkTask otherMapTask = schedule(otherMap);
+		scheduler.onRemove(map);
+		verify(first).cancel();
+		verify(second).cancel();
+		verify(otherMapTask, never()).cancel();
+	}
+
+	@Test
+	public void purgeTimerQueueWhenMapIsClosed() {
+		schedule(map);
+		scheduler.onRemove(map);
+		verify(timer).purge();
+	}
+
+	@Test
+	public void forgetCancelledTasks() {
+		final TimerBlinkTask task = schedule(map);
+		scheduler.cancel(map, task);
+		scheduler.onRemove(map);
+		verify(task, times(1)).cancel();
+		verify(timer, never()).purge();
+	}
+
+	@Test
+	public void purgeTimerQueueAfterManyCancelledTasks() {
+		for (int i = 0; i < 255; i++)
+			scheduler.cancel(map, schedule(map));
+		verify(timer, never()).purge();
+		scheduler.cancel(map, schedule(map));
+		verify(timer).purge();
+	}
+}
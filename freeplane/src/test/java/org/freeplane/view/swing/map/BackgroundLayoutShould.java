@@ -0,0 +1,119 @@
+package org.freeplane.view.swing.map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.SwingUtilities;
+
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class BackgroundLayoutShould {
+	@BeforeClass
+	public static void initializeResources() {
+		new HeadlessFreeplaneRunner();
+	}
+
+	private static class Branch {
+		final NodeViewMocks views = new NodeViewMocks();
+		final NodeView root = views.root(100, 20);
+		final NodeView first = views.addChild(root, false, 60, 20);
+		final NodeView second = views.addChild(root, false, 40, 30);
+		final NodeView grandchild = views.addChild(second, false, 30, 10);
+		final NodeView summary = views.addSummary(root, false, 50, 20);
+		final NodeView left = views.addChild(root, true, 70, 25);
+
+		/** in order of validation */
+		NodeView[] views() {
+			return new NodeView[] {root, first, second, grandchild, summary, left};
+		}
+
+		List<Rectangle> bounds() {
+			final List<Rectangle> bounds = new ArrayList<>();
+			for (NodeView view : views()) {
+				bounds.add(view.getBounds());
+				bounds.add(view.getContent().getBounds());
+			}
+			return bounds;
+		}
+	}
+
+	private final Branch branch = new Branch();
+	private final List<Runnable> calculations = new ArrayList<>();
+	private final BackgroundLayout uut = new BackgroundLayout(branch.views.map, 2, calculations::add);
+
+	@Test
+	public void applyCalculatedLayoutInNextValidation() throws Exception {
+		onEventDispatchThread(() -> assertThat(uut.layout(branch.root)).isTrue());
+		calculateInBackground();
+		onEventDispatchThread(() -> {
+			assertThat(uut.isCalculating()).isFalse();
+			for (NodeView view : branch.views())
+				assertThat(uut.layout(view)).isTrue();
+		});
+
+		final Branch synchronouslyLaidOutBranch = new Branch();
+		final NodeView[] views = synchronouslyLaidOutBranch.views();
+		for (int i = views.length - 1; i >= 0; i--)
+			new VerticalNodeViewLayoutStrategy(views[i]).calculateLayoutData();
+		assertThat(branch.bounds()).isEqualTo(synchronouslyLaidOutBranch.bounds());
+	}
+
+	@Test
+	public void notCalculateLayoutAfterCancellation() throws Exception {
+		onEventDispatchThread(() -> {
+			uut.layout(branch.root);
+			uut.viewInvalidated(branch.second);
+			assertThat(uut.isCalculating()).isFalse();
+		});
+		calculateInBackground();
+		onEventDispatchThread(() -> assertThat(uut.layout(branch.second)).isFalse());
+
+		verify(branch.second).invalidate();
+		verify(branch.second, never()).setSize(anyInt(), anyInt());
+	}
+
+	@Test
+	public void notApplyLayoutCalculatedBeforeCancellation() throws Exception {
+		onEventDispatchThread(() -> {
+			uut.layout(branch.root);
+			calculations.get(0).run();
+			uut.viewInvalidated(branch.second);
+		});
+		onEventDispatchThread(() -> assertThat(uut.layout(branch.second)).isFalse());
+
+		verify(branch.second, never()).setSize(anyInt(), anyInt());
+	}
+
+	@Test
+	public void notApplyLayoutToViewInvalidatedAfterCalculation() throws Exception {
+		onEventDispatchThread(() -> uut.layout(branch.root));
+		calculateInBackground();
+		when(branch.second.getLayoutRevision()).thenReturn(1);
+		onEventDispatchThread(() -> {
+			assertThat(uut.layout(branch.first)).isTrue();
+			assertThat(uut.layout(branch.second)).isFalse();
+		});
+
+		verify(branch.second, never()).setSize(anyInt(), anyInt());
+	}
+
+	private void calculateInBackground() throws Exception {
+		for (Runnable calculation : calculations)
+			calculation.run();
+		// wait until results are passed to the event dispatch thread
+		onEventDispatchThread(() -> {});
+	}
+
+	private void onEventDispatchThread(Runnable runnable) throws Exception {
+		SwingUtilities.invokeAndWait(runnable);
+	}
+}
@@ -0,0 +1,65 @@
+package org.freeplane.view.swing.map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+
+import org.freeplane.view.swing.map.link.ILinkView;
+import org.junit.Test;
+
+public class LinkViewIndexShould {
+	private final LinkViewIndex uut = new LinkViewIndex(new Rectangle(0, 0, 10000, 10000), "true", false);
+
+	@Test
+	public void findOnlyViewsIntersectingGivenArea() throws Exception {
+		final ILinkView near = mock(ILinkView.class);
+		final ILinkView far = mock(ILinkView.class);
+		uut.add(near, new Rectangle(10, 10, 100, 100));
+		uut.add(far, new Rectangle(5000, 5000, 100, 100));
+
+		assertThat(uut.getViewsIntersecting(new Rectangle(0, 0, 200, 200))).containsExactly(near);
+	}
+
+	@Test
+	public void alwaysFindViewsWithUnknownBounds() throws Exception {
+		final ILinkView unbounded = mock(ILinkView.class);
+		final ILinkView far = mock(ILinkView.class);
+		uut.add(far, new Rectangle(5000, 5000, 100, 100));
+		uut.add(unbounded, null);
+
+		assertThat(uut.getViewsIntersecting(new Rectangle(0, 0, 200, 200))).containsExactly(unbounded);
+	}
+
+	@Test
+	public void returnViewsSpanningSeveralCellsOnceInTheirOrder() throws Exception {
+		final ILinkView first = mock(ILinkView.class);
+		final ILinkView second = mock(ILinkView.class);
+		uut.add(first, new Rectangle(-1000, -1000, 3000, 3000));
+		uut.add(second, new Rectangle(0, 0, 1000, 1000));
+
+		assertThat(uut.getViewsIntersecting(new Rectangle(-500, -500, 2000, 2000))).containsExactly(first, second);
+	}
+
+	@Test
+	public void preferViewsOfSelectedNodesOnCollision() throws Exception {
+		final Point p = new Point(50, 50);
+		final ILinkView notSelected = mock(ILinkView.class);
+		when(notSelected.detectCollision(p, false)).thenReturn(true);
+		final ILinkView selected = mock(ILinkView.class);
+		when(selected.detectCollision(p, true)).thenReturn(true);
+		uut.add(notSelected, new Rectangle(0, 0, 100, 100));
+		uut.add(selected, new Rectangle(0, 0, 100, 100));
+
+		assertThat(uut.detectCollision(p)).isSameAs(selected);
+	}
+
+	@Test
+	public void paintOnlyInsideOfCoveredAreaWithSameSettings() throws Exception {
+		assertThat(uut.canPaint(new Rectangle(100, 100, 100, 100), "true", false)).isTrue();
+		assertThat(uut.canPaint(new Rectangle(-100, 100, 100, 100), "true", false)).isFalse();
+		assertThat(uut.canPaint(new Rectangle(100, 100, 100, 100), "true", true)).isFalse();
+	}
+}
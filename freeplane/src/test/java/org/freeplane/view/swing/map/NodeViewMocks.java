@@ -0,0 +1,110 @@
+package org.freeplane.view.swing.map;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+
+import org.freeplane.features.filter.Filter;
+import org.freeplane.features.map.MapFake;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.map.SummaryNode;
+import org.freeplane.features.styles.MapViewLayout;
+
+/**
+ * Creates mocked node views which keep their bounds and child components like real ones,
+ * so that layouts can be calculated without creating a map view.
+ */
+class NodeViewMocks {
+	static final int SPACE_AROUND = 10;
+	static final int HGAP = 20;
+	static final int MINIMAL_DISTANCE_BETWEEN_CHILDREN = 5;
+
+	final MapView map = mock(MapView.class);
+	private final MapFake mapModel = new MapFake();
+	private final Map<NodeView, List<Component>> childComponents = new HashMap<>();
+
+	NodeViewMocks() {
+		when(map.getFilter()).thenReturn(Filter.createFilter(null, false, false, null));
+		when(map.getZoom()).thenReturn(1f);
+		when(map.getLayoutType()).thenReturn(MapViewLayout.MAP);
+		when(map.getZoomed(anyInt())).thenAnswer(invocation -> invocation.getArgument(0));
+		when(map.isShowing()).thenReturn(true);
+	}
+
+	NodeView root(int contentWidth, int contentHeight) {
+		final NodeView root = view(mapModel.getRoot(), contentWidth, contentHeight);
+		when(map.getRoot()).thenReturn(root);
+		return root;
+	}
+
+	NodeView addChild(NodeView parent, boolean isLeft, int contentWidth, int contentHeight) {
+		return addChild(parent, mapModel.createNode("node"), isLeft, contentWidth, contentHeight);
+	}
+
+	NodeView addSummary(NodeView parent, boolean isLeft, int contentWidth, int contentHeight) {
+		return addChild(parent, mapModel.createSummaryNode(), isLeft, contentWidth, contentHeight);
+	}
+
+	private NodeView addChild(NodeView parent, NodeModel node, boolean isLeft, int contentWidth, int contentHeight) {
+		parent.getModel().insert(node);
+		node.setLeft(isLeft);
+		final NodeView child = view(node, contentWidth, contentHeight);
+		final List<Component> components = childComponents.get(parent);
+		components.add(components.size() - 1, child);
+		return child;
+	}
+
+	private NodeView view(NodeModel node, int contentWidth, int contentHeight) {
+		final NodeView view = mock(NodeView.class);
+		final JComponent content = new JPanel();
+		content.setPreferredSize(new Dimension(contentWidth, contentHeight));
+		final List<Component> components = new ArrayList<>();
+		components.add(content);
+		childComponents.put(view, components);
+		final Rectangle bounds = new Rectangle();
+		final int[] overlaps = new int[2];
+		when(view.getModel()).thenReturn(node);
+		when(view.getMap()).thenReturn(map);
+		when(view.getContent()).thenReturn(content);
+		when(view.getComponentCount()).thenAnswer(invocation -> components.size());
+		when(view.getComponent(anyInt())).thenAnswer(invocation -> components.get(invocation.getArgument(0)));
+		when(view.isContentVisible()).thenReturn(true);
+		when(view.isLeft()).thenAnswer(invocation -> node.isLeft());
+		when(view.isSummary()).thenAnswer(invocation -> SummaryNode.isSummaryNode(node));
+		when(view.getSpaceAround()).thenReturn(SPACE_AROUND);
+		when(view.getHGap()).thenReturn(HGAP);
+		when(view.getZoomed(anyInt())).thenAnswer(invocation -> invocation.getArgument(0));
+		when(view.getChildDistanceContainer()).thenReturn(view);
+		when(view.getMinimalDistanceBetweenChildren()).thenReturn(MINIMAL_DISTANCE_BETWEEN_CHILDREN);
+		final ChildViewLayoutCache childViewLayoutCache = new ChildViewLayoutCache(view);
+		when(view.getChildViewLayoutCache()).thenReturn(childViewLayoutCache);
+		doAnswer(invocation -> {
+			bounds.setLocation(invocation.getArgument(0), invocation.getArgument(1));
+			return null;
+		}).when(view).setLocation(anyInt(), anyInt());
+		doAnswer(invocation -> {
+			bounds.setSize(invocation.getArgument(0), invocation.getArgument(1));
+			return null;
+		}).when(view).setSize(anyInt(), anyInt());
+		when(view.getBounds()).thenAnswer(invocation -> new Rectangle(bounds));
+		when(view.getWidth()).thenAnswer(invocation -> bounds.width);
+		when(view.getHeight()).thenAnswer(invocation -> bounds.height);
+		doAnswer(invocation -> overlaps[0] = invocation.getArgument(0)).when(view).setTopOverlap(anyInt());
+		doAnswer(invocation -> overlaps[1] = invocation.getArgument(0)).when(view).setBottomOverlap(anyInt());
+		when(view.getTopOverlap()).thenAnswer(invocation -> overlaps[0]);
+		when(view.getBottomOverlap()).thenAnswer(invocation -> overlaps[1]);
+		return view;
+	}
+}
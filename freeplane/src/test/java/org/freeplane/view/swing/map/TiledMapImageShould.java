@@ -0,0 +1,124 @@
+package org.freeplane.view.swing.map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TiledMapImageShould {
+	@BeforeClass
+	public static void initializeResources() {
+		new HeadlessFreeplaneRunner();
+	}
+
+	private static final Rectangle PRINTED_AREA = new Rectangle(10, 20, 30, 2 * TiledMapImage.STRIP_HEIGHT + 100);
+	private final MapView view = mock(MapView.class);
+	private final TiledMapImage uut;
+
+	public TiledMapImageShould() {
+		when(view.getBackground()).thenReturn(Color.WHITE);
+		doAnswer(invocation -> {
+			final Graphics g = invocation.getArgument(0);
+			for (int y = 0; y < PRINTED_AREA.y + PRINTED_AREA.height; y++) {
+				for (int x = 0; x < PRINTED_AREA.x + PRINTED_AREA.width; x++) {
+					g.setColor(new Color(pixelAt(x, y)));
+					g.fillRect(x, y, 1, 1);
+				}
+			}
+			return null;
+		}).when(view).print(any(Graphics.class));
+		uut = new TiledMapImage(view, PRINTED_AREA, 1);
+	}
+
+	@After
+	public void closeImage() {
+		uut.close();
+	}
+
+	/** pixel printed by the map view at the given map coordinates */
+	private static int pixelAt(int x, int y) {
+		return new Color(x, y % 256, y / 256).getRGB() & 0xFFFFFF;
+	}
+
+	@Test
+	public void returnDataAcrossStripBoundary() throws Exception {
+		final Rectangle area = new Rectangle(5, TiledMapImage.STRIP_HEIGHT - 10, 20, 20);
+
+		final Raster data = uut.getData(area);
+
+		assertThat(data.getBounds()).isEqualTo(area);
+		assertContainsPrintedPixels(data);
+	}
+
+	@Test
+	public void returnAllDataPrintingEachStripOnce() throws Exception {
+		final Raster data = uut.getData();
+
+		assertThat(data.getBounds()).isEqualTo(new Rectangle(0, 0, PRINTED_AREA.width, PRINTED_AREA.height));
+		assertContainsPrintedPixels(data);
+		verify(view, times(3)).print(any(Graphics.class));
+	}
+
+	@Test
+	public void copyDataAcrossStripBoundariesIntoGivenRaster() throws Exception {
+		final WritableRaster raster = Raster.createWritableRaster(
+		    uut.getSampleModel().createCompatibleSampleModel(10, TiledMapImage.STRIP_HEIGHT + 20),
+		    new Point(3, TiledMapImage.STRIP_HEIGHT - 10));
+
+		assertThat(uut.copyData(raster)).isSameAs(raster);
+		assertContainsPrintedPixels(raster);
+	}
+
+	@Test
+	public void copyDataIntoNewRaster() throws Exception {
+		final WritableRaster data = uut.copyData(null);
+
+		assertThat(data.getBounds()).isEqualTo(new Rectangle(0, 0, PRINTED_AREA.width, PRINTED_AREA.height));
+		assertContainsPrintedPixels(data);
+	}
+
+	@Test
+	public void leavePixelsOutsideOfImageUntouched() throws Exception {
+		final Rectangle area = new Rectangle(PRINTED_AREA.width - 5, PRINTED_AREA.height - 5, 10, 10);
+
+		final Raster data = uut.getData(area);
+
+		assertThat(data.getBounds()).isEqualTo(area);
+		assertThat(data.getDataElements(PRINTED_AREA.width + 1, PRINTED_AREA.height + 1, null)).isEqualTo(new int[] {0});
+		assertThat(((int[]) data.getDataElements(PRINTED_AREA.width - 1, PRINTED_AREA.height - 1, null))[0])
+		    .isEqualTo(pixelAt(PRINTED_AREA.x + PRINTED_AREA.width - 1, PRINTED_AREA.y + PRINTED_AREA.height - 1));
+	}
+
+	@Test
+	public void endPrintingOnClose() throws Exception {
+		uut.close();
+
+		verify(view).preparePrinting();
+		verify(view).endPrinting();
+	}
+
+	private void assertContainsPrintedPixels(Raster data) {
+		final Rectangle bounds = data.getBounds();
+		for (int y = bounds.y; y < bounds.y + bounds.height; y++) {
+			for (int x = bounds.x; x < bounds.x + bounds.width; x++) {
+				final int pixel = ((int[]) data.getDataElements(x, y, null))[0];
+				assertThat(pixel).as("pixel at %d, %d", x, y).isEqualTo(pixelAt(x + PRINTED_AREA.x, y + PRINTED_AREA.y));
+			}
+		}
+	}
+}
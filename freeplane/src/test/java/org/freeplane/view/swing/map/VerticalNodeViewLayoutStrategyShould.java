@@ -0,0 +1,49 @@
+package org.freeplane.view.swing.map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.Rectangle;
+
+import org.freeplane.core.ui.menubuilders.HeadlessFreeplaneRunner;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class VerticalNodeViewLayoutStrategyShould {
+	@BeforeClass
+	public static void initializeResources() {
+		new HeadlessFreeplaneRunner();
+	}
+
+	private final NodeViewMocks views = new NodeViewMocks();
+	private final NodeView root = views.root(100, 20);
+	private final NodeView first = views.addChild(root, false, 60, 20);
+	private final NodeView second = views.addChild(root, false, 40, 30);
+	private final NodeView grandchild = views.addChild(second, false, 30, 10);
+	private final NodeView summary = views.addSummary(root, false, 50, 20);
+	private final NodeView left = views.addChild(root, true, 70, 25);
+
+	@Test
+	public void layOutViewsAsBefore() throws Exception {
+		layout(first);
+		layout(grandchild);
+		layout(second);
+		layout(summary);
+		layout(left);
+		layout(root);
+
+		assertThat(root.getBounds()).isEqualTo(new Rectangle(0, 0, 390, 70));
+		assertThat(root.getContent().getBounds()).isEqualTo(new Rectangle(100, 25, 100, 20));
+		assertThat(root.getTopOverlap()).isZero();
+		assertThat(root.getBottomOverlap()).isZero();
+		assertThat(first.getBounds()).isEqualTo(new Rectangle(210, 0, 80, 40));
+		assertThat(second.getBounds()).isEqualTo(new Rectangle(210, 20, 110, 50));
+		assertThat(second.getContent().getBounds()).isEqualTo(new Rectangle(10, 10, 40, 30));
+		assertThat(grandchild.getBounds()).isEqualTo(new Rectangle(60, 10, 50, 30));
+		assertThat(summary.getBounds()).isEqualTo(new Rectangle(320, 15, 70, 40));
+		assertThat(left.getBounds()).isEqualTo(new Rectangle(0, 13, 90, 45));
+	}
+
+	private void layout(NodeView view) {
+		new VerticalNodeViewLayoutStrategy(view).calculateLayoutData();
+	}
+}
@@ -0,0 +1,76 @@
+package org.freeplane.api;
+
+/**
+ * Usage counters of the formula result cache of a map
+ * returned by {@link MindMap#getFormulaCacheStatistics()}
+ *
+ * @since 1.8.11
+ */
+public class FormulaCacheStatistics {
+	private final int size;
+	private final int maximumSize;
+	private final long hits;
+	private final long misses;
+	private final long evictions;
+	private final long averageEvaluationTimeNanos;
+
+	public FormulaCacheStatistics(int size, int maximumSize, long hits, long misses, long evictions,
+	                              long averageEvaluationTimeNanos) {
+		super();
+		this.size = size;
+		this.maximumSize = maximumSize;
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+		this.averageEvaluationTimeNanos = averageEvaluationTimeNanos;
+	}
+
+	/**
+	 * Returns the number of cached formula results
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the maximal number of cached formula results, 0 if the cache is not bounded
+	 */
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+
+	/**
+	 * Returns how often a formula result was found in the cache
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns how often a formula had to be evaluated because its result was not in the cache
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Returns how many results were removed from the cache to keep it within its maximal size
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Returns the average time in nanoseconds spent on evaluation of a formula not found in the cache
+	 */
+	public long getAverageEvaluationTimeNanos() {
+		return averageEvaluationTimeNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "FormulaCacheStatistics [size=" + size + ", maximumSize=" + maximumSize + ", hits=" + hits
+		        + ", misses=" + misses + ", evictions=" + evictions + ", averageEvaluationTimeNanos="
+		        + averageEvaluationTimeNanos + "]";
+	}
+}
@@ -132,6 +132,13 @@ public interface MindMap extends MindMapRO {
 	 * Each formula not having valid result in the cache is evaluated.
 	 *  @since 1.7.2 */
 	void evaluateOutdatedFormulas();
+
+	/**
+	 * Returns usage counters of the formula result cache of the map.
+	 *
+	 * The maximal cache size is configured by the preference formula_cache_max_entries.
+	 *  @since 1.8.11 */
+	FormulaCacheStatistics getFormulaCacheStatistics();
 	
 	void addListener(NodeChangeListener listener);
 	
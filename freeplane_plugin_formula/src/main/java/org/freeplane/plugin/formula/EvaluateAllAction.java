@@ -2,13 +2,16 @@ package org.freeplane.plugin.formula;
 
 import java.awt.event.ActionEvent;
 
+import org.freeplane.api.FormulaCacheStatistics;
 import org.freeplane.core.ui.AFreeplaneAction;
+import org.freeplane.core.util.TextUtils;
 import org.freeplane.features.map.MapModel;
 import org.freeplane.features.mode.Controller;
 import org.freeplane.plugin.script.FormulaUtils;
 
 class EvaluateAllAction extends AFreeplaneAction {
 	private static final long serialVersionUID = 1L;
+	private static final String CACHE_STATISTICS_STATUS_INFO_KEY = "formula_cache_statistics";
 
 	public EvaluateAllAction() {
 		super(FormulaPluginUtils.getFormulaKey("EvaluateAllAction"));
@@ -16,8 +19,14 @@ class EvaluateAllAction extends AFreeplaneAction {
 
 	@Override
 	public void actionPerformed(final ActionEvent e) {
-		final MapModel map = Controller.getCurrentController().getMap();
+		final Controller controller = Controller.getCurrentController();
+		final MapModel map = controller.getMap();
 		FormulaUtils.evaluateAllFormulas(map);
+		final FormulaCacheStatistics statistics = FormulaUtils.getCacheStatistics(map);
+		controller.getViewController().addStatusInfo(CACHE_STATISTICS_STATUS_INFO_KEY,
+		    TextUtils.format(FormulaPluginUtils.getFormulaKey("cache.statistics"), statistics.getSize(),
+		        statistics.getHits(), statistics.getMisses(), statistics.getEvictions(),
+		        statistics.getAverageEvaluationTimeNanos() / 1e6));
 	}
 
 }
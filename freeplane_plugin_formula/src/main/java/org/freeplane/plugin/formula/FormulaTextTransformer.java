@@ -73,6 +73,12 @@ class FormulaTextTransformer extends AbstractContentTransformer implements IEdit
     	return true;
     }
 
+    @Override
+	public boolean isTransformationCacheable(TextController textController, final Object obj, final NodeModel node,
+    		Object transformedExtension) {
+    	return FormulaUtils.isCachingEnabled() || ! isFormula(textController, obj, node, transformedExtension);
+    }
+
 	@Override
 	public EditNodeBase createEditor(final NodeModel node, final EditNodeBase.IEditControl editControl,
 	                                 String text, final boolean editLong) {
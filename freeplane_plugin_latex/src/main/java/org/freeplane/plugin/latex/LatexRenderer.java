@@ -46,6 +46,12 @@ public class LatexRenderer extends AbstractContentTransformer implements IEditBa
 		return content;
 	}
 
+	@Override
+	public boolean isTransformationCacheable(TextController textController, Object content, NodeModel node,
+			Object transformedExtension) {
+		return true;
+	}
+
 	private static boolean checkForLatexPrefix(final String nodeText, final String prefix)
 	{
 		int startLength = prefix.length() + 1;
@@ -5,10 +5,12 @@ import org.freeplane.plugin.script.dependencies.RelatedElements;
 class CachedResult {
 	final Object returnedValue;
 	final RelatedElements relatedElements;
+	final long evaluationTime;
 
 
-	CachedResult(Object returnedValue, RelatedElements relatedElements) {
+	CachedResult(Object returnedValue, RelatedElements relatedElements, long evaluationTime) {
 		this.returnedValue = returnedValue;
 		this.relatedElements = relatedElements;
+		this.evaluationTime = evaluationTime;
 	}
 }
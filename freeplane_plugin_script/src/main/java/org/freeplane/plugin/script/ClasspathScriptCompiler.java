@@ -1,12 +1,23 @@
 package org.freeplane.plugin.script;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.commons.io.FileUtils;
 import org.codehaus.groovy.control.CompilationUnit;
@@ -26,6 +37,8 @@ class ClasspathScriptCompiler {
 	private static final String COMPILED_SCRIPTS_FILE = ".compiledscripts";
 	private static final String LAST_JAVA_COMPILER_VERSION = "last_java_compiler_version";
 	private static final String COMPILE_ONLY_CHANGED_SCRIPT_FILES = "compile_only_changed_script_files";
+	private static final String COMPILE_SCRIPTS_IN_BACKGROUND = "compile_script_library_in_background";
+	private static volatile CompletableFuture<Void> libraryCompilation = CompletableFuture.completedFuture(null);
 
 	private static boolean isCurrentJavaVersionCompatibleWithCachedClassFiles() {
 	    String lastJavaVersion = ResourceController.getResourceController().getProperty(LAST_JAVA_COMPILER_VERSION, null);
@@ -44,9 +57,8 @@ class ClasspathScriptCompiler {
 
 
 	
-	private final CompilerConfiguration compilerConfiguration;
 	private final GroovyClassLoader compilerClassLoader;
-	private PrecompiledClasses oldCompiledFiles;
+	private volatile PrecompiledClasses oldCompiledFiles;
 	private final boolean compileOnlyChangedScriptFiles;
 
 
@@ -54,32 +66,98 @@ class ClasspathScriptCompiler {
 	ClasspathScriptCompiler() {
 		final ScriptClassLoader scriptClassLoader = ScriptClassLoader.createClassLoader();
 		compilerClassLoader = new GroovyClassLoader(scriptClassLoader);
-		compilerConfiguration = createCompilerConfiguration();
 		compileOnlyChangedScriptFiles = isCurrentJavaVersionCompatibleWithCachedClassFiles() && compilesOnlyChangedScriptFiles();
 	}
 
 	 void compileScriptsOnPath(List<String> pathElements) {
-		compileLibraryScripts(pathElements);
-        new CompiledScriptCleaner().removeOutdatedCompiledScripts(compileOnlyChangedScriptFiles);
-        ResourceController.getResourceController().setProperty(LAST_JAVA_COMPILER_VERSION, Compat.JAVA_VERSION);
+		if (compilesInBackground())
+			compileLibraryScriptsInBackground(pathElements);
+		else {
+			compileLibraryScripts(pathElements);
+			finishCompilation();
+		}
     }
 
+	private void finishCompilation() {
+		new CompiledScriptCleaner().removeOutdatedCompiledScripts(compileOnlyChangedScriptFiles);
+        ResourceController.getResourceController().setProperty(LAST_JAVA_COMPILER_VERSION, Compat.JAVA_VERSION);
+	}
+
     private void compileLibraryScripts(List<String> pathElements) {
         PrecompiledClasses newCompiledFiles = new PrecompiledClasses(System.currentTimeMillis());
-        File precompiledScriptsDir = ScriptResources.getPrecompiledScriptsDir();
-		final File compiledScriptListFile = compiledScriptListFile(precompiledScriptsDir);
+        final File compiledScriptListFile = compiledScriptListFile(ScriptResources.getPrecompiledScriptsDir());
 		oldCompiledFiles = PrecompiledClasses.read(compiledScriptListFile);
-        for (String pathElement : pathElements) {
-            final File dir = new File(pathElement);
-            if (dir.isDirectory() && ! precompiledScriptsDir.equals(dir)) {
-				final Collection<File> compiledScripts = compileScriptsInDirectory(dir);
-				newCompiledFiles.addAll(compiledScripts);
-			}
+        for (File dir : libraryDirectories(pathElements)) {
+			final Collection<File> compiledScripts = compileScriptsInDirectory(dir);
+			newCompiledFiles.addAll(compiledScripts);
         }
         oldCompiledFiles = null;
 		newCompiledFiles.write(compiledScriptListFile);
     }
 
+	private List<File> libraryDirectories(List<String> pathElements) {
+		final File precompiledScriptsDir = ScriptResources.getPrecompiledScriptsDir();
+		final List<File> directories = new ArrayList<>(pathElements.size());
+		for (String pathElement : pathElements) {
+            final File dir = new File(pathElement);
+            if (dir.isDirectory() && ! precompiledScriptsDir.equals(dir))
+            	directories.add(dir);
+        }
+		return directories;
+	}
+
+	/**
+	 * Directories are compiled one after another in path order like on the calling thread,
+	 * so that classes of later directories can use classes of earlier ones.
+	 * Scripts started meanwhile use the classes compiled before and wait in {@link #awaitLibraryCompilation()}
+	 * only if they can not be compiled without the new ones.
+	 */
+	private void compileLibraryScriptsInBackground(List<String> pathElements) {
+		final List<File> directories = libraryDirectories(pathElements);
+		final LibraryCompilationStatus status = new LibraryCompilationStatus(directories.size());
+		final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+			final Thread thread = new Thread(runnable, "script library compiler");
+			thread.setDaemon(true);
+			return thread;
+		});
+		libraryCompilation = CompletableFuture.runAsync(() -> {
+			final PrecompiledClasses newCompiledFiles = new PrecompiledClasses(System.currentTimeMillis());
+			final File compiledScriptListFile = compiledScriptListFile(ScriptResources.getPrecompiledScriptsDir());
+			oldCompiledFiles = PrecompiledClasses.read(compiledScriptListFile);
+			for (File dir : directories) {
+				newCompiledFiles.addAll(compileScriptsInDirectory(dir));
+				status.directoryCompiled();
+			}
+			oldCompiledFiles = null;
+			newCompiledFiles.write(compiledScriptListFile);
+			finishCompilation();
+		}, executor)
+		    .whenComplete((result, error) -> {
+		    	executor.shutdown();
+		    	status.compilationFinished();
+		    	if (error != null)
+		    		LogUtils.severe("error compiling script library", error);
+		    });
+	}
+
+	static boolean isCompilingLibrary() {
+		return ! libraryCompilation.isDone();
+	}
+
+	/** Blocks until script library compiled in background is available. */
+	static void awaitLibraryCompilation() {
+		try {
+			libraryCompilation.join();
+		}
+		catch (CompletionException e) {
+			// already logged, scripts are executed without the failed library classes
+		}
+	}
+
+	private static boolean compilesInBackground() {
+		return ResourceController.getResourceController().getBooleanProperty(COMPILE_SCRIPTS_IN_BACKGROUND);
+	}
+
     static boolean compilesOnlyChangedScriptFiles() {
         return ResourceController.getResourceController().getBooleanProperty(COMPILE_ONLY_CHANGED_SCRIPT_FILES);
     }
@@ -104,18 +182,47 @@ class ClasspathScriptCompiler {
 
 	private  void compile(File dir, Collection<File> files) throws Exception {
 		File tmpDir = null;
+		File classesDir = null;
 		try {
 			tmpDir = DefaultGroovyStaticMethods.createTempDir(null, "groovy-generated-", "-java-source");
+			final CompilerConfiguration compilerConfiguration = createCompilerConfiguration();
+			final File precompiledScriptsDir = compilerConfiguration.getTargetDirectory();
+			classesDir = Files.createTempDirectory(precompiledScriptsDir.getParentFile().toPath(), "compiled-").toFile();
+			compilerConfiguration.setTargetDirectory(classesDir);
 			compilerConfiguration.getJointCompilationOptions().put("stubDir", tmpDir);
-			compile(dir, toArray(files));
+			compile(compilerConfiguration, toArray(files));
+			moveClasses(classesDir.toPath(), precompiledScriptsDir.toPath());
 		} finally {
+			deleteTemporaryDirectory(tmpDir);
+			deleteTemporaryDirectory(classesDir);
+		}
+
+	}
+
+	/** Class files are moved one by one, so that scripts compiled meanwhile never load partially written classes. */
+	private void moveClasses(Path source, Path target) throws IOException {
+		final List<Path> classFiles;
+		try (Stream<Path> files = Files.walk(source)) {
+			classFiles = files.filter(Files::isRegularFile).collect(Collectors.toList());
+		}
+		for (Path classFile : classFiles) {
+			final Path targetFile = target.resolve(source.relativize(classFile).toString());
+			Files.createDirectories(targetFile.getParent());
 			try {
-				if (tmpDir != null) FileSystemCompiler.deleteRecursive(tmpDir);
-			} catch (Throwable t) {
-				LogUtils.severe("error: could not delete temp files - " + tmpDir.getPath());
+				Files.move(classFile, targetFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (AtomicMoveNotSupportedException e) {
+				Files.move(classFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
 			}
 		}
+	}
 
+	private void deleteTemporaryDirectory(File dir) {
+		try {
+			if (dir != null) FileSystemCompiler.deleteRecursive(dir);
+		} catch (Throwable t) {
+			LogUtils.severe("error: could not delete temp files - " + dir.getPath());
+		}
 	}
 
 	private Collection<File> filterNewFiles(Collection<File> files) {
@@ -126,7 +233,7 @@ class ClasspathScriptCompiler {
 		return new File(dir, COMPILED_SCRIPTS_FILE);
 	}
 
-    private  void compile(File dir, File[] files) throws Exception {
+    private  void compile(CompilerConfiguration compilerConfiguration, File[] files) throws Exception {
     	final CompilationUnit unit = new JavaAwareCompilationUnit(compilerConfiguration, compilerClassLoader, null);
     	new FileSystemCompiler(compilerConfiguration, unit).compile(files);
     }
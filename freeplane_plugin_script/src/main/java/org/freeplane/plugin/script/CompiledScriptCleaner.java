@@ -9,12 +9,15 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 import org.apache.commons.io.FileUtils;
 import org.freeplane.core.util.LogUtils;
 
 class CompiledScriptCleaner {
+    private static final long UNUSED_SCRIPT_TEXT_EXPIRATION_TIME = TimeUnit.DAYS.toMillis(30);
+    private static final long ABANDONED_TEMPORARY_CACHE_EXPIRATION_TIME = TimeUnit.DAYS.toMillis(1);
     private long calculateLastDependencyModificationTime() {
         long lastModificationTime = ScriptResources.getClasspath().stream()
             .map(File::new)
@@ -62,14 +65,33 @@ class CompiledScriptCleaner {
         }
     }
     
-    private void removeOutdated(File cache, long lastDependencyModificationTime) {
-        File propertyFile = new File(cache, "compiled.properties");
+    void removeOutdated(File cache, long lastDependencyModificationTime) {
+        if(cache.getName().endsWith(GroovyShell.TEMPORARY_CACHE_SUFFIX)) {
+            // left by compilations interrupted before their result was renamed to the cache directory
+            if(System.currentTimeMillis() - cache.lastModified() > ABANDONED_TEMPORARY_CACHE_EXPIRATION_TIME) {
+                try {
+                    FileUtils.deleteDirectory(cache);
+                } catch (IOException e) {
+                    LogUtils.warn(e);
+                }
+            }
+            return;
+        }
+        File propertyFile = new File(cache, GroovyShell.COMPILED_PROPERTIES);
         if (propertyFile.exists()) {
             Properties properties = new Properties();
             try (InputStream in = new FileInputStream(propertyFile)) {
                 properties.load(in);
                 long compileTime = Long.parseLong(properties.getProperty("time"));
                 String source = properties.getProperty("source");
+                if(source == null) {
+                    // compiled script text is kept until it is not used for some time
+                    if(lastDependencyModificationTime >= compileTime
+                            || System.currentTimeMillis() - propertyFile.lastModified() > UNUSED_SCRIPT_TEXT_EXPIRATION_TIME) {
+                        FileUtils.deleteDirectory(cache);
+                    }
+                    return;
+                }
                 File sourceFile = new File(source);
                 if(! sourceFile.canRead() 
                         || lastDependencyModificationTime >= compileTime
@@ -1,9 +1,13 @@
 package org.freeplane.plugin.script;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.Map.Entry;
 
+import org.freeplane.api.FormulaCacheStatistics;
 import org.freeplane.core.extension.IExtension;
 import org.freeplane.features.map.MapModel;
 import org.freeplane.features.map.NodeModel;
@@ -11,11 +15,25 @@ import org.freeplane.features.mode.Controller;
 import org.freeplane.plugin.script.dependencies.RelatedElements;
 
 public class FormulaCache implements IExtension{
+	static final String MAXIMUM_SIZE_PROPERTY = "formula_cache_max_entries";
+	// share of the maximal size kept after eviction so that the cache is not cleaned up on every put
+	private static final int RETAINED_PERCENT_AFTER_EVICTION = 90;
 	private final HashMap<String, LinkedHashMap<String, CachedResult>> cache = new HashMap<String, LinkedHashMap<String, CachedResult>>();
 	// don't let caching use too much memory - but currently there are little means to cope with unavailable
 	// dependency data. It has to be tested but it should "only" lead to some missing updates.
 	static final boolean ENABLE_CACHING = !Controller.getCurrentController().getResourceController()
 	    .getBooleanProperty("formula_disable_caching");
+	private final int maximumSize;
+	private int size;
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long evaluationCount;
+	private long evaluationTime;
+
+	FormulaCache(final int maximumSize) {
+		this.maximumSize = maximumSize;
+	}
 
 	static void removeFromCache(final ArrayList<NodeModel> dependencies) {
 			if (ENABLE_CACHING) {
@@ -25,16 +43,23 @@ public class FormulaCache implements IExtension{
 			}
 		}
 
-	Object getOrThrowCachedResult(final NodeScript nodeScript) {
-		final LinkedHashMap<String, CachedResult> cacheEntry = cache.get(nodeScript.node.getID());
-		if (cacheEntry == null)
-			return null;
-		final CachedResult cachedResult = cacheEntry.get(nodeScript.script);
-		if (cachedResult == null)
+	synchronized Object getOrThrowCachedResult(final NodeScript nodeScript) {
+		final CachedResult cachedResult = getCachedResult(nodeScript.node, nodeScript.script);
+		if (cachedResult == null) {
+			misses++;
 			return null;
+		}
+		hits++;
 		return getOrThrowCachedResult(cachedResult.returnedValue);
 	}
 
+	private CachedResult getCachedResult(final NodeModel node, final String script) {
+		final LinkedHashMap<String, CachedResult> cacheEntry = cache.get(node.getID());
+		if (cacheEntry == null)
+			return null;
+		return cacheEntry.get(script);
+	}
+
 	private Object getOrThrowCachedResult(final Object object) {
 		if(object instanceof ExecuteScriptException){
 			throw (ExecuteScriptException)object;
@@ -42,8 +67,13 @@ public class FormulaCache implements IExtension{
 		return object;
 	}
 
-	void put(final NodeScript nodeScript, final CachedResult result) {
-		getOrAdd(nodeScript.node).put(nodeScript.script, result);
+	synchronized void put(final NodeScript nodeScript, final CachedResult result) {
+		evaluationCount++;
+		evaluationTime += result.evaluationTime;
+		if (getOrAdd(nodeScript.node).put(nodeScript.script, result) == null)
+			size++;
+		if (maximumSize > 0 && size > maximumSize)
+			evictCheapestResults();
 	}
 
 	private LinkedHashMap<String, CachedResult> getOrAdd(final NodeModel node) {
@@ -55,18 +85,46 @@ public class FormulaCache implements IExtension{
 		return cacheEntry;
 	}
 
-	void remove(final NodeModel node) {
-		final LinkedHashMap<String, CachedResult> entry = cache.get(node.getID());
+	// results which were evaluated fastest are evicted first because they are cheapest to recompute
+	private void evictCheapestResults() {
+		final ArrayList<CachedResult> results = new ArrayList<>(size);
+		for (final LinkedHashMap<String, CachedResult> cacheEntry : cache.values())
+			results.addAll(cacheEntry.values());
+		results.sort(Comparator.comparingLong(result -> result.evaluationTime));
+		final int retainedSize = (int) ((long) maximumSize * RETAINED_PERCENT_AFTER_EVICTION / 100);
+		final long evictionThreshold = results.get(size - retainedSize - 1).evaluationTime;
+		int evictedResultCount = size - retainedSize;
+		for (final Iterator<LinkedHashMap<String, CachedResult>> entryIterator = cache.values().iterator();
+		        evictedResultCount > 0 && entryIterator.hasNext();) {
+			final LinkedHashMap<String, CachedResult> cacheEntry = entryIterator.next();
+			for (final Iterator<Entry<String, CachedResult>> resultIterator = cacheEntry.entrySet().iterator();
+			        evictedResultCount > 0 && resultIterator.hasNext();) {
+				if (resultIterator.next().getValue().evaluationTime <= evictionThreshold) {
+					resultIterator.remove();
+					evictedResultCount--;
+					size--;
+					evictions++;
+				}
+			}
+			if (cacheEntry.isEmpty())
+				entryIterator.remove();
+		}
+	}
+
+	synchronized void remove(final NodeModel node) {
+		final LinkedHashMap<String, CachedResult> entry = cache.remove(node.getID());
 		if (entry != null) {
 //			System.out.println("clearing cache for " + node);
-			entry.clear();
+			size -= entry.size();
 		}
 	}
 
-	static FormulaCache of(final MapModel map) {
+	static synchronized FormulaCache of(final MapModel map) {
 		FormulaCache formulaCache = map.getExtension(FormulaCache.class);
 		if (formulaCache == null) {
-			formulaCache = new FormulaCache();
+			final int maximumSize = Controller.getCurrentController().getResourceController()
+			    .getIntProperty(MAXIMUM_SIZE_PROPERTY, 0);
+			formulaCache = new FormulaCache(maximumSize);
 			map.addExtension(formulaCache);
 		}
 		return formulaCache;
@@ -75,16 +133,17 @@ public class FormulaCache implements IExtension{
 		map.removeExtension(FormulaCache.class);
 	}
 
-	RelatedElements getAccessedValues(final NodeModel node, final String script) {
+	synchronized RelatedElements getAccessedValues(final NodeModel node, final String script) {
 		if(ENABLE_CACHING) {
-			final LinkedHashMap<String, CachedResult> cacheEntry = cache.get(node.getID());
-			if (cacheEntry == null) return null;
-			final CachedResult cachedResult = cacheEntry.get(script);
+			final CachedResult cachedResult = getCachedResult(node, script);
 			if(cachedResult != null)
 				return cachedResult.relatedElements;
 		}
 		return null;
 	}
 
-
+	synchronized FormulaCacheStatistics getStatistics() {
+		final long averageEvaluationTime = evaluationCount == 0 ? 0 : evaluationTime / evaluationCount;
+		return new FormulaCacheStatistics(size, maximumSize, hits, misses, evictions, averageEvaluationTime);
+	}
 }
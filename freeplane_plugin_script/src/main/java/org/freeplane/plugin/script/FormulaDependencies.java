@@ -8,17 +8,20 @@ import java.util.function.Consumer;
 
 import org.freeplane.features.map.MapModel;
 import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.text.TextController;
 import org.freeplane.plugin.script.dependencies.EvaluationDependencies;
 
 public class FormulaDependencies{
 	public static List<NodeModel> manageChangeAndReturnDependencies(boolean includeChanged, final NodeModel... changedNodes) {
 		final ArrayList<NodeModel> dependencies = getAllChangedDependencies(includeChanged, changedNodes);
 		FormulaCache.removeFromCache(dependencies);
+		TextController.invalidateTransformedObjects(dependencies);
 		return dependencies;
 	}
 
 	public static void clearCache(final MapModel map) {
 		FormulaCache.removeFrom(map);
+		TextController.invalidateTransformedObjects(map);
 		map.removeExtension(EvaluationDependencies.class);
 	}
 
@@ -73,6 +76,7 @@ public class FormulaDependencies{
 		final ArrayList<NodeModel> dependencies = new ArrayList<NodeModel>();
 		dependencies.addAll(accessingNodes);
 		FormulaCache.removeFromCache(dependencies);
+		TextController.invalidateTransformedObjects(dependencies);
 		return dependencies;
 	}
 }
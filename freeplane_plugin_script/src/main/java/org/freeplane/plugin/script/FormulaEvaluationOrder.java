@@ -0,0 +1,159 @@
+package org.freeplane.plugin.script;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.freeplane.features.attribute.Attribute;
+import org.freeplane.features.attribute.NodeAttributeTableModel;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.plugin.script.dependencies.EvaluationDependencies;
+
+/**
+ * Orders the nodes containing formulas by the dependencies recorded during their last evaluation.
+ *
+ * Nodes of each level only depend on nodes of previous levels.
+ * Nodes which may access any node and nodes on dependency cycles are evaluated one by one after all levels.
+ * Dependencies are only used to order the evaluation, a formula evaluates the formulas it accesses itself
+ * if they have not been evaluated yet, so an outdated order never leads to wrong results.
+ */
+class FormulaEvaluationOrder {
+	static FormulaEvaluationOrder of(final NodeModel root, final EvaluationDependencies dependencies) {
+		return new FormulaEvaluationOrder(root, dependencies);
+	}
+
+	private final List<List<NodeModel>> levels;
+	private final List<NodeModel> sequentiallyEvaluatedNodes;
+	private final List<NodeModel> nodesInTreeOrder = new ArrayList<>();
+	private final Map<NodeModel, Integer> preorderIndices = new IdentityHashMap<>();
+	private final List<Integer> subtreeEnds = new ArrayList<>();
+	private final List<Integer> formulaPreorderIndices = new ArrayList<>();
+	private final Map<NodeModel, Set<NodeModel>> precedents = new IdentityHashMap<>();
+
+	private FormulaEvaluationOrder(final NodeModel root, final EvaluationDependencies dependencies) {
+		collectNodes(root);
+		final Set<NodeModel> unrestrictedNodes = Collections.newSetFromMap(new IdentityHashMap<NodeModel, Boolean>());
+		if (dependencies != null) {
+			dependencies.forEachNodeAccess(this::addPrecedent);
+			dependencies.forEachBranchAccess(this::addBranchPrecedents);
+			dependencies.forEachUnrestrictedAccess(node -> {
+				if (precedents.containsKey(node))
+					unrestrictedNodes.add(node);
+			});
+		}
+		levels = new ArrayList<>();
+		sequentiallyEvaluatedNodes = new ArrayList<>();
+		assignLevels(unrestrictedNodes);
+	}
+
+	private void collectNodes(final NodeModel node) {
+		final int index = preorderIndices.size();
+		preorderIndices.put(node, index);
+		subtreeEnds.add(index);
+		if (containsFormula(node)) {
+			nodesInTreeOrder.add(node);
+			formulaPreorderIndices.add(index);
+			precedents.put(node, new HashSet<>());
+		}
+		for (final NodeModel child : node.getChildren())
+			collectNodes(child);
+		subtreeEnds.set(index, preorderIndices.size());
+	}
+
+	static boolean containsFormula(final NodeModel node) {
+		if (isFormula(node.getUserObject()))
+			return true;
+		final NodeAttributeTableModel attributeTableModel = node.getExtension(NodeAttributeTableModel.class);
+		if (attributeTableModel != null) {
+			for (final Attribute attribute : attributeTableModel.getAttributes())
+				if (isFormula(attribute.getValue()))
+					return true;
+		}
+		return false;
+	}
+
+	private static boolean isFormula(final Object value) {
+		return value instanceof String && FormulaUtils.textContainsFormula((String) value);
+	}
+
+	private void addPrecedent(final NodeModel accessingNode, final NodeModel accessedNode) {
+		final Set<NodeModel> accessingNodePrecedents = precedents.get(accessingNode);
+		if (accessingNodePrecedents != null && accessingNode != accessedNode && precedents.containsKey(accessedNode))
+			accessingNodePrecedents.add(accessedNode);
+	}
+
+	private void addBranchPrecedents(final NodeModel accessingNode, final NodeModel branchRoot) {
+		final Integer branchStart = preorderIndices.get(branchRoot);
+		if (branchStart == null || !precedents.containsKey(accessingNode))
+			return;
+		final int branchEnd = subtreeEnds.get(branchStart);
+		final int firstFormulaIndex = insertionPoint(Collections.binarySearch(formulaPreorderIndices, branchStart));
+		for (int i = firstFormulaIndex; i < formulaPreorderIndices.size() && formulaPreorderIndices.get(i) < branchEnd; i++)
+			addPrecedent(accessingNode, nodesInTreeOrder.get(i));
+	}
+
+	private static int insertionPoint(final int binarySearchResult) {
+		return binarySearchResult >= 0 ? binarySearchResult : -binarySearchResult - 1;
+	}
+
+	private void assignLevels(final Set<NodeModel> unrestrictedNodes) {
+		final Map<NodeModel, Integer> pendingPrecedentCounts = new IdentityHashMap<>();
+		final Map<NodeModel, List<NodeModel>> dependents = new IdentityHashMap<>();
+		List<NodeModel> level = new ArrayList<>();
+		for (final NodeModel node : nodesInTreeOrder) {
+			if (unrestrictedNodes.contains(node))
+				continue;
+			int pendingPrecedentCount = 0;
+			for (final NodeModel precedent : precedents.get(node)) {
+				if (!unrestrictedNodes.contains(precedent)) {
+					pendingPrecedentCount++;
+					dependents.computeIfAbsent(precedent, x -> new ArrayList<>()).add(node);
+				}
+			}
+			if (pendingPrecedentCount == 0)
+				level.add(node);
+			else
+				pendingPrecedentCounts.put(node, pendingPrecedentCount);
+		}
+		while (!level.isEmpty()) {
+			levels.add(level);
+			final List<NodeModel> nextLevel = new ArrayList<>();
+			for (final NodeModel node : level) {
+				for (final NodeModel dependent : dependents.getOrDefault(node, Collections.<NodeModel> emptyList())) {
+					final int pendingPrecedentCount = pendingPrecedentCounts.get(dependent) - 1;
+					if (pendingPrecedentCount == 0) {
+						pendingPrecedentCounts.remove(dependent);
+						nextLevel.add(dependent);
+					}
+					else
+						pendingPrecedentCounts.put(dependent, pendingPrecedentCount);
+				}
+			}
+			level = nextLevel;
+		}
+		for (final NodeModel node : nodesInTreeOrder) {
+			if (unrestrictedNodes.contains(node) || pendingPrecedentCounts.containsKey(node))
+				sequentiallyEvaluatedNodes.add(node);
+		}
+	}
+
+	/** Evaluates all levels in order and the remaining nodes one by one afterwards. */
+	void evaluate(final Consumer<NodeModel> evaluator) {
+		for (final List<NodeModel> level : levels)
+			level.forEach(evaluator);
+		sequentiallyEvaluatedNodes.forEach(evaluator);
+	}
+
+	List<List<NodeModel>> getLevels() {
+		return levels;
+	}
+
+	List<NodeModel> getSequentiallyEvaluatedNodes() {
+		return sequentiallyEvaluatedNodes;
+	}
+}
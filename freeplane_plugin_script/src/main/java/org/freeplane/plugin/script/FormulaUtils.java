@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.freeplane.api.FormulaCacheStatistics;
 import org.freeplane.core.extension.Configurable;
 import org.freeplane.core.util.HtmlUtils;
 import org.freeplane.core.util.LogUtils;
@@ -14,6 +15,7 @@ import org.freeplane.features.link.LinkController;
 import org.freeplane.features.map.MapModel;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.mode.Controller;
+import org.freeplane.plugin.script.dependencies.EvaluationDependencies;
 import org.freeplane.plugin.script.dependencies.RelatedElements;
 
 public class FormulaUtils {
@@ -71,6 +73,10 @@ public class FormulaUtils {
 		return matcher.find() && text.charAt(matcher.end()-1) == '=';
     }
 
+	public static boolean isCachingEnabled() {
+		return FormulaCache.ENABLE_CACHING;
+	}
+
 	/** evaluate text as a script.
 	 * @return the evaluation result.
 	 * @throws ExecuteScriptException */
@@ -82,12 +88,15 @@ public class FormulaUtils {
 			final FormulaCache formulaCache = FormulaCache.of(nodeModel.getMap());
 			Object value = formulaCache.getOrThrowCachedResult(nodeScript);
 			if (value == null) {
+				final long startTime = System.nanoTime();
 				try {
 					value = evaluateLoggingExceptions(scriptContext, restrictedPermissions);
-					formulaCache.put(nodeScript, new CachedResult(value, scriptContext.getRelatedElements()));
+					formulaCache.put(nodeScript, new CachedResult(value, scriptContext.getRelatedElements(),
+						System.nanoTime() - startTime));
 				}
 				catch (final ExecuteScriptException e) {
-					formulaCache.put(nodeScript, new CachedResult(e, scriptContext.getRelatedElements()));
+					formulaCache.put(nodeScript, new CachedResult(e, scriptContext.getRelatedElements(),
+						System.nanoTime() - startTime));
 					throw e;
 				}
 			}
@@ -162,6 +171,12 @@ public class FormulaUtils {
 		return new RelatedElements(node);
 	}
 
+	public static FormulaCacheStatistics getCacheStatistics(final MapModel map) {
+		if (FormulaCache.ENABLE_CACHING)
+			return FormulaCache.of(map).getStatistics();
+		return new FormulaCacheStatistics(0, 0, 0, 0, 0, 0);
+	}
+
 	public static String scriptOf(final String object) {
 		return object.substring(1);
 	}
@@ -171,8 +186,10 @@ public class FormulaUtils {
 	}
 
 	public static void evaluateAllFormulas(MapModel map) {
+		final FormulaEvaluationOrder evaluationOrder = FormulaEvaluationOrder.of(map.getRootNode(),
+			map.getExtension(EvaluationDependencies.class));
 		clearCache(map);
-		evaluateOutdatedFormulas(map);
+		evaluationOrder.evaluate(FormulaUtils::cacheFormulas);
 	}
 
 	public static void evaluateOutdatedFormulas(MapModel map) {
@@ -180,11 +197,15 @@ public class FormulaUtils {
 	}
 
 	static private void cacheAllRecursively(NodeModel node) {
+		cacheFormulas(node);
+		node.getChildren().stream().forEach(FormulaUtils::cacheAllRecursively);
+	}
+
+	static private void cacheFormulas(NodeModel node) {
 		cacheIfFormula(node, node.getUserObject());
 		NodeAttributeTableModel attributeTableModel = node.getExtension(NodeAttributeTableModel.class);
 		if(attributeTableModel != null)
 			attributeTableModel.getAttributes().stream().forEach(a -> cacheIfFormula(node, a.getValue()));
-		node.getChildren().stream().forEach(FormulaUtils::cacheAllRecursively);
 	}
 
 	public static void cacheIfFormula(NodeModel node, Object maybeFormula) {
@@ -26,12 +26,14 @@ import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
+import java.util.Arrays;
 import java.util.regex.Matcher;
 
 import javax.swing.SwingUtilities;
 
 import org.codehaus.groovy.ast.ASTNode;
 import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.control.CompilationFailedException;
 import org.codehaus.groovy.control.CompilerConfiguration;
 import org.codehaus.groovy.control.customizers.ImportCustomizer;
 import org.codehaus.groovy.runtime.InvokerHelper;
@@ -176,28 +178,40 @@ public class GroovyScript implements IScript {
         errorsInScript = null;
         if (script instanceof Script) {
             return (Script) script;
-        } else {
+        }
+        if (ClasspathScriptCompiler.isCompilingLibrary()) {
+            // scripts only wait for the library compiled in background if they need its new classes
             try {
-                final Binding binding = createBindingForCompilation();
-				scriptClassLoader = ScriptClassLoader.createClassLoader();
-				scriptClassLoader.setSecurityManager(scriptingSecurityManager);
-				final GroovyShell shell = new GroovyShell(scriptClassLoader, binding,
-                        createCompilerConfiguration());
-                compileTimeStrategy.scriptCompileStart();
-                if (script instanceof String) {
-                    compiledScript = (FreeplaneScriptBaseClass) shell.parse((String) script);
-                } else if (script instanceof File) {
-                    compiledScript = (FreeplaneScriptBaseClass) shell.parse((File) script);
-                } else {
-                    throw new IllegalArgumentException();
-                }
-                compiledScript.setScript(script);
-                compileTimeStrategy.scriptCompiled();
-                return compiledScript;
-            } catch (Throwable e) {
-                errorsInScript = e;
-                throw e;
+                return compile(scriptingSecurityManager);
+            } catch (CompilationFailedException e) {
+                errorsInScript = null;
+                ClasspathScriptCompiler.awaitLibraryCompilation();
+            }
+        }
+        return compile(scriptingSecurityManager);
+    }
+
+    private Script compile(final ScriptingSecurityManager scriptingSecurityManager) throws Throwable {
+        try {
+            final Binding binding = createBindingForCompilation();
+			scriptClassLoader = ScriptClassLoader.createClassLoader();
+			scriptClassLoader.setSecurityManager(scriptingSecurityManager);
+			final GroovyShell shell = new GroovyShell(scriptClassLoader, binding,
+                    createCompilerConfiguration(), specificPermissions);
+            compileTimeStrategy.scriptCompileStart();
+            if (script instanceof String) {
+                compiledScript = (FreeplaneScriptBaseClass) shell.parse((String) script);
+            } else if (script instanceof File) {
+                compiledScript = (FreeplaneScriptBaseClass) shell.parse((File) script);
+            } else {
+                throw new IllegalArgumentException();
             }
+            compiledScript.setScript(script);
+            compileTimeStrategy.scriptCompiled();
+            return compiledScript;
+        } catch (Throwable e) {
+            errorsInScript = e;
+            throw e;
         }
     }
 
@@ -244,6 +258,10 @@ public class GroovyScript implements IScript {
         throw new ExecuteScriptException(e.getMessage() + " at line " + lineNumber, e);
     }
 
+    private static final String[][] STATIC_IMPORTS = {{ScriptUtils.class.getName(), "ignoreCycles"}};
+    /** identifies the settings of {@link #createCompilerConfiguration()} in cache keys of compiled scripts */
+    static final String COMPILER_CONFIGURATION_KEY = FreeplaneScriptBaseClass.class.getName() + Arrays.deepToString(STATIC_IMPORTS);
+
     static CompilerConfiguration createCompilerConfiguration() {
         CompilerConfiguration config = new CompilerConfiguration();
         config.setScriptBaseClass(FreeplaneScriptBaseClass.class.getName());
@@ -251,7 +269,8 @@ public class GroovyScript implements IScript {
             config.setClasspathList(ScriptResources.getClasspath());
         }
 		final ImportCustomizer importCustomizer = new ImportCustomizer();
-        importCustomizer.addStaticImport(ScriptUtils.class.getName(), "ignoreCycles");
+		for (String[] staticImport : STATIC_IMPORTS)
+			importCustomizer.addStaticImport(staticImport[0], staticImport[1]);
 		config.addCompilationCustomizers(importCustomizer);
         return config;
     }
@@ -22,6 +22,11 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
 import java.security.AccessController;
 import java.security.CodeSource;
 import java.security.NoSuchAlgorithmException;
@@ -29,6 +34,7 @@ import java.security.PermissionCollection;
 import java.security.Permissions;
 import java.security.PrivilegedAction;
 import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.apache.commons.io.FileUtils;
 import org.codehaus.groovy.control.CompilationFailedException;
@@ -39,6 +45,8 @@ import org.codehaus.groovy.runtime.DefaultGroovyMethods;
 import org.codehaus.groovy.runtime.EncodingGroovyMethods;
 import org.codehaus.groovy.runtime.InvokerHelper;
 import org.freeplane.core.resources.ResourceController;
+import org.freeplane.core.util.Compat;
+import org.freeplane.core.util.FreeplaneVersion;
 import org.freeplane.core.util.LogUtils;
 
 import groovy.lang.Binding;
@@ -46,6 +54,7 @@ import groovy.lang.GroovyClassLoader;
 import groovy.lang.GroovyCodeSource;
 import groovy.lang.GroovyObjectSupport;
 import groovy.lang.GroovyRuntimeException;
+import groovy.lang.GroovySystem;
 import groovy.lang.Script;
 
 /**
@@ -62,12 +71,17 @@ class GroovyShell extends GroovyObjectSupport {
     }
 
     private static final String DEFAULT_CODE_BASE = "/groovy/shell";
+    static final String COMPILED_PROPERTIES = "compiled.properties";
+    private static final String CLASSES = "classes";
+    static final String TEMPORARY_CACHE_SUFFIX = ".tmp";
     private final Binding binding;
     private int counter;
     private final CompilerConfiguration config;
     private final ClassLoader parentLoader;
+    private final ScriptingPermissions permissions;
 
-    GroovyShell(final ClassLoader parent, final Binding binding, final CompilerConfiguration config) {
+    GroovyShell(final ClassLoader parent, final Binding binding, final CompilerConfiguration config,
+                final ScriptingPermissions permissions) {
         if (binding == null) {
             throw new IllegalArgumentException("Binding must not be null.");
         }
@@ -77,6 +91,7 @@ class GroovyShell extends GroovyObjectSupport {
         parentLoader = (parent != null) ? parent : GroovyShell.class.getClassLoader();
         this.binding = binding;
         this.config = config;
+        this.permissions = permissions;
     }
 
 
@@ -113,7 +128,10 @@ class GroovyShell extends GroovyObjectSupport {
      */
     private Class loadClass(final GroovyCodeSource codeSource) throws CompilationFailedException {
         if(ClasspathScriptCompiler.compilesOnlyChangedScriptFiles()) {
-            return parseAndCache(codeSource);
+            if(codeSource.getFile() != null)
+                return parseAndCache(codeSource);
+            else
+                return parseAndCacheText(codeSource);
         }
         else
             return parseClass(codeSource);
@@ -128,15 +146,9 @@ class GroovyShell extends GroovyObjectSupport {
 
 
     private Class parseAndCache(final GroovyCodeSource codeSource) {
-        String md5;
-        try {
-            md5 = EncodingGroovyMethods.md5(codeSource.getName());
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
-        }
-        File cache = new File(ScriptResources.getCompiledScriptsDir(), md5);
-        File propertyFile = new File(cache, "compiled.properties");
-        File classes = new File(cache, "classes");
+        File cache = new File(ScriptResources.getCompiledScriptsDir(), md5(codeSource.getName()));
+        File propertyFile = new File(cache, COMPILED_PROPERTIES);
+        File classes = new File(cache, CLASSES);
         if (propertyFile.exists() && classes.exists()) {
             try (InputStream in = new FileInputStream(propertyFile)) {
                 Properties properties = new Properties();
@@ -146,40 +158,167 @@ class GroovyShell extends GroovyObjectSupport {
                 File sourceFile = new File(source);
                 if(sourceFile.canRead() && sourceFile.lastModified()< compileTime) {
                     String className = properties.getProperty("class");
-                    GroovyClassLoader loader = createClassLoader();
-                    loader.addURL(ScriptClassLoader.pathToUrl(classes));
-                    return loader.loadClass(className);
+                    return loadCompiledClass(classes, className);
                 }
             } catch (IOException | ClassNotFoundException|NumberFormatException e) {
             }
         }
-        if (cache.exists()) {
-            try {
-                FileUtils.cleanDirectory(cache);
-            } catch (IOException e) {
-                LogUtils.warn(e);
+        cleanCache(cache);
+        File sourceFile = codeSource.getFile();
+        classes.mkdirs();
+        config.setTargetDirectory(classes);
+        long time = System.currentTimeMillis();
+        GroovyClassLoader loader = createClassLoader();
+        Class parsedClass = loader.parseClass(codeSource, false);
+        Properties properties = new Properties();
+        properties.setProperty("class", parsedClass.getName());
+        properties.setProperty("time", Long.toString(time));
+        properties.setProperty("source", sourceFile.getAbsolutePath());
+        storeProperties(propertyFile, properties);
+        return parsedClass;
+    }
+
+    /**
+     * Scripts given as text like formulas are cached by hash of their content,
+     * groovy, java and freeplane versions, compiler configuration and scripting permissions.
+     *
+     * Each compilation writes into its own temporary directory which is renamed to the cache directory when complete,
+     * so that concurrent compilations of the same text never see partially written cache directories.
+     */
+    private Class parseAndCacheText(final GroovyCodeSource codeSource) {
+        final String groovyVersion = GroovySystem.getVersion();
+        final String freeplaneVersion = FreeplaneVersion.getVersion().toString();
+        final String permissionsKey = permissions != null ? permissions.toCacheKey() : "";
+        final String cacheKey = scriptTextCacheKey(codeSource.getScriptText(), freeplaneVersion, permissionsKey);
+        final File compiledScriptsDir = ScriptResources.getCompiledScriptsDir();
+        File cache = new File(compiledScriptsDir, cacheKey);
+        File propertyFile = new File(cache, COMPILED_PROPERTIES);
+        File classes = new File(cache, CLASSES);
+        if (propertyFile.exists() && classes.exists()) {
+            try (InputStream in = new FileInputStream(propertyFile)) {
+                Properties properties = new Properties();
+                properties.load(in);
+                if(groovyVersion.equals(properties.getProperty("groovy"))
+                        && Compat.JAVA_VERSION.equals(properties.getProperty("java"))
+                        && freeplaneVersion.equals(properties.getProperty("freeplane"))
+                        && permissionsKey.equals(properties.getProperty("permissions"))) {
+                    String className = properties.getProperty("class");
+                    Class cachedClass = loadCompiledClass(classes, className);
+                    // last modification time tells the cleaner when the cache was last used
+                    propertyFile.setLastModified(System.currentTimeMillis());
+                    return cachedClass;
+                }
+            } catch (IOException | ClassNotFoundException e) {
+                LogUtils.warn("Can not load compiled script from " + cache + ", compiling it again", e);
             }
         }
-        File sourceFile = codeSource.getFile();
-        if(sourceFile != null) {
-            classes.mkdirs();
-            config.setTargetDirectory(classes);
+        final File temporaryCache = createTemporaryCacheDirectory(compiledScriptsDir, cacheKey);
+        if (temporaryCache == null)
+            return parseClass(codeSource);
+        try {
+            final File temporaryClasses = new File(temporaryCache, CLASSES);
+            temporaryClasses.mkdirs();
+            config.setTargetDirectory(temporaryClasses);
             long time = System.currentTimeMillis();
             GroovyClassLoader loader = createClassLoader();
             Class parsedClass = loader.parseClass(codeSource, false);
-            try (FileOutputStream out = new FileOutputStream(propertyFile)){
-                Properties properties = new Properties();
-                properties.setProperty("class", parsedClass.getName());
-                properties.setProperty("time", Long.toString(time));
-                properties.setProperty("source", sourceFile.getAbsolutePath());
-                properties.store(out, "");
+            Properties properties = new Properties();
+            properties.setProperty("class", parsedClass.getName());
+            properties.setProperty("time", Long.toString(time));
+            properties.setProperty("groovy", groovyVersion);
+            properties.setProperty("java", Compat.JAVA_VERSION);
+            properties.setProperty("freeplane", freeplaneVersion);
+            properties.setProperty("permissions", permissionsKey);
+            storeProperties(new File(temporaryCache, COMPILED_PROPERTIES), properties);
+            replaceCache(temporaryCache, cache);
+            return parsedClass;
+        }
+        finally {
+            deleteDirectory(temporaryCache);
+        }
+    }
+
+    static String scriptTextCacheKey(String scriptText, String freeplaneVersion, String permissionsKey) {
+        return md5(scriptText + '\n' + GroovySystem.getVersion() + '\n' + Compat.JAVA_VERSION
+                + '\n' + freeplaneVersion + '\n' + GroovyScript.COMPILER_CONFIGURATION_KEY + '\n' + permissionsKey);
+    }
+
+    private File createTemporaryCacheDirectory(File compiledScriptsDir, String cacheKey) {
+        compiledScriptsDir.mkdirs();
+        for (int attempt = 0; attempt < 10; attempt++) {
+            final File directory = temporaryCacheDirectory(compiledScriptsDir, cacheKey);
+            if (directory.mkdir())
+                return directory;
+        }
+        LogUtils.warn("Can not create temporary directory for compiled script in " + compiledScriptsDir);
+        return null;
+    }
+
+    private File temporaryCacheDirectory(File compiledScriptsDir, String cacheKey) {
+        return new File(compiledScriptsDir,
+            cacheKey + '.' + Long.toUnsignedString(ThreadLocalRandom.current().nextLong()) + TEMPORARY_CACHE_SUFFIX);
+    }
+
+    /** an outdated cache is renamed before it is deleted, because it may be read by a concurrent compilation */
+    private void replaceCache(File temporaryCache, File cache) {
+        try {
+            if (cache.exists()) {
+                final File outdatedCache = temporaryCacheDirectory(cache.getParentFile(), cache.getName());
+                try {
+                    Files.move(cache.toPath(), outdatedCache.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                    deleteDirectory(outdatedCache);
+                } catch (NoSuchFileException e) {
+                    // already removed by a concurrent compilation of the same script text
+                }
+            }
+            Files.move(temporaryCache.toPath(), cache.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+            // a concurrent compilation of the same script text has just stored its result
+        } catch (IOException e) {
+            LogUtils.warn(e);
+        }
+    }
+
+    private void deleteDirectory(File directory) {
+        if (directory.exists()) {
+            try {
+                FileUtils.deleteDirectory(directory);
             } catch (IOException e) {
                 LogUtils.warn(e);
             }
-            return parsedClass;
         }
-        else
-            return parseClass(codeSource);
+    }
+
+    private static String md5(String text) {
+        try {
+            return EncodingGroovyMethods.md5(text);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Class loadCompiledClass(File classes, String className) throws ClassNotFoundException {
+        GroovyClassLoader loader = createClassLoader();
+        loader.addURL(ScriptClassLoader.pathToUrl(classes));
+        return loader.loadClass(className);
+    }
+
+    private void cleanCache(File cache) {
+        if (cache.exists()) {
+            try {
+                FileUtils.cleanDirectory(cache);
+            } catch (IOException e) {
+                LogUtils.warn(e);
+            }
+        }
+    }
+
+    private void storeProperties(File propertyFile, Properties properties) {
+        try (FileOutputStream out = new FileOutputStream(propertyFile)){
+            properties.store(out, "");
+        } catch (IOException e) {
+            LogUtils.warn(e);
+        }
     }
 
 
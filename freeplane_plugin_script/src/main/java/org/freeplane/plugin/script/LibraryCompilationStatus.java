@@ -0,0 +1,40 @@
+package org.freeplane.plugin.script;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingUtilities;
+
+import org.freeplane.core.util.LogUtils;
+import org.freeplane.core.util.TextUtils;
+import org.freeplane.features.mode.Controller;
+import org.freeplane.features.ui.ViewController;
+
+/** Shows in the status bar how many script library directories are still compiled in background. */
+class LibraryCompilationStatus {
+	private static final String STATUS_INFO_KEY = "script_library_compilation";
+	private final ViewController viewController;
+	private final int directoryCount;
+	private final AtomicInteger compiledDirectoryCount;
+
+	LibraryCompilationStatus(int directoryCount) {
+		this.viewController = Controller.getCurrentController().getViewController();
+		this.directoryCount = directoryCount;
+		this.compiledDirectoryCount = new AtomicInteger(0);
+		if (directoryCount > 0)
+			show(0);
+	}
+
+	void directoryCompiled() {
+		show(compiledDirectoryCount.incrementAndGet());
+	}
+
+	void compilationFinished() {
+		LogUtils.info("script library compiled in background");
+		SwingUtilities.invokeLater(() -> viewController.removeStatus(STATUS_INFO_KEY));
+	}
+
+	private void show(int compiledDirectoryCount) {
+		final String info = TextUtils.format("script_library_compilation_status", compiledDirectoryCount, directoryCount);
+		SwingUtilities.invokeLater(() -> viewController.addStatusInfo(STATUS_INFO_KEY, info));
+	}
+}
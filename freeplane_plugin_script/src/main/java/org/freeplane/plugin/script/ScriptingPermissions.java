@@ -25,6 +25,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
 
 import javax.swing.JOptionPane;
 
@@ -166,6 +167,11 @@ public class ScriptingPermissions {
     	}
     }
 
+    /** stable description of the permissions used to validate scripts compiled for them */
+    String toCacheKey() {
+        return new TreeMap<String, Boolean>(permissions).toString();
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
@@ -1,11 +1,12 @@
 package org.freeplane.plugin.script.dependencies;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 import org.freeplane.core.extension.IExtension;
 import org.freeplane.features.map.MapModel;
@@ -42,7 +43,7 @@ public class EvaluationDependencies implements IExtension{
 	private final WeakHashMap<MapModel, DependentNodeReferences> onMapDependencies = new WeakHashMap<>();
 
 	private final WeakHashMap<NodeModel, DependentNodeReferences> onNodeDependencies = new WeakHashMap<>();
-	// FIXME: organize node and branch dependencies in a tree?
+	// branch dependencies of a node are found by looking up its ancestors
 	private final WeakHashMap<NodeModel, DependentNodeReferences> onBranchDependencies = new WeakHashMap<>();
 	private final WeakHashMap<NodeModel, Void> onAnyNodeDependencies = new WeakHashMap<>();
 	private final WeakHashMap<NodeModel, Void> onGlobalNodeDependencies = new WeakHashMap<>();
@@ -51,12 +52,11 @@ public class EvaluationDependencies implements IExtension{
 		final Iterable<NodeModel> onNode = onNodeDependencies.get(accessedNode);
 		if (onNode != null)
 			getRecursively(accessingNodes, onNode);
-		ArrayList<Entry<NodeModel, DependentNodeReferences>> onBranchDependencyList = new ArrayList<>(onBranchDependencies.entrySet());
-		for (Entry<NodeModel, DependentNodeReferences> entry : onBranchDependencyList) {
-			final NodeModel branchNode = entry.getKey();
-			if (accessedNode.isDescendantOf(branchNode)) {
-				onBranchDependencies.get(branchNode);
-				getRecursively(accessingNodes, entry.getValue());
+		if (!onBranchDependencies.isEmpty()) {
+			for (NodeModel branchNode = accessedNode.getParentNode(); branchNode != null; branchNode = branchNode.getParentNode()) {
+				final Iterable<NodeModel> onBranch = onBranchDependencies.get(branchNode);
+				if (onBranch != null)
+					getRecursively(accessingNodes, onBranch);
 			}
 		}
 		getRecursively(accessingNodes, onAnyNodeDependencies.keySet());
@@ -131,6 +131,31 @@ public class EvaluationDependencies implements IExtension{
 		return dependencies != null ? dependencies : Collections.<NodeModel>emptyList();
 	}
 
+	/** calls the consumer with each accessing node and the node it accessed. */
+	public void forEachNodeAccess(BiConsumer<NodeModel, NodeModel> consumer) {
+		forEachAccess(onNodeDependencies, consumer);
+	}
+
+	/** calls the consumer with each accessing node and the node whose branch it accessed. */
+	public void forEachBranchAccess(BiConsumer<NodeModel, NodeModel> consumer) {
+		forEachAccess(onBranchDependencies, consumer);
+	}
+
+	private void forEachAccess(WeakHashMap<NodeModel, DependentNodeReferences> dependenciesMap,
+	                           BiConsumer<NodeModel, NodeModel> consumer) {
+		for (Entry<NodeModel, DependentNodeReferences> entry : dependenciesMap.entrySet()) {
+			for (NodeModel accessingNode : entry.getValue()) {
+				consumer.accept(accessingNode, entry.getKey());
+			}
+		}
+	}
+
+	/** calls the consumer with each node which may have accessed any node of the map or global nodes. */
+	public void forEachUnrestrictedAccess(Consumer<NodeModel> consumer) {
+		onAnyNodeDependencies.keySet().forEach(consumer);
+		onGlobalNodeDependencies.keySet().forEach(consumer);
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder builder = new StringBuilder();
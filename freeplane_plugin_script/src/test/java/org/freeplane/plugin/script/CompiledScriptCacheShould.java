@@ -0,0 +1,96 @@
+package org.freeplane.plugin.script;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CompiledScriptCacheShould {
+	private static final long COMPILE_TIME = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1);
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final CompiledScriptCleaner cleaner = new CompiledScriptCleaner();
+
+	@Test
+	public void useSameKeyForSameScriptText() {
+		assertThat(GroovyShell.scriptTextCacheKey("1 + 1", "1.8.0", "{}"))
+		    .isEqualTo(GroovyShell.scriptTextCacheKey("1 + 1", "1.8.0", "{}"));
+	}
+
+	@Test
+	public void useDifferentKeyForDifferentScriptText() {
+		assertThat(GroovyShell.scriptTextCacheKey("1 + 1", "1.8.0", "{}"))
+		    .isNotEqualTo(GroovyShell.scriptTextCacheKey("1 + 2", "1.8.0", "{}"));
+	}
+
+	@Test
+	public void useDifferentKeyForDifferentFreeplaneVersion() {
+		assertThat(GroovyShell.scriptTextCacheKey("1 + 1", "1.8.0", "{}"))
+		    .isNotEqualTo(GroovyShell.scriptTextCacheKey("1 + 1", "1.8.1", "{}"));
+	}
+
+	@Test
+	public void useDifferentKeyForDifferentPermissions() {
+		assertThat(GroovyShell.scriptTextCacheKey("1 + 1", "1.8.0", "{execute_scripts_without_file_restriction=false}"))
+		    .isNotEqualTo(GroovyShell.scriptTextCacheKey("1 + 1", "1.8.0", "{execute_scripts_without_file_restriction=true}"));
+	}
+
+	private File compiledScriptText() throws IOException {
+		final File cache = folder.newFolder("cache");
+		final Properties properties = new Properties();
+		properties.setProperty("class", "Script1");
+		properties.setProperty("time", Long.toString(COMPILE_TIME));
+		try (OutputStream out = new FileOutputStream(new File(cache, GroovyShell.COMPILED_PROPERTIES))) {
+			properties.store(out, "");
+		}
+		return cache;
+	}
+
+	@Test
+	public void keepRecentlyUsedCompiledScriptText() throws Exception {
+		final File cache = compiledScriptText();
+		cleaner.removeOutdated(cache, COMPILE_TIME - 1);
+		assertThat(cache).exists();
+	}
+
+	@Test
+	public void removeCompiledScriptTextOlderThanDependencies() throws Exception {
+		final File cache = compiledScriptText();
+		cleaner.removeOutdated(cache, COMPILE_TIME);
+		assertThat(cache).doesNotExist();
+	}
+
+	@Test
+	public void removeCompiledScriptTextNotUsedForLongTime() throws Exception {
+		final File cache = compiledScriptText();
+		new File(cache, GroovyShell.COMPILED_PROPERTIES)
+		    .setLastModified(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(31));
+		cleaner.removeOutdated(cache, COMPILE_TIME - 1);
+		assertThat(cache).doesNotExist();
+	}
+
+	@Test
+	public void removeAbandonedTemporaryCache() throws Exception {
+		final File temporaryCache = folder.newFolder("cache.1" + GroovyShell.TEMPORARY_CACHE_SUFFIX);
+		temporaryCache.setLastModified(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2));
+		cleaner.removeOutdated(temporaryCache, 0);
+		assertThat(temporaryCache).doesNotExist();
+	}
+
+	@Test
+	public void keepTemporaryCacheOfRunningCompilation() throws Exception {
+		final File temporaryCache = folder.newFolder("cache.1" + GroovyShell.TEMPORARY_CACHE_SUFFIX);
+		cleaner.removeOutdated(temporaryCache, 0);
+		assertThat(temporaryCache).exists();
+	}
+}
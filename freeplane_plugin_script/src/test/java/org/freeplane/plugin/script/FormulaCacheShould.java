@@ -0,0 +1,95 @@
+package org.freeplane.plugin.script;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.freeplane.api.FormulaCacheStatistics;
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.mode.Controller;
+import org.freeplane.plugin.script.dependencies.RelatedElements;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class FormulaCacheShould {
+	private static Controller previousController;
+	private final MapModel map = Mockito.mock(MapModel.class);
+
+	@BeforeClass
+	public static void setupController() {
+		previousController = Controller.getCurrentController();
+		final Controller controller = Mockito.mock(Controller.class);
+		Mockito.when(controller.getResourceController()).thenReturn(Mockito.mock(ResourceController.class));
+		Controller.setCurrentController(controller);
+	}
+
+	@AfterClass
+	public static void restoreController() {
+		Controller.setCurrentController(previousController);
+	}
+
+	private NodeScript nodeScript(String id) {
+		final NodeModel node = new NodeModel(map);
+		node.setID(id);
+		return new NodeScript(node, "formula");
+	}
+
+	private void put(FormulaCache cache, NodeScript nodeScript, long evaluationTime) {
+		cache.put(nodeScript, new CachedResult(nodeScript.node.getID(), new RelatedElements(nodeScript.node),
+			evaluationTime));
+	}
+
+	@Test
+	public void countHitsAndMisses() {
+		final FormulaCache cache = new FormulaCache(0);
+		final NodeScript a = nodeScript("ID_1");
+		assertThat(cache.getOrThrowCachedResult(a)).isNull();
+		put(cache, a, 10);
+		assertThat(cache.getOrThrowCachedResult(a)).isEqualTo("ID_1");
+		assertThat(cache.getOrThrowCachedResult(a)).isEqualTo("ID_1");
+		final FormulaCacheStatistics statistics = cache.getStatistics();
+		assertThat(statistics.getHits()).isEqualTo(2);
+		assertThat(statistics.getMisses()).isEqualTo(1);
+		assertThat(statistics.getSize()).isEqualTo(1);
+		assertThat(statistics.getAverageEvaluationTimeNanos()).isEqualTo(10);
+	}
+
+	@Test
+	public void keepAllResultsIfNotBounded() {
+		final FormulaCache cache = new FormulaCache(0);
+		for (int i = 0; i < 100; i++)
+			put(cache, nodeScript("ID_" + i), i);
+		assertThat(cache.getStatistics().getSize()).isEqualTo(100);
+		assertThat(cache.getStatistics().getEvictions()).isZero();
+	}
+
+	@Test
+	public void evictCheapestResultsWhenMaximumSizeIsExceeded() {
+		final FormulaCache cache = new FormulaCache(10);
+		final NodeScript[] nodeScripts = new NodeScript[11];
+		for (int i = 0; i < nodeScripts.length; i++) {
+			nodeScripts[i] = nodeScript("ID_" + i);
+			put(cache, nodeScripts[i], i == 5 ? 1000 : 100 - i);
+		}
+		final FormulaCacheStatistics statistics = cache.getStatistics();
+		assertThat(statistics.getSize()).isEqualTo(9);
+		assertThat(statistics.getEvictions()).isEqualTo(2);
+		assertThat(cache.getOrThrowCachedResult(nodeScripts[10])).isNull();
+		assertThat(cache.getOrThrowCachedResult(nodeScripts[9])).isNull();
+		assertThat(cache.getOrThrowCachedResult(nodeScripts[8])).isEqualTo("ID_8");
+		assertThat(cache.getOrThrowCachedResult(nodeScripts[5])).isEqualTo("ID_5");
+	}
+
+	@Test
+	public void notCountReplacedResultsTwice() {
+		final FormulaCache cache = new FormulaCache(0);
+		final NodeScript a = nodeScript("ID_1");
+		put(cache, a, 10);
+		put(cache, a, 20);
+		cache.remove(a.node);
+		assertThat(cache.getStatistics().getSize()).isZero();
+		assertThat(cache.getOrThrowCachedResult(a)).isNull();
+	}
+}
@@ -0,0 +1,98 @@
+package org.freeplane.plugin.script;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.plugin.script.dependencies.EvaluationDependencies;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class FormulaEvaluationOrderShould {
+	private final MapModel map = Mockito.mock(MapModel.class);
+	private final NodeModel root = createNode("root");
+	private final EvaluationDependencies dependencies = EvaluationDependencies.of(map);
+
+	private NodeModel createNode(String text) {
+		final NodeModel node = new NodeModel(map);
+		node.setText(text);
+		return node;
+	}
+
+	private NodeModel addNode(NodeModel parent, String text) {
+		final NodeModel node = createNode(text);
+		parent.insert(node);
+		return node;
+	}
+
+	@Test
+	public void putIndependentFormulasIntoFirstLevel() {
+		final NodeModel a = addNode(root, "=10");
+		addNode(root, "text");
+		final NodeModel c = addNode(root, "=20");
+		final FormulaEvaluationOrder order = FormulaEvaluationOrder.of(root, dependencies);
+		assertThat(order.getLevels()).containsExactly(list(a, c));
+		assertThat(order.getSequentiallyEvaluatedNodes()).isEmpty();
+	}
+
+	@Test
+	public void putDependentFormulasIntoLaterLevels() {
+		final NodeModel a = addNode(root, "=b.to.num + c.to.num");
+		final NodeModel b = addNode(root, "=c.to.num");
+		final NodeModel c = addNode(root, "=10");
+		dependencies.accessNode(a, b);
+		dependencies.accessNode(a, c);
+		dependencies.accessNode(b, c);
+		final FormulaEvaluationOrder order = FormulaEvaluationOrder.of(root, dependencies);
+		assertThat(order.getLevels()).containsExactly(list(c), list(b), list(a));
+	}
+
+	@Test
+	public void orderFormulasAccessingBranchesAfterFormulasInBranch() {
+		final NodeModel sum = addNode(root, "=children.sum(0){it.to.num}");
+		final NodeModel child1 = addNode(sum, "=10");
+		final NodeModel child2 = addNode(sum, "=20");
+		final NodeModel other = addNode(root, "=30");
+		dependencies.accessBranch(sum, sum);
+		final FormulaEvaluationOrder order = FormulaEvaluationOrder.of(root, dependencies);
+		assertThat(order.getLevels()).containsExactly(list(child1, child2, other), list(sum));
+	}
+
+	@Test
+	public void evaluateFormulasAccessingAllNodesAndCyclesSequentiallyAtTheEnd() {
+		final NodeModel all = addNode(root, "=c.find{true}.size()");
+		final NodeModel a = addNode(root, "=b.to.num");
+		final NodeModel b = addNode(root, "=a.to.num");
+		final NodeModel c = addNode(root, "=10");
+		dependencies.accessAll(all);
+		dependencies.accessNode(a, b);
+		dependencies.accessNode(b, a);
+		final FormulaEvaluationOrder order = FormulaEvaluationOrder.of(root, dependencies);
+		assertThat(order.getLevels()).containsExactly(list(c));
+		assertThat(order.getSequentiallyEvaluatedNodes()).containsExactly(all, a, b);
+	}
+
+	@Test
+	public void evaluateAllPrecedentsBeforeDependent() {
+		final NodeModel a = addNode(root, "=b.to.num");
+		final List<NodeModel> precedents = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			final NodeModel precedent = addNode(root, "=" + (100 + i));
+			precedents.add(precedent);
+			dependencies.accessNode(a, precedent);
+		}
+		final List<NodeModel> evaluatedNodes = new ArrayList<>();
+		FormulaEvaluationOrder.of(root, dependencies).evaluate(evaluatedNodes::add);
+		assertThat(evaluatedNodes).hasSize(101).containsAll(precedents).endsWith(a);
+	}
+
+	private static List<NodeModel> list(NodeModel... nodes) {
+		final List<NodeModel> list = new ArrayList<>();
+		Collections.addAll(list, nodes);
+		return list;
+	}
+}
@@ -0,0 +1,81 @@
+package org.freeplane.plugin.script.dependencies;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeModel;
+
+/**
+ * Measures finding the formulas affected by a node change in a map where every inner node
+ * contains a <code>children.sum()</code> like formula accessing its branch.
+ *
+ * Compares the ancestor lookup used by {@link EvaluationDependencies} with scanning all branch dependencies.
+ *
+ * Run with the number of nodes (default 40000) and the number of children per node (default 4) as optional arguments.
+ */
+public class BranchDependenciesBenchmark {
+	private static final int CHANGES = 10000;
+
+	public static void main(String[] args) {
+		final int nodeCount = args.length > 0 ? Integer.parseInt(args[0]) : 40000;
+		final int childCount = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		final MapModel map = new MapModel(null, null);
+		final NodeModel root = new NodeModel(map);
+		final EvaluationDependencies dependencies = new EvaluationDependencies();
+		final Map<NodeModel, Void> branchNodes = new WeakHashMap<>();
+		final List<NodeModel> leaves = new ArrayList<>();
+		final List<NodeModel> nodes = new ArrayList<>();
+		nodes.add(root);
+		for (int i = 0; nodes.size() < nodeCount; i++) {
+			final NodeModel parent = nodes.get(i);
+			for (int j = 0; j < childCount; j++) {
+				final NodeModel child = new NodeModel(map);
+				parent.insert(child);
+				nodes.add(child);
+			}
+		}
+		for (final NodeModel node : nodes) {
+			if (node.getChildCount() == 0)
+				leaves.add(node);
+			else {
+				dependencies.accessBranch(node, node);
+				branchNodes.put(node, null);
+			}
+		}
+		System.out.printf("%d branch formulas, %d leaves%n", branchNodes.size(), leaves.size());
+		for (int run = 0; run < 4; run++) {
+			final boolean warmup = run == 0;
+			measure("ancestor lookup", warmup, leaves, leaf -> {
+				final Set<NodeModel> accessingNodes = new LinkedHashSet<>();
+				dependencies.getChangedDependencies(accessingNodes, leaf);
+				return accessingNodes.size();
+			});
+			measure("full scan", warmup, leaves, leaf -> {
+				int count = 0;
+				for (final NodeModel branchNode : new ArrayList<>(branchNodes.keySet()))
+					if (leaf.isDescendantOf(branchNode))
+						count++;
+				return count;
+			});
+		}
+	}
+
+	interface ChangedDependencySearch {
+		int countChangedDependencies(NodeModel changedNode);
+	}
+
+	private static void measure(String name, boolean warmup, List<NodeModel> leaves, ChangedDependencySearch search) {
+		final long start = System.nanoTime();
+		long found = 0;
+		for (int i = 0; i < CHANGES; i++)
+			found += search.countChangedDependencies(leaves.get(i % leaves.size()));
+		final long time = System.nanoTime() - start;
+		System.out.printf("%s%-16s %8.2f us per change, %d dependencies found%n", warmup ? "warmup " : "", name,
+		    time / 1000.0 / CHANGES, found);
+	}
+}
@@ -0,0 +1,63 @@
+package org.freeplane.plugin.script.dependencies;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeModel;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class EvaluationDependenciesShould {
+	private final MapModel map = Mockito.mock(MapModel.class);
+	private final EvaluationDependencies dependencies = new EvaluationDependencies();
+	private final NodeModel root = new NodeModel(map);
+
+	private NodeModel addNode(NodeModel parent) {
+		final NodeModel node = new NodeModel(map);
+		parent.insert(node);
+		return node;
+	}
+
+	private Set<NodeModel> changedDependencies(NodeModel changedNode) {
+		final Set<NodeModel> accessingNodes = new LinkedHashSet<>();
+		dependencies.getChangedDependencies(accessingNodes, changedNode);
+		return accessingNodes;
+	}
+
+	@Test
+	public void findNodesAccessingBranchesOfAllAncestors() {
+		final NodeModel parent = addNode(root);
+		final NodeModel child = addNode(parent);
+		final NodeModel grandchild = addNode(child);
+		final NodeModel accessingParentBranch = addNode(root);
+		final NodeModel accessingRootBranch = addNode(root);
+		dependencies.accessBranch(accessingParentBranch, parent);
+		dependencies.accessBranch(accessingRootBranch, root);
+		assertThat(changedDependencies(grandchild)).containsOnly(accessingParentBranch, accessingRootBranch);
+	}
+
+	@Test
+	public void notFindNodesAccessingBranchOfChangedNodeOrOtherBranches() {
+		final NodeModel parent = addNode(root);
+		final NodeModel sibling = addNode(root);
+		final NodeModel accessingOwnBranch = addNode(root);
+		final NodeModel accessingSiblingBranch = addNode(root);
+		dependencies.accessBranch(accessingOwnBranch, parent);
+		dependencies.accessBranch(accessingSiblingBranch, sibling);
+		assertThat(changedDependencies(parent)).isEmpty();
+	}
+
+	@Test
+	public void findDependenciesOfAccessingNodesRecursively() {
+		final NodeModel parent = addNode(root);
+		final NodeModel child = addNode(parent);
+		final NodeModel sum = addNode(root);
+		final NodeModel total = addNode(root);
+		dependencies.accessBranch(sum, parent);
+		dependencies.accessNode(total, sum);
+		assertThat(changedDependencies(child)).containsExactly(sum, total);
+	}
+}